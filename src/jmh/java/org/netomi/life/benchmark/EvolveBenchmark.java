@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.benchmark;
+
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+import org.netomi.life.model.Rule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to evolve a single generation.
+ * <p>
+ * The initial state is restored before each iteration, as e.g. a random
+ * soup quickly settles down to a much lower density.
+ * <p>
+ * Besides Conway's rule, HighLife is measured as an example of a rule
+ * evaluated by the generic kernel.
+ *
+ * @author Thomas Neidhart
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EvolveBenchmark {
+
+    @Param({ "64", "256", "1024", "4096", "8192" })
+    private int size;
+
+    @Param({ "SOUP", "GLIDERS", "STILL_LIFES" })
+    private Pattern pattern;
+
+    @Param({ "PACKED", "SPARSE" })
+    private EngineType engine;
+
+    @Param({ "B3/S23", "B36/S23" })
+    private String rule;
+
+    private CellularAutomaton model;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        model = new CellularAutomaton(size, size, engine.createEngine(Rule.parse(rule)));
+        pattern.fill(model, 42);
+    }
+
+    @Benchmark
+    public void evolve() {
+        model.evolve();
+    }
+}
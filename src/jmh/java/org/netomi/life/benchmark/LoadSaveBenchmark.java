@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.benchmark;
+
+import org.netomi.life.action.LoadModelAction;
+import org.netomi.life.action.SaveModelAction;
+import org.netomi.life.io.ModelFormat;
+import org.netomi.life.model.CellularAutomaton;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures saving a model to a file and loading it back again.
+ *
+ * @author Thomas Neidhart
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LoadSaveBenchmark {
+
+    @Param({ "64", "256", "1024", "4096" })
+    private int size;
+
+    @Param({ "SOUP", "GLIDERS" })
+    private Pattern pattern;
+
+    @Param({ "BINARY", "TEXT" })
+    private ModelFormat format;
+
+    private CellularAutomaton model;
+    private File              file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        model = new CellularAutomaton(size, size);
+        pattern.fill(model, 42);
+
+        file = File.createTempFile("benchmark", ".gol");
+        save();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        SaveModelAction action = new SaveModelAction();
+        action.setFile(file);
+        action.setFormat(format);
+        action.execute(model);
+    }
+
+    @Benchmark
+    public CellularAutomaton load() throws IOException {
+        LoadModelAction action = new LoadModelAction();
+        action.setFile(file);
+        return action.execute();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.benchmark;
+
+import org.netomi.life.model.CellularAutomaton;
+
+import java.util.Random;
+
+/**
+ * Initial states used by the benchmarks, covering different densities.
+ *
+ * @author Thomas Neidhart
+ */
+public enum Pattern {
+
+    /**
+     * Every cell is alive with a probability of 50%.
+     */
+    SOUP {
+        @Override
+        void fill(CellularAutomaton model, long seed) {
+            Random random = new Random(seed);
+            for (int row = 0; row < model.getRows(); row++) {
+                for (int col = 0; col < model.getCols(); col++) {
+                    if (random.nextBoolean()) {
+                        model.setAlive(row, col, true);
+                    }
+                }
+            }
+        }
+    },
+
+    /**
+     * A glider every 32 cells in both directions, all flying in the same direction.
+     */
+    GLIDERS {
+        @Override
+        void fill(CellularAutomaton model, long seed) {
+            for (int row = 0; row + 3 <= model.getRows(); row += 32) {
+                for (int col = 0; col + 3 <= model.getCols(); col += 32) {
+                    model.setAlive(row,     col + 1, true);
+                    model.setAlive(row + 1, col + 2, true);
+                    model.setAlive(row + 2, col,     true);
+                    model.setAlive(row + 2, col + 1, true);
+                    model.setAlive(row + 2, col + 2, true);
+                }
+            }
+        }
+    },
+
+    /**
+     * The whole grid is covered with blocks, thus no cell ever changes.
+     */
+    STILL_LIFES {
+        @Override
+        void fill(CellularAutomaton model, long seed) {
+            for (int row = 0; row + 2 <= model.getRows(); row += 3) {
+                for (int col = 0; col + 2 <= model.getCols(); col += 3) {
+                    model.setAlive(row,     col,     true);
+                    model.setAlive(row,     col + 1, true);
+                    model.setAlive(row + 1, col,     true);
+                    model.setAlive(row + 1, col + 1, true);
+                }
+            }
+        }
+    };
+
+    abstract void fill(CellularAutomaton model, long seed);
+}
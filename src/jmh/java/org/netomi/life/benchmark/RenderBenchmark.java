@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.benchmark;
+
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.view.CellRaster;
+import org.netomi.life.view.ObservableAutomaton;
+import org.netomi.life.view.Viewport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering frames of a fixed size into a {@link CellRaster}, without a running JavaFX toolkit.
+ * <p>
+ * A frame either shows the whole model, with multiple cells per pixel for large
+ * models, or a zoomed in part of it. In both cases the cost of a frame should
+ * only depend on the size of the frame, not on the size of the model.
+ *
+ * @author Thomas Neidhart
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RenderBenchmark {
+
+    private static final int WIDTH  = 1024;
+    private static final int HEIGHT = 768;
+
+    @Param({ "64", "256", "1024", "4096", "16384" })
+    private int size;
+
+    @Param({ "SOUP", "GLIDERS" })
+    private Pattern pattern;
+
+    private ObservableAutomaton model;
+    private CellRaster          fitRaster;
+    private CellRaster          zoomedRaster;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        CellularAutomaton automaton = new CellularAutomaton(size, size);
+        pattern.fill(automaton, 42);
+
+        automaton.evolveState(1);
+
+        model = new ObservableAutomaton(automaton);
+
+        fitRaster = new CellRaster(WIDTH, HEIGHT);
+        fitRaster.setViewport(Viewport.fit(size, size, WIDTH, HEIGHT));
+
+        zoomedRaster = new CellRaster(WIDTH, HEIGHT);
+        zoomedRaster.setViewport(new Viewport((size - HEIGHT / 8.0) / 2, (size - WIDTH / 8.0) / 2, 8.0));
+    }
+
+    @Benchmark
+    public CellRaster fitFrame() {
+        fitRaster.drawAll(model);
+        return fitRaster;
+    }
+
+    @Benchmark
+    public CellRaster zoomedFrame() {
+        zoomedRaster.drawAll(model);
+        return zoomedRaster;
+    }
+}
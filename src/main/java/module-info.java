@@ -2,6 +2,9 @@ open module netomi.life {
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.graphics;
+    requires java.management;
+    requires jdk.management;
+    requires jdk.jfr;
     requires ignite.guice;
     requires guice;
     requires javax.inject;
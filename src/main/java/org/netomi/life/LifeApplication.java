@@ -23,6 +23,8 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.netomi.life.metrics.PerformanceMetrics;
+import org.netomi.life.model.EngineType;
 import org.netomi.life.service.ModelService;
 import org.netomi.life.service.ModelServiceImpl;
 
@@ -46,6 +48,8 @@ public class LifeApplication extends Application {
     public void start(Stage primaryStage) throws Exception {
         context.init();
 
+        PerformanceMetrics.getDefault().registerMBeans();
+
         Parent root = fxmlLoader.load(getClass().getResourceAsStream("/main.fxml"));
 
         Scene scene = new Scene(root, 800, 600);
@@ -66,6 +70,7 @@ public class LifeApplication extends Application {
         @Override
         protected void configure() {
             bind(ModelService.class).to(ModelServiceImpl.class);
+            bind(EngineType.class).toInstance(EngineType.PACKED);
         }
 
     }
@@ -16,18 +16,24 @@
  */
 package org.netomi.life.action;
 
+import org.netomi.life.io.ModelFormat;
+import org.netomi.life.metrics.Phase;
 import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
 
 import java.io.*;
 
 /**
  * Loads a cellular automata model from the specified file.
+ * <p>
+ * The format of the file is detected automatically, see {@link ModelFormat}.
  *
  * @author Thomas Neidhart
  */
 public class LoadModelAction {
 
-    private File file;
+    private File       file;
+    private EngineType engineType = EngineType.PACKED;
 
     public void setFile(File inputFile) {
         this.file = inputFile;
@@ -37,23 +43,24 @@ public class LoadModelAction {
         return file;
     }
 
-    public CellularAutomaton execute() throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(getFile()))) {
-
-            int rows = Integer.parseInt(reader.readLine());
-            int cols = Integer.parseInt(reader.readLine());
+    /**
+     * Sets the engine used to evolve the loaded model.
+     */
+    public void setEngineType(EngineType engineType) {
+        this.engineType = engineType;
+    }
 
-            CellularAutomaton model = new CellularAutomaton(rows, cols);
+    public EngineType getEngineType() {
+        return engineType;
+    }
 
-            String state = reader.readLine();
+    public CellularAutomaton execute() throws IOException {
+        long startTime = System.nanoTime();
 
-            int idx = 0;
-            for (CellularAutomaton.Cell cell : model) {
-                boolean alive = state.charAt(idx++) == '1';
-                cell.setAlive(alive);
-            }
+        ModelFormat format = ModelFormat.detect(getFile());
+        CellularAutomaton model = format.createCodec().read(getFile(), engineType);
 
-            return model;
-        }
+        model.getMetrics().record(Phase.LOAD, System.nanoTime() - startTime);
+        return model;
     }
 }
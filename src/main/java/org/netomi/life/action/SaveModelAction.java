@@ -16,18 +16,30 @@
  */
 package org.netomi.life.action;
 
+import org.netomi.life.io.ModelFormat;
+import org.netomi.life.metrics.Phase;
 import org.netomi.life.model.CellularAutomaton;
 
 import java.io.*;
 
 /**
  * Saves the current state of the given cellular automata to a file.
+ * <p>
+ * Models in {@link ModelFormat#BINARY} format with only few alive cells
+ * are saved in the {@link ModelFormat#SPARSE} format instead.
  *
  * @author Thomas Neidhart
  */
 public class SaveModelAction {
 
-    private File file;
+    /**
+     * The default ratio of alive cells below which the sparse format is used.
+     */
+    public static final double DEFAULT_SPARSE_DENSITY = 1.0 / 1024;
+
+    private File        file;
+    private ModelFormat format        = ModelFormat.BINARY;
+    private double      sparseDensity = DEFAULT_SPARSE_DENSITY;
 
     public void setFile(File outputFile) {
         this.file = outputFile;
@@ -37,19 +49,41 @@ public class SaveModelAction {
         return file;
     }
 
+    public void setFormat(ModelFormat format) {
+        this.format = format;
+    }
+
+    public ModelFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Sets the ratio of alive cells below which the sparse format is used,
+     * a value of 0 disables the sparse format.
+     */
+    public void setSparseDensity(double sparseDensity) {
+        this.sparseDensity = sparseDensity;
+    }
+
+    public double getSparseDensity() {
+        return sparseDensity;
+    }
+
     public void execute(CellularAutomaton model) throws IOException {
         if (model == null) {
             throw new IllegalArgumentException("model is null.");
         }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(getFile()))) {
+        long startTime = System.nanoTime();
 
-            writer.write(String.format("%d\n", model.getRows()));
-            writer.write(String.format("%d\n", model.getCols()));
-
-            for (CellularAutomaton.Cell cell : model) {
-                writer.write(cell.isAlive() ? "1" : "0");
-            }
+        ModelFormat actualFormat = format;
+        if (actualFormat == ModelFormat.BINARY &&
+            model.getPopulation() < sparseDensity * model.getRows() * model.getCols()) {
+            actualFormat = ModelFormat.SPARSE;
         }
+
+        actualFormat.createCodec().write(model, getFile());
+
+        model.getMetrics().record(Phase.SAVE, System.nanoTime() - startTime);
     }
 }
@@ -0,0 +1,491 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.batch;
+
+import org.netomi.life.action.LoadModelAction;
+import org.netomi.life.action.SaveModelAction;
+import org.netomi.life.io.ModelFormat;
+import org.netomi.life.metrics.HistogramSnapshot;
+import org.netomi.life.metrics.MetricsSnapshot;
+import org.netomi.life.metrics.PerformanceMetrics;
+import org.netomi.life.metrics.Phase;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.Cycle;
+import org.netomi.life.model.EngineType;
+import org.netomi.life.model.ParallelEngine;
+import org.netomi.life.model.Rule;
+import org.netomi.life.model.Topology;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evolves one or more models without a user interface.
+ * <p>
+ * Each model is loaded from a file, evolved for a fixed number of generations
+ * or until it repeats a previous state, and the final state is written next to
+ * the input file or into an output directory. Multiple models are evolved in
+ * parallel, one model per worker thread.
+ * <p>
+ * Once a model enters a cycle, the remaining generations are skipped, see
+ * {@link CellularAutomaton#skipAhead(long)}.
+ * <p>
+ * The runner only depends on the model and action packages and thus does not
+ * require JavaFX to be present, e.g.:
+ * <pre>
+ * java -cp build/classes/java/main org.netomi.life.batch.BatchRunner -g 10000 board.gol
+ * </pre>
+ *
+ * @author Thomas Neidhart
+ */
+public class BatchRunner {
+
+    private static final String OUTPUT_SUFFIX = "-final.";
+
+    private long        generations  = 1000;
+    private boolean     untilStable;
+    private EngineType  engineType   = EngineType.PACKED;
+    private Rule        rule;
+    private Topology    topology;
+    private int         threads      = Runtime.getRuntime().availableProcessors();
+    private ModelFormat outputFormat = ModelFormat.BINARY;
+    private File        outputDirectory;
+
+    public void setGenerations(long generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("generations must not be negative.");
+        }
+        this.generations = generations;
+    }
+
+    /**
+     * Stops the evolution of a model as soon as it repeats a previous state,
+     * the number of generations is still used as upper bound.
+     */
+    public void setUntilStable(boolean untilStable) {
+        this.untilStable = untilStable;
+    }
+
+    public void setEngineType(EngineType engineType) {
+        this.engineType = engineType;
+    }
+
+    /**
+     * Sets the rule to evolve all models with, by default the rule
+     * stored with each model is used.
+     */
+    public void setRule(Rule rule) {
+        this.rule = rule;
+    }
+
+    /**
+     * Sets the topology to evolve all models on, by default the topology
+     * of the evolution engine is kept.
+     */
+    public void setTopology(Topology topology) {
+        this.topology = topology;
+    }
+
+    public void setThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive.");
+        }
+        this.threads = threads;
+    }
+
+    public void setOutputFormat(ModelFormat outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
+    /**
+     * Sets the directory to write the final states to, by default they are
+     * written next to the input files.
+     */
+    public void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Evolves all given models and returns their results in the same order.
+     */
+    public List<Result> execute(List<File> inputFiles) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, inputFiles.size())));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (File inputFile : inputFiles) {
+                futures.add(executor.submit(() -> run(inputFile)));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException ex) {
+                    results.add(new Result(inputFiles.get(i), ex.getCause()));
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result run(File inputFile) throws IOException {
+        long startTime = System.nanoTime();
+
+        LoadModelAction loadAction = new LoadModelAction();
+        loadAction.setFile(inputFile);
+        loadAction.setEngineType(engineType);
+        CellularAutomaton model = loadAction.execute();
+        if (rule != null) {
+            model.setRule(rule);
+        }
+        if (topology != null) {
+            model.setTopology(topology);
+        }
+
+        long loadedTime = System.nanoTime();
+
+        long evolvedGenerations = 0;
+        if (engineType == EngineType.HASHLIFE && !untilStable) {
+            // hashlife advances in large steps, observing each generation would defeat that.
+            model.evolveState(generations);
+            evolvedGenerations = generations;
+        } else {
+            long targetGeneration = model.getGeneration() + generations;
+            while (model.getGeneration() < targetGeneration) {
+                model.evolveState(1);
+                evolvedGenerations++;
+
+                if (model.getCycle() != null) {
+                    if (!untilStable) {
+                        long remainder = (targetGeneration - model.getGeneration()) % model.getCycle().getPeriod();
+                        model.skipAhead(targetGeneration - model.getGeneration());
+                        evolvedGenerations += remainder;
+                    }
+                    break;
+                }
+            }
+        }
+
+        long evolvedTime = System.nanoTime();
+
+        File outputFile = getOutputFile(inputFile);
+
+        SaveModelAction saveAction = new SaveModelAction();
+        saveAction.setFile(outputFile);
+        saveAction.setFormat(outputFormat);
+        saveAction.execute(model);
+
+        long savedTime = System.nanoTime();
+
+        return new Result(inputFile, outputFile, model, evolvedGenerations,
+                          loadedTime - startTime, evolvedTime - loadedTime, savedTime - evolvedTime);
+    }
+
+    private File getOutputFile(File inputFile) {
+        String name = inputFile.getName();
+        int    dot  = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+
+        File directory = outputDirectory != null ? outputDirectory : inputFile.getAbsoluteFile().getParentFile();
+        return new File(directory, name + OUTPUT_SUFFIX + outputFormat.getExtension());
+    }
+
+    /**
+     * The outcome of evolving a single model.
+     */
+    public static class Result {
+        private final File      inputFile;
+        private final File      outputFile;
+        private final Throwable failure;
+
+        private final int     rows;
+        private final int     cols;
+        private final long    generation;
+        private final long    evolvedGenerations;
+        private final int     population;
+        private final Cycle   cycle;
+
+        private final long loadNanos;
+        private final long evolveNanos;
+        private final long saveNanos;
+
+        Result(File inputFile, File outputFile, CellularAutomaton model, long evolvedGenerations,
+               long loadNanos, long evolveNanos, long saveNanos) {
+            this.inputFile   = inputFile;
+            this.outputFile  = outputFile;
+            this.failure     = null;
+            this.rows        = model.getRows();
+            this.cols        = model.getCols();
+            this.generation  = model.getGeneration();
+            this.evolvedGenerations = evolvedGenerations;
+            this.population  = model.getPopulation();
+            this.cycle       = model.getCycle();
+            this.loadNanos   = loadNanos;
+            this.evolveNanos = evolveNanos;
+            this.saveNanos   = saveNanos;
+        }
+
+        Result(File inputFile, Throwable failure) {
+            this.inputFile   = inputFile;
+            this.outputFile  = null;
+            this.failure     = failure;
+            this.rows        = 0;
+            this.cols        = 0;
+            this.generation  = 0;
+            this.evolvedGenerations = 0;
+            this.population  = 0;
+            this.cycle       = null;
+            this.loadNanos   = 0;
+            this.evolveNanos = 0;
+            this.saveNanos   = 0;
+        }
+
+        public File getInputFile() {
+            return inputFile;
+        }
+
+        public File getOutputFile() {
+            return outputFile;
+        }
+
+        public boolean isFailed() {
+            return failure != null;
+        }
+
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        public long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Returns the number of generations actually computed, excluding skipped cycles.
+         */
+        public long getEvolvedGenerations() {
+            return evolvedGenerations;
+        }
+
+        public int getPopulation() {
+            return population;
+        }
+
+        /**
+         * Returns the cycle the model has entered, or {@code null} if none has been detected.
+         */
+        public Cycle getCycle() {
+            return cycle;
+        }
+
+        public long getLoadNanos() {
+            return loadNanos;
+        }
+
+        public long getEvolveNanos() {
+            return evolveNanos;
+        }
+
+        public long getSaveNanos() {
+            return saveNanos;
+        }
+
+        public double getGenerationsPerSecond() {
+            return evolveNanos > 0 ? evolvedGenerations * 1e9 / evolveNanos : 0.0;
+        }
+
+        public double getCellsPerSecond() {
+            return getGenerationsPerSecond() * rows * cols;
+        }
+
+        @Override
+        public String toString() {
+            if (isFailed()) {
+                return String.format(Locale.ROOT, "%s: failed: %s", inputFile, failure);
+            }
+
+            return String.format(Locale.ROOT,
+                                 "%s: %dx%d generation=%d population=%d%s load=%.1fms evolve=%.1fms save=%.1fms " +
+                                 "gen/s=%.1f cells/s=%.3e -> %s",
+                                 inputFile, rows, cols, generation, population, cycle != null ? " (" + cycle + ")" : "",
+                                 loadNanos / 1e6, evolveNanos / 1e6, saveNanos / 1e6,
+                                 getGenerationsPerSecond(), getCellsPerSecond(), outputFile);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        BatchRunner runner       = new BatchRunner();
+        List<File>  inputFiles   = new ArrayList<>();
+        boolean     printMetrics = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-g":
+                    case "--generations":
+                        runner.setGenerations(Long.parseLong(argument(args, ++i)));
+                        break;
+
+                    case "-s":
+                    case "--until-stable":
+                        runner.setUntilStable(true);
+                        break;
+
+                    case "-e":
+                    case "--engine":
+                        runner.setEngineType(EngineType.valueOf(argument(args, ++i).toUpperCase(Locale.ROOT)));
+                        break;
+
+                    case "-r":
+                    case "--rule":
+                        runner.setRule(Rule.parse(argument(args, ++i)));
+                        break;
+
+                    case "--topology":
+                        runner.setTopology(Topology.valueOf(argument(args, ++i).toUpperCase(Locale.ROOT)));
+                        break;
+
+                    case "-t":
+                    case "--threads":
+                        runner.setThreads(Integer.parseInt(argument(args, ++i)));
+                        break;
+
+                    case "-p":
+                    case "--parallelism":
+                        setParallelism(Integer.parseInt(argument(args, ++i)));
+                        break;
+
+                    case "-o":
+                    case "--output":
+                        runner.setOutputDirectory(new File(argument(args, ++i)));
+                        break;
+
+                    case "-f":
+                    case "--format":
+                        runner.setOutputFormat(ModelFormat.valueOf(argument(args, ++i).toUpperCase(Locale.ROOT)));
+                        break;
+
+                    case "-m":
+                    case "--metrics":
+                        printMetrics = true;
+                        break;
+
+                    case "-h":
+                    case "--help":
+                        printUsage(System.out);
+                        return;
+
+                    default:
+                        if (args[i].startsWith("-")) {
+                            throw new IllegalArgumentException("unknown option " + args[i]);
+                        }
+                        inputFiles.add(new File(args[i]));
+                }
+            }
+
+            if (inputFiles.isEmpty()) {
+                throw new IllegalArgumentException("no input files given");
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println("error: " + ex.getMessage());
+            printUsage(System.err);
+            System.exit(2);
+            return;
+        }
+
+        PerformanceMetrics metrics = PerformanceMetrics.getDefault();
+        metrics.registerMBeans();
+        metrics.reset();
+
+        long startTime = System.nanoTime();
+
+        List<Result> results = runner.execute(inputFiles);
+
+        long totalNanos  = System.nanoTime() - startTime;
+        int  failedCount = 0;
+        for (Result result : results) {
+            System.out.println(result);
+            if (result.isFailed()) {
+                failedCount++;
+            }
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%d model(s) in %.1fms, %d failed",
+                                         results.size(), totalNanos / 1e6, failedCount));
+
+        if (printMetrics) {
+            printMetrics(System.out, metrics.snapshot());
+        }
+
+        if (failedCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sets the parallelism level of parallel engines, see {@link ParallelEngine#PARALLELISM_PROPERTY}.
+     */
+    private static void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive.");
+        }
+        System.setProperty(ParallelEngine.PARALLELISM_PROPERTY, Integer.toString(parallelism));
+    }
+
+    private static String argument(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("missing argument for " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    private static void printMetrics(PrintStream out, MetricsSnapshot snapshot) {
+        out.println(snapshot);
+        for (Phase phase : Phase.values()) {
+            HistogramSnapshot histogram = snapshot.getHistogram(phase);
+            if (histogram.getCount() > 0) {
+                out.println(String.format(Locale.ROOT, "  %-10s %s", phase.getName(), histogram));
+            }
+        }
+    }
+
+    private static void printUsage(PrintStream out) {
+        out.println("usage: BatchRunner [options] file...");
+        out.println("  -g, --generations <n>   number of generations to evolve (default 1000)");
+        out.println("  -s, --until-stable      stop as soon as a previous state repeats");
+        out.println("  -e, --engine <type>     evolution engine: reference, packed, parallel, sparse, hashlife, chunked");
+        out.println("  -r, --rule <rule>       rule to evolve with, e.g. B36/S23 (default: rule of each model)");
+        out.println("      --topology <type>   topology of the grid: plane, torus, klein_bottle, unbounded (default: topology of the engine)");
+        out.println("  -t, --threads <n>       number of models evolved in parallel");
+        out.println("  -p, --parallelism <n>   number of threads shared by parallel engines (default: common fork/join pool)");
+        out.println("  -f, --format <format>   format of the final states: binary, sparse, text, rle, life_106 (default binary)");
+        out.println("  -o, --output <dir>      directory for the final states (default: next to the input)");
+        out.println("  -m, --metrics           print the throughput and the duration of each phase when done");
+    }
+}
@@ -18,15 +18,26 @@ package org.netomi.life.controller;
 
 import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.beans.property.ReadOnlyStringWrapper;
+import org.netomi.life.metrics.HistogramSnapshot;
+import org.netomi.life.metrics.MetricsSnapshot;
+import org.netomi.life.metrics.Phase;
+import org.netomi.life.model.Cycle;
+
+import java.util.Locale;
 
 /**
  * A simple POJO class to collect statistics about the performed evolutions.
+ * <p>
+ * The throughput and phase durations are taken from the latest interval
+ * of the {@link org.netomi.life.metrics.PerformanceMetrics}, independent
+ * of the frame rate of the user interface.
  *
  * @author Thomas Neidhart
  */
 public class EvolutionStats {
-    private long   evolutionCount;
-    private double meanEvolutionInterval;
+    private long            evolutionCount;
+    private MetricsSnapshot metrics;
+    private Cycle           cycle;
 
     private final  ReadOnlyStringWrapper text = new ReadOnlyStringWrapper(this, "text", toString());
 
@@ -34,19 +45,36 @@ public class EvolutionStats {
         return evolutionCount;
     }
 
-    public double getMeanEvolutionInterval() {
-        return meanEvolutionInterval;
+    /**
+     * Returns the metrics of the latest interval, or {@code null} if none are available yet.
+     */
+    public MetricsSnapshot getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(MetricsSnapshot metrics) {
+        this.metrics = metrics;
+        text.set(toString());
+    }
+
+    public Cycle getCycle() {
+        return cycle;
     }
 
-    public void addEvolution(long evolutionDurationNanos) {
-        meanEvolutionInterval = (meanEvolutionInterval * evolutionCount + evolutionDurationNanos / 1_000_000.0) / (evolutionCount + 1) ;
-        evolutionCount++ ;
+    public void setCycle(Cycle cycle) {
+        this.cycle = cycle;
+        text.set(toString());
+    }
+
+    public void addEvolutions(long evolutions) {
+        evolutionCount += evolutions;
         text.set(toString());
     }
 
     public void reset() {
         evolutionCount = 0;
-        meanEvolutionInterval = 0;
+        metrics = null;
+        cycle = null;
         text.set(toString());
     }
 
@@ -60,7 +88,19 @@ public class EvolutionStats {
 
     @Override
     public String toString() {
-        String interval = getMeanEvolutionInterval() == 0.0 ? "N/A" : String.format("%.3f milliseconds", getMeanEvolutionInterval());
-        return String.format("Evolution: %d, average evolution interval: %s", getEvolutionCount(), interval);
+        String stats = String.format("Evolution: %d", getEvolutionCount());
+        if (metrics != null) {
+            HistogramSnapshot evolve = metrics.getHistogram(Phase.EVOLVE);
+            HistogramSnapshot render = metrics.getHistogram(Phase.RENDER);
+
+            stats += String.format(Locale.ROOT, ", %.1f gen/s, %.3g cells/s, evolve p50/p99: %s/%s, render p99: %s, alloc: %.1f MB/s",
+                                   metrics.getGenerationsPerSecond(),
+                                   metrics.getCellsPerSecond(),
+                                   HistogramSnapshot.format(evolve.getValueAtPercentile(50)),
+                                   HistogramSnapshot.format(evolve.getValueAtPercentile(99)),
+                                   HistogramSnapshot.format(render.getValueAtPercentile(99)),
+                                   metrics.getAllocationRate() / (1024 * 1024));
+        }
+        return cycle == null ? stats : stats + ", " + cycle;
     }
 }
@@ -17,27 +17,45 @@
 package org.netomi.life.controller;
 
 import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.LongProperty;
+import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.stage.FileChooser;
+import javafx.util.StringConverter;
 import org.netomi.life.action.LoadModelAction;
 import org.netomi.life.action.SaveModelAction;
+import org.netomi.life.io.ModelFormat;
+import org.netomi.life.metrics.FrameEvent;
+import org.netomi.life.metrics.MetricsSnapshot;
+import org.netomi.life.metrics.PerformanceMetrics;
 import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.GenerationSnapshot;
+import org.netomi.life.model.Rule;
+import org.netomi.life.model.Topology;
+import org.netomi.life.service.Board;
 import org.netomi.life.service.ModelService;
+import org.netomi.life.service.SimulationScheduler;
 import org.netomi.life.view.AutomatonView;
 
 import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * The controller for the simple life app.
@@ -46,6 +64,11 @@ import java.util.ResourceBundle;
  */
 public class MainController implements Initializable {
 
+    private static final long STATS_INTERVAL_NANOS = 1_000_000_000L;
+
+    // the number of generations a new board is evolved by in the background.
+    private static final long BOARD_GENERATIONS = 100_000L;
+
     @FXML
     private Button loadButton;
 
@@ -64,9 +87,24 @@ public class MainController implements Initializable {
     @FXML
     private Slider colSlider;
 
+    @FXML
+    private ComboBox<Topology> topologyComboBox;
+
     @FXML
     private Slider speedSlider;
 
+    @FXML
+    private CheckBox unlimitedSpeedCheckBox;
+
+    @FXML
+    private CheckBox stopOnCycleCheckBox;
+
+    @FXML
+    private ComboBox<String> ruleComboBox;
+
+    @FXML
+    private ComboBox<String> boardComboBox;
+
     @FXML
     private GridPane divider;
 
@@ -79,34 +117,94 @@ public class MainController implements Initializable {
     @Inject
     private ModelService modelService;
 
+    @Inject
+    private SimulationScheduler simulationScheduler;
+
     private AnimationTimer simulationTimer;
     private EvolutionStats evolutionStats;
 
     private final DoubleProperty speedProperty = new SimpleDoubleProperty(1.0);
 
+    private Rule     rule     = Rule.CONWAY;
+    private Topology topology;
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         simulationTimer = createSimulationTimer();
 
         rowSlider.valueChangingProperty().addListener((observable, oldValue, newValue) -> {
             if (!newValue) {
-                updateModel();
+                resizeModel();
             }
         });
 
         colSlider.valueChangingProperty().addListener((observable, oldValue, newValue) -> {
             if (!newValue) {
-                updateModel();
+                resizeModel();
             }
         });
 
         modelGrid.modelProperty().bind(modelService.modelProperty());
         updateModel();
 
+        updateTopologies(modelService.getModel());
+        topologyComboBox.valueProperty().addListener((observable, oldValue, newValue) -> changeTopology(newValue));
+
         evolutionStats = new EvolutionStats();
 
         statusLabel.textProperty().bind(evolutionStats.textProperty());
-        speedProperty.bind(speedSlider.valueProperty());
+
+        speedProperty.addListener((observable, oldValue, newValue) ->
+                simulationScheduler.setGenerationsPerSecond(newValue.doubleValue()));
+        // the slider selects the speed on a logarithmic scale from 1 to 1024 generations per second.
+        speedSlider.setLabelFormatter(new StringConverter<Double>() {
+            @Override
+            public String toString(Double value) {
+                return Long.toString(Math.round(Math.pow(2, value)));
+            }
+
+            @Override
+            public Double fromString(String string) {
+                return Math.log(Double.parseDouble(string)) / Math.log(2);
+            }
+        });
+        speedProperty.bind(Bindings.createDoubleBinding(() -> Math.pow(2, speedSlider.getValue()),
+                                                        speedSlider.valueProperty()));
+
+        unlimitedSpeedCheckBox.selectedProperty().addListener((observable, oldValue, newValue) ->
+                simulationScheduler.setUnlimited(newValue));
+
+        stopOnCycleCheckBox.selectedProperty().addListener((observable, oldValue, newValue) ->
+                simulationScheduler.setStopOnCycle(newValue));
+        simulationScheduler.setStopOnCycle(stopOnCycleCheckBox.isSelected());
+
+        ruleComboBox.setValue(rule.getNotation());
+        ruleComboBox.valueProperty().addListener((observable, oldValue, newValue) -> changeRule(newValue));
+
+        // boards are also created outside of the UI, e.g. by a parameter sweep.
+        boardComboBox.setOnShowing(event ->
+                boardComboBox.getItems().setAll(modelService.getBoards().stream()
+                                                            .map(Board::getName)
+                                                            .sorted()
+                                                            .collect(Collectors.toList())));
+        boardComboBox.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue != null) {
+                attachBoard(newValue);
+            }
+        });
+
+        // continue the simulation with the new model, e.g. after loading a model.
+        modelService.modelProperty().addListener((observable, oldValue, newValue) -> {
+            updateTopologies(newValue);
+
+            if (modelService.getAttachedBoard() == null) {
+                boardComboBox.setValue(null);
+            }
+
+            if (simulationScheduler.isRunning()) {
+                simulationScheduler.start(newValue);
+            }
+        });
     }
 
     public void toggleControls(ActionEvent actionEvent) {
@@ -121,10 +219,92 @@ public class MainController implements Initializable {
     public void toggleSimulation(ActionEvent actionEvent) {
         if (toggleSimulationButton.isSelected()) {
             toggleSimulationButton.setText("Stop evolution");
-            simulationTimer.start();
+
+            // take over an attached board from the simulation pool as soon as its current
+            // time slice has ended, without blocking the UI in the meantime.
+            Board board = modelService.getAttachedBoard();
+            if (board != null && board.getState() == Board.State.ACTIVE) {
+                toggleSimulationButton.setDisable(true);
+                modelService.stopBoard(board.getName())
+                            .exceptionally(ex -> board)
+                            .thenRunAsync(() -> takeOverBoard(board), Platform::runLater);
+            } else {
+                startSimulation();
+            }
         } else {
             toggleSimulationButton.setText("Start evolution");
-            simulationTimer.stop();
+            simulationScheduler.stop();
+
+            // keep showing the generations of an attached board evolved by the simulation pool.
+            if (modelService.getAttachedBoard() == null) {
+                simulationTimer.stop();
+            }
+        }
+    }
+
+    private void startSimulation() {
+        simulationScheduler.start(modelService.getModel());
+        simulationTimer.start();
+    }
+
+    /**
+     * Continues the evolution of the given board that has been stopped by the
+     * simulation pool, unless another model is shown by now.
+     */
+    private void takeOverBoard(Board board) {
+        toggleSimulationButton.setDisable(false);
+        if (toggleSimulationButton.isSelected() && modelService.getModel() == board.getModel()) {
+            startSimulation();
+        } else {
+            toggleSimulationButton.setSelected(false);
+            toggleSimulation(null);
+        }
+    }
+
+    /**
+     * Shows the board with the given name, following its evolution while it is
+     * evolved by the simulation pool.
+     */
+    private void attachBoard(String name) {
+        Board board = modelService.getBoard(name);
+        if (board == null) {
+            return;
+        }
+
+        // do not evolve the board twice.
+        if (board.getState() == Board.State.ACTIVE && simulationScheduler.isRunning()) {
+            toggleSimulationButton.setSelected(false);
+            toggleSimulation(null);
+        }
+
+        modelService.attachBoard(name);
+        simulationTimer.start();
+    }
+
+    /**
+     * Creates a board with a copy of the current model and evolves it in the
+     * background by the simulation pool, it can be shown by selecting it.
+     */
+    public void newBoard(ActionEvent actionEvent) {
+        String name;
+        int    index = modelService.getBoards().size();
+        do {
+            name = "Board " + ++index;
+        } while (modelService.getBoard(name) != null);
+
+        Board board = modelService.copyModelToBoard(name);
+        board.setStopOnCycle(stopOnCycleCheckBox.isSelected());
+
+        try {
+            // do not block the UI while the pool is saturated.
+            if (modelService.getSimulationPool().tryStart(board, BOARD_GENERATIONS, 0, TimeUnit.MILLISECONDS) == null) {
+                Alert alert = new Alert(Alert.AlertType.WARNING,
+                                        "Board '" + name + "' has been created, but too many boards are being evolved to start it.",
+                                        ButtonType.OK);
+                alert.showAndWait();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -133,43 +313,160 @@ public class MainController implements Initializable {
         evolutionStats.reset();
     }
 
+    public void fitToView(ActionEvent actionEvent) {
+        modelGrid.fitToView();
+    }
+
     private void updateModel() {
-        modelService.initModel((int) rowSlider.getValue(), (int) colSlider.getValue());
+        modelService.initModel((int) rowSlider.getValue(), (int) colSlider.getValue(), topology);
+        modelService.getModel().setRule(rule);
+    }
+
+    /**
+     * Adjusts the dimension of the current model, keeping its content.
+     */
+    private void resizeModel() {
+        modelService.resizeModel((int) rowSlider.getValue(), (int) colSlider.getValue());
+    }
+
+    /**
+     * Offers the topologies supported by the engine of the given model.
+     */
+    private void updateTopologies(CellularAutomaton model) {
+        topology = model.getTopology();
+
+        List<Topology> topologies = new ArrayList<>();
+        for (Topology candidate : Topology.values()) {
+            if (model.getEngine().supports(candidate)) {
+                topologies.add(candidate);
+            }
+        }
+
+        topologyComboBox.getItems().setAll(topologies);
+        topologyComboBox.setValue(topology);
     }
 
+    private void changeTopology(Topology topology) {
+        CellularAutomaton model = modelService.getModel();
+        if (topology == null || topology == model.getTopology()) {
+            return;
+        }
+
+        try {
+            this.topology = topology;
+            model.setTopology(topology);
+        } catch (IllegalArgumentException ex) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK);
+            alert.showAndWait();
+
+            this.topology = model.getTopology();
+            topologyComboBox.setValue(this.topology);
+        }
+    }
+
+    private void changeRule(String notation) {
+        CellularAutomaton model = modelService.getModel();
+        try {
+            rule = Rule.parse(notation);
+            if (!rule.equals(model.getRule())) {
+                model.setRule(rule);
+            }
+        } catch (IllegalArgumentException ex) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK);
+            alert.showAndWait();
+
+            rule = model.getRule();
+            ruleComboBox.setValue(rule.getNotation());
+        }
+    }
+
+    /**
+     * Creates a timer that publishes the latest generation computed by the
+     * simulation scheduler once per frame and updates the statistics about
+     * once per second.
+     */
     private AnimationTimer createSimulationTimer() {
-        final LongProperty lastUpdateTime = new SimpleLongProperty(0);
+        final LongProperty lastGeneration = new SimpleLongProperty(0);
+        final ObjectProperty<CellularAutomaton> lastSource = new SimpleObjectProperty<>();
+        final ObjectProperty<MetricsSnapshot> lastMetrics = new SimpleObjectProperty<>();
         final AnimationTimer timer = new AnimationTimer() {
             @Override
             public void handle(long timestamp) {
-                if (lastUpdateTime.get() > 0) {
-                    long elapsedTime = timestamp - lastUpdateTime.get();
-                    double ems = elapsedTime / 1e6;
-                    double val = 1000.0 / speedProperty.doubleValue();
-                    if (ems > val) {
-                        evolveAutomaton();
-                        lastUpdateTime.set(timestamp);
-                        evolutionStats.addEvolution(elapsedTime);
-                    }
-                } else {
-                    lastUpdateTime.set(timestamp);
+                updateMetrics();
+
+                boolean simulating = simulationScheduler.isRunning();
+
+                GenerationSnapshot snapshot = simulating ? simulationScheduler.pollSnapshot() : pollAttachedBoard();
+                if (snapshot == null) {
+                    return;
+                }
+
+                FrameEvent event = new FrameEvent();
+                event.begin();
+
+                // do not count the generations of another model, e.g. after attaching a board.
+                if (snapshot.getSource() != lastSource.get()) {
+                    lastSource.set(snapshot.getSource());
+                    lastGeneration.set(snapshot.getGeneration());
+                }
+
+                long generations = snapshot.getGeneration() - lastGeneration.get();
+                if (generations > 0) {
+                    evolutionStats.addEvolutions(generations);
+                }
+
+                int changedCells = modelGrid.publish(snapshot);
+                evolutionStats.setCycle(snapshot.getCycle());
+
+                lastGeneration.set(snapshot.getGeneration());
+
+                event.end();
+                if (event.shouldCommit()) {
+                    event.setGeneration(snapshot.getGeneration());
+                    event.setGenerations(generations);
+                    event.setPopulation(snapshot.getPopulation());
+                    event.setChangedCells(changedCells);
+                    event.setEngine(snapshot.getSource().getEngine().getName());
+                    event.commit();
                 }
+
+                // the scheduler finished by itself as the model entered a cycle.
+                if (simulating && snapshot.getCycle() != null && simulationScheduler.isStopOnCycle()) {
+                    toggleSimulationButton.setSelected(false);
+                    toggleSimulation(null);
+                }
+            }
+
+            @Override
+            public void start() {
+                lastMetrics.set(PerformanceMetrics.getDefault().snapshot());
+                super.start();
+            }
+
+            private GenerationSnapshot pollAttachedBoard() {
+                Board board = modelService.getAttachedBoard();
+                return board != null ? board.pollSnapshot() : null;
             }
 
+            private void updateMetrics() {
+                MetricsSnapshot current = PerformanceMetrics.getDefault().snapshot();
+                if (current.getTimestamp() - lastMetrics.get().getTimestamp() >= STATS_INTERVAL_NANOS) {
+                    evolutionStats.setMetrics(current.since(lastMetrics.get()));
+                    lastMetrics.set(current);
+                }
+            }
         };
         return timer;
     }
 
-    private void evolveAutomaton() {
-        modelService.getModel().evolve();
-    }
-
     public void saveModel(ActionEvent actionEvent) {
         try {
             FileChooser chooser = new FileChooser();
 
-            FileChooser.ExtensionFilter extFilter = new FileChooser.ExtensionFilter("GOL files (*.gol)", "*.gol");
-            chooser.getExtensionFilters().add(extFilter);
+            chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("GOL files (*.gol)", "*.gol"),
+                new FileChooser.ExtensionFilter("RLE files (*.rle)", "*.rle"),
+                new FileChooser.ExtensionFilter("Life 1.06 files (*.lif)", "*.lif"));
 
             chooser.setTitle("Save Model");
             File file = chooser.showSaveDialog(saveButton.getScene().getWindow());
@@ -177,6 +474,7 @@ public class MainController implements Initializable {
             if (file != null) {
                 SaveModelAction action = new SaveModelAction();
                 action.setFile(file);
+                action.setFormat(ModelFormat.forFileName(file.getName()));
                 action.execute(modelService.getModel());
             }
         } catch (IOException ex) {
@@ -189,8 +487,9 @@ public class MainController implements Initializable {
         try {
             FileChooser chooser = new FileChooser();
 
-            FileChooser.ExtensionFilter extFilter = new FileChooser.ExtensionFilter("GOL files (*.gol)", "*.gol");
-            chooser.getExtensionFilters().add(extFilter);
+            chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Pattern files (*.gol, *.rle, *.lif)", "*.gol", "*.rle", "*.lif", "*.life"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
 
             chooser.setTitle("Load Model");
             File file = chooser.showOpenDialog(loadButton.getScene().getWindow());
@@ -203,6 +502,9 @@ public class MainController implements Initializable {
 
                 rowSlider.setValue(model.getRows());
                 colSlider.setValue(model.getCols());
+
+                rule = model.getRule();
+                ruleComboBox.setValue(rule.getNotation());
             }
         } catch (IOException ex) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Loading model from file failed!", ButtonType.OK);
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A minimal reader for ASCII based pattern files.
+ * <p>
+ * The file is read through a fixed size buffer, thus the memory needed
+ * does not depend on the size of the file.
+ *
+ * @author Thomas Neidhart
+ */
+final class AsciiReader implements Closeable {
+
+    static final int EOF = -1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File        file;
+    private final InputStream inputStream;
+    private final byte[]      buffer = new byte[BUFFER_SIZE];
+
+    private int  position;
+    private int  limit;
+    private long line = 1;
+
+    AsciiReader(File file) throws IOException {
+        this.file        = file;
+        this.inputStream = new FileInputStream(file);
+    }
+
+    /**
+     * Returns the next character without consuming it, or {@link #EOF}.
+     */
+    int peek() throws IOException {
+        if (position == limit) {
+            limit    = inputStream.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position] & 0xff;
+    }
+
+    /**
+     * Returns and consumes the next character, or {@link #EOF}.
+     */
+    int read() throws IOException {
+        int c = peek();
+        if (c != EOF) {
+            position++;
+            if (c == '\n') {
+                line++;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Returns the remainder of the current line without the line terminator,
+     * or {@code null} at the end of the file.
+     */
+    String readLine() throws IOException {
+        if (peek() == EOF) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = read()) != EOF && c != '\n') {
+            if (c != '\r') {
+                sb.append((char) c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Skips the remainder of the current line including the line terminator.
+     */
+    void skipLine() throws IOException {
+        int c;
+        while ((c = read()) != EOF && c != '\n') {
+            // skip
+        }
+    }
+
+    /**
+     * Skips spaces, tabs and line terminators.
+     */
+    void skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t' || c == '\r' || c == '\n') {
+            read();
+        }
+    }
+
+    /**
+     * Reads an optionally signed decimal integer.
+     */
+    long readNumber() throws IOException {
+        boolean negative = false;
+        if (peek() == '-' || peek() == '+') {
+            negative = read() == '-';
+        }
+
+        if (!isDigit(peek())) {
+            throw error("number expected");
+        }
+
+        long value = 0;
+        while (isDigit(peek())) {
+            value = value * 10 + (read() - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw error("number too large");
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    IOException error(String message) {
+        return new IOException(file + ":" + line + ": " + message);
+    }
+
+    static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A minimal writer for ASCII based pattern files, the counterpart of {@link AsciiReader}.
+ *
+ * @author Thomas Neidhart
+ */
+final class AsciiWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream outputStream;
+    private final byte[]       digits = new byte[20];
+
+    private int column;
+
+    AsciiWriter(File file) throws IOException {
+        this.outputStream = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+    }
+
+    /**
+     * Returns the number of characters written to the current line.
+     */
+    int getColumn() {
+        return column;
+    }
+
+    void write(char c) throws IOException {
+        outputStream.write(c);
+        column = c == '\n' ? 0 : column + 1;
+    }
+
+    void write(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            write(s.charAt(i));
+        }
+    }
+
+    void writeNumber(long value) throws IOException {
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        while (length > 0) {
+            write((char) digits[--length]);
+        }
+    }
+
+    /**
+     * Returns the number of characters needed to write the given non-negative number.
+     */
+    static int numberLength(long value) {
+        int length = 1;
+        while (value >= 10) {
+            value /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        outputStream.close();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.netomi.life.model.BitGrid;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A versioned binary format storing the packed state of a model.
+ * <p>
+ * The file starts with a {@link ModelHeader} using the magic {@code 'G' 'O' 'L' 'B'},
+ * followed by {@code rows * ceil(cols / 64)} little-endian longs containing the
+ * packed state, see {@link BitGrid} for the layout.
+ * <p>
+ * The state is transferred in bulk between memory mapped regions of the file
+ * and the words of the model.
+ *
+ * @author Thomas Neidhart
+ */
+public class BinaryModelCodec implements ModelCodec {
+
+    static final byte[] MAGIC   = { 'G', 'O', 'L', 'B' };
+    static final int    VERSION = 1;
+
+    /**
+     * The maximum size of a single mapped region of the file.
+     */
+    private static final long MAX_MAPPED_BYTES = 1L << 28;
+
+    @Override
+    public boolean canRead(ByteBuffer header) {
+        return ModelHeader.hasMagic(header, MAGIC);
+    }
+
+    @Override
+    public CellularAutomaton read(File file, EngineType engineType) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ModelHeader header;
+            try {
+                header = ModelHeader.read(channel, MAGIC, VERSION);
+            } catch (IOException ex) {
+                throw new IOException(ex.getMessage() + ": " + file, ex);
+            }
+
+            // the header has been validated, check that the file contains the complete state before allocating it.
+            long stateOffset = header.getSize();
+            long stateBytes  = (long) header.getRows() * BitGrid.wordsPerRow(header.getCols()) * Long.BYTES;
+            if (channel.size() < stateOffset + stateBytes) {
+                throw new IOException("unexpected end of file: " + file);
+            }
+
+            BitGrid state = new BitGrid(header.getRows(), header.getCols());
+            transferState(channel, stateOffset, state, false);
+
+            return header.createModel(state, engineType);
+        }
+    }
+
+    @Override
+    public void write(CellularAutomaton model, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+
+            model.readState((state, generation) -> {
+                ModelHeader header =
+                    new ModelHeader(MAGIC, VERSION, state.getRows(), state.getCols(), generation, model.getRule());
+
+                header.write(channel);
+                transferState(channel, header.getSize(), state, true);
+            });
+        }
+    }
+
+    /**
+     * Transfers the state from or to the file, mapping at most {@link #MAX_MAPPED_BYTES}
+     * of the file at a time.
+     */
+    private static void transferState(FileChannel channel, long offset, BitGrid state, boolean write) throws IOException {
+        long rowBytes     = (long) state.getWordsPerRow() * Long.BYTES;
+        int  rowsPerChunk = (int) Math.max(1, Math.min(state.getRows(), MAX_MAPPED_BYTES / rowBytes));
+
+        FileChannel.MapMode mode = write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+
+        for (int fromRow = 0; fromRow < state.getRows(); fromRow += rowsPerChunk) {
+            int toRow = Math.min(state.getRows(), fromRow + rowsPerChunk);
+
+            LongBuffer words = channel.map(mode, offset + fromRow * rowBytes, (toRow - fromRow) * rowBytes)
+                                      .order(ByteOrder.LITTLE_ENDIAN)
+                                      .asLongBuffer();
+            if (write) {
+                state.getWords(fromRow, toRow, words);
+            } else {
+                state.setWords(fromRow, toRow, words);
+            }
+        }
+    }
+}
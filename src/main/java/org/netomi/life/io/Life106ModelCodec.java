@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.netomi.life.model.BitGrid;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+import org.netomi.life.model.Rule;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Life 1.06 format, which lists the coordinates of all alive cells, e.g.
+ * <pre>
+ * #Life 1.06
+ * 0 -1
+ * 1 0
+ * -1 1
+ * 0 1
+ * 1 1
+ * </pre>
+ * The format does not declare the size of the pattern, thus the file is read
+ * twice: first to determine the bounding box of all cells, which becomes the
+ * size of the model, and then to set the cells. This keeps the memory needed
+ * for reading independent of the size of the file.
+ * <p>
+ * The format does not store a rule, thus only models using Conway's rule can be written.
+ *
+ * @author Thomas Neidhart
+ */
+public class Life106ModelCodec implements ModelCodec {
+
+    private static final String HEADER = "#Life 1.06";
+
+    @Override
+    public boolean canRead(ByteBuffer header) {
+        byte[] expected = HEADER.getBytes(StandardCharsets.US_ASCII);
+        if (header.remaining() < expected.length) {
+            return false;
+        }
+
+        for (byte b : expected) {
+            if (header.get() != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public CellularAutomaton read(File file, EngineType engineType) throws IOException {
+        long minX = Long.MAX_VALUE;
+        long minY = Long.MAX_VALUE;
+        long maxX = Long.MIN_VALUE;
+        long maxY = Long.MIN_VALUE;
+
+        try (AsciiReader reader = new AsciiReader(file)) {
+            readHeader(reader);
+            while (skipToCell(reader)) {
+                long x = reader.readNumber();
+                long y = readY(reader);
+
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            }
+        }
+
+        if (minX > maxX) {
+            // no cells at all.
+            return new CellularAutomaton(new BitGrid(1, 1), 0, engineType.createEngine());
+        }
+
+        if (maxX - minX >= Integer.MAX_VALUE || maxY - minY >= Integer.MAX_VALUE ||
+            !BitGrid.isValidDimension((int) (maxY - minY + 1), (int) (maxX - minX + 1))) {
+            throw new IOException("pattern too large: " + file);
+        }
+
+        BitGrid state = new BitGrid((int) (maxY - minY + 1), (int) (maxX - minX + 1));
+
+        try (AsciiReader reader = new AsciiReader(file)) {
+            readHeader(reader);
+            while (skipToCell(reader)) {
+                long x = reader.readNumber();
+                long y = readY(reader);
+
+                state.set((int) (y - minY), (int) (x - minX), true);
+            }
+        }
+
+        return new CellularAutomaton(state, 0, engineType.createEngine());
+    }
+
+    private static void readHeader(AsciiReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null || !line.startsWith(HEADER)) {
+            throw reader.error("header '" + HEADER + "' expected");
+        }
+    }
+
+    /**
+     * Skips whitespace and comments, returns whether there is another cell.
+     */
+    private static boolean skipToCell(AsciiReader reader) throws IOException {
+        while (true) {
+            reader.skipWhitespace();
+
+            int c = reader.peek();
+            if (c == AsciiReader.EOF) {
+                return false;
+            } else if (c == '#') {
+                reader.skipLine();
+            } else {
+                return true;
+            }
+        }
+    }
+
+    private static long readY(AsciiReader reader) throws IOException {
+        int c = reader.peek();
+        if (c != ' ' && c != '\t') {
+            throw reader.error("separator expected");
+        }
+        while ((c = reader.peek()) == ' ' || c == '\t') {
+            reader.read();
+        }
+        return reader.readNumber();
+    }
+
+    @Override
+    public void write(CellularAutomaton model, File file) throws IOException {
+        if (!Rule.CONWAY.equals(model.getRule())) {
+            throw new IOException("the Life 1.06 format does not support rule " + model.getRule());
+        }
+
+        try (AsciiWriter writer = new AsciiWriter(file)) {
+            model.readState((state, generation) -> {
+                writer.write(HEADER);
+                writer.write('\n');
+
+                for (int row = 0; row < state.getRows(); row++) {
+                    for (int col = state.nextSetBit(row, 0); col >= 0; col = state.nextSetBit(row, col + 1)) {
+                        writer.writeNumber(col);
+                        writer.write(' ');
+                        writer.writeNumber(row);
+                        writer.write('\n');
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes cellular automata models in a specific file format.
+ *
+ * @author Thomas Neidhart
+ */
+public interface ModelCodec {
+
+    /**
+     * Returns whether the file starting with the given bytes is supported by this codec.
+     */
+    boolean canRead(ByteBuffer header);
+
+    CellularAutomaton read(File file, EngineType engineType) throws IOException;
+
+    void write(CellularAutomaton model, File file) throws IOException;
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * The supported file formats.
+ *
+ * @author Thomas Neidhart
+ */
+public enum ModelFormat {
+    BINARY  ("gol", BinaryModelCodec::new),
+    SPARSE  ("gol", SparseModelCodec::new),
+    TEXT    ("gol", TextModelCodec::new),
+    LIFE_106("lif", Life106ModelCodec::new),
+    RLE     ("rle", RleModelCodec::new);
+
+    /**
+     * The number of bytes inspected to detect the format of a file.
+     */
+    private static final int HEADER_SIZE = 64;
+
+    private final String               extension;
+    private final Supplier<ModelCodec> factory;
+
+    ModelFormat(String extension, Supplier<ModelCodec> factory) {
+        this.extension = extension;
+        this.factory   = factory;
+    }
+
+    /**
+     * Returns the usual file extension of this format, without the leading dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Creates a new codec instance for this format.
+     */
+    public ModelCodec createCodec() {
+        return factory.get();
+    }
+
+    /**
+     * Returns the preferred format to save a file with the given name, based on its extension.
+     */
+    public static ModelFormat forFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".rle")) {
+            return RLE;
+        } else if (name.endsWith(".lif") || name.endsWith(".life")) {
+            return LIFE_106;
+        } else {
+            return BINARY;
+        }
+    }
+
+    /**
+     * Detects the format of the given file from its first bytes.
+     *
+     * @throws IOException if the file could not be read or its format is not supported.
+     */
+    public static ModelFormat detect(File file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the end of the file is reached.
+            }
+        }
+        header.flip();
+
+        for (ModelFormat format : values()) {
+            if (format.createCodec().canRead(header.duplicate())) {
+                return format;
+            }
+        }
+
+        throw new IOException("unsupported file format: " + file);
+    }
+}
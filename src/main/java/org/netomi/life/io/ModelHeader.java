@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.netomi.life.model.BitGrid;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+import org.netomi.life.model.Rule;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The common header of the binary file formats.
+ * <p>
+ * All values are stored in little-endian byte order:
+ * <pre>
+ * magic       4 bytes
+ * version     int
+ * rows        int
+ * cols        int
+ * generation  long
+ * rule length int
+ * rule        UTF-8 string in the notation of {@link Rule#parse(String)}, padded with zeros to a multiple of 8 bytes
+ * </pre>
+ *
+ * @author Thomas Neidhart
+ */
+final class ModelHeader {
+
+    private static final int FIXED_SIZE      = 28;
+    private static final int MAX_RULE_LENGTH = 1024;
+
+    private final byte[] magic;
+    private final int    version;
+    private final int    rows;
+    private final int    cols;
+    private final long   generation;
+    private final Rule   rule;
+
+    ModelHeader(byte[] magic, int version, int rows, int cols, long generation, Rule rule) {
+        this.magic      = magic;
+        this.version    = version;
+        this.rows       = rows;
+        this.cols       = cols;
+        this.generation = generation;
+        this.rule       = rule;
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getCols() {
+        return cols;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Creates a model adopting the given state, which applies the rule of this header.
+     *
+     * @throws IOException if the rule is not supported by the engine type.
+     */
+    CellularAutomaton createModel(BitGrid state, EngineType engineType) throws IOException {
+        try {
+            return new CellularAutomaton(state, generation, engineType.createEngine(rule));
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Returns the size of the header in bytes, which is always a multiple of 8.
+     */
+    long getSize() {
+        return getSize(rule.getNotation().getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static long getSize(int ruleLength) {
+        return (FIXED_SIZE + ruleLength + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    /**
+     * Returns whether the given buffer starts with the given magic.
+     */
+    static boolean hasMagic(ByteBuffer buffer, byte[] magic) {
+        if (buffer.remaining() < magic.length) {
+            return false;
+        }
+
+        for (byte b : magic) {
+            if (buffer.get() != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a header with the given magic and a version up to {@code maxVersion}
+     * from the current position of the channel, including its padding.
+     */
+    static ModelHeader read(ReadableByteChannel channel, byte[] magic, int maxVersion) throws IOException {
+        ByteBuffer buffer = readFully(channel, FIXED_SIZE);
+        if (!hasMagic(buffer, magic)) {
+            throw new IOException("invalid magic");
+        }
+
+        int version = buffer.getInt();
+        if (version > maxVersion) {
+            throw new IOException("unsupported version " + version);
+        }
+
+        int  rows       = buffer.getInt();
+        int  cols       = buffer.getInt();
+        long generation = buffer.getLong();
+        int  ruleLength = buffer.getInt();
+
+        if (!BitGrid.isValidDimension(rows, cols) || generation < 0 || ruleLength < 0 || ruleLength > MAX_RULE_LENGTH) {
+            throw new IOException("corrupt header");
+        }
+
+        ByteBuffer ruleBuffer = readFully(channel, (int) (getSize(ruleLength) - FIXED_SIZE));
+        ruleBuffer.limit(ruleLength);
+        String notation = StandardCharsets.UTF_8.decode(ruleBuffer).toString();
+
+        Rule rule;
+        try {
+            rule = Rule.parse(notation);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("unsupported rule " + notation, ex);
+        }
+
+        return new ModelHeader(Arrays.copyOf(magic, magic.length), version, rows, cols, generation, rule);
+    }
+
+    void write(WritableByteChannel channel) throws IOException {
+        byte[] ruleBytes = rule.getNotation().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) getSize(ruleBytes.length)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(magic);
+        buffer.putInt(version);
+        buffer.putInt(rows);
+        buffer.putInt(cols);
+        buffer.putLong(generation);
+        buffer.putInt(ruleBytes.length);
+        buffer.put(ruleBytes);
+        buffer.clear();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer readFully(ReadableByteChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
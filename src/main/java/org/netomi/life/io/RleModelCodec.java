@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.netomi.life.model.BitGrid;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+import org.netomi.life.model.EvolutionEngine;
+import org.netomi.life.model.Rule;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The run length encoded format as commonly used to exchange patterns, e.g.
+ * <pre>
+ * #C a glider
+ * x = 3, y = 3, rule = B3/S23
+ * bo$2bo$3o!
+ * </pre>
+ * Runs are read and written directly from and to the packed state of the model,
+ * the file itself is streamed through a fixed size buffer.
+ * <p>
+ * For multi-state rules, the states are encoded as letters, {@code A} denotes
+ * an alive cell and any later letter a dying cell. As dying cells are not part
+ * of the state of a model, they are read as dead cells.
+ * <p>
+ * Patterns of size 0 are read as a model consisting of a single dead cell.
+ *
+ * @author Thomas Neidhart
+ */
+public class RleModelCodec implements ModelCodec {
+
+    /**
+     * The maximum length of lines written.
+     */
+    private static final int MAX_LINE_LENGTH = 70;
+
+    @Override
+    public boolean canRead(ByteBuffer header) {
+        while (header.hasRemaining()) {
+            byte b = header.get();
+            if (!Character.isWhitespace(b)) {
+                return b == '#' || b == 'x';
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public CellularAutomaton read(File file, EngineType engineType) throws IOException {
+        try (AsciiReader reader = new AsciiReader(file)) {
+            String header = readHeader(reader);
+
+            int    cols = -1;
+            int    rows = -1;
+            String rule = Rule.CONWAY.getNotation();
+
+            for (String entry : header.split(",")) {
+                int separator = entry.indexOf('=');
+                if (separator < 0) {
+                    throw reader.error("invalid header: " + header);
+                }
+
+                String key   = entry.substring(0, separator).trim();
+                String value = entry.substring(separator + 1).trim();
+
+                try {
+                    switch (key) {
+                        case "x":
+                            cols = Integer.parseInt(value);
+                            break;
+
+                        case "y":
+                            rows = Integer.parseInt(value);
+                            break;
+
+                        case "rule":
+                            rule = value;
+                            break;
+
+                        default:
+                            // ignore unknown entries.
+                    }
+                } catch (NumberFormatException ex) {
+                    throw reader.error("invalid header: " + header);
+                }
+            }
+
+            // an empty pattern, e.g. with x = 0, y = 0, is read as a single dead cell.
+            boolean empty = rows >= 0 && cols >= 0 && (rows == 0 || cols == 0);
+            if (!empty && !BitGrid.isValidDimension(rows, cols)) {
+                throw reader.error("invalid pattern size: " + header);
+            }
+
+            EvolutionEngine engine;
+            try {
+                engine = engineType.createEngine(Rule.parse(rule));
+            } catch (IllegalArgumentException ex) {
+                throw reader.error("unsupported rule " + rule);
+            }
+
+            BitGrid state = empty ? new BitGrid(1, 1) : new BitGrid(rows, cols);
+            readCells(reader, state, engine.getRule().getStates() > 2);
+
+            if (empty && state.population() > 0) {
+                throw reader.error("pattern exceeds its declared size");
+            }
+
+            return new CellularAutomaton(state, 0, engine);
+        }
+    }
+
+    /**
+     * Skips all comment lines and returns the header line.
+     */
+    private static String readHeader(AsciiReader reader) throws IOException {
+        while (true) {
+            reader.skipWhitespace();
+            if (reader.peek() != '#') {
+                String line = reader.readLine();
+                if (line == null) {
+                    throw reader.error("header expected");
+                }
+                return line;
+            }
+            reader.skipLine();
+        }
+    }
+
+    private static void readCells(AsciiReader reader, BitGrid state, boolean multiState) throws IOException {
+        long row = 0;
+        long col = 0;
+
+        while (true) {
+            reader.skipWhitespace();
+
+            int c = reader.peek();
+            if (c == AsciiReader.EOF || c == '!') {
+                return;
+            }
+
+            if (c == '#') {
+                reader.skipLine();
+                continue;
+            }
+
+            long count = 1;
+            if (AsciiReader.isDigit(c)) {
+                count = reader.readNumber();
+            }
+
+            c = reader.read();
+            if (c == 'b' || c == '.') {
+                col += count;
+            } else if (c == '$') {
+                row += count;
+                col  = 0;
+            } else if (multiState && (c >= 'B' && c <= 'X' || c >= 'p' && c <= 'y')) {
+                // a dying state, states after X are encoded with a prefix in p..y.
+                if (c >= 'p') {
+                    reader.read();
+                }
+                col += count;
+            } else if (Character.isLetter(c)) {
+                if (row >= state.getRows() || col + count > state.getCols()) {
+                    throw reader.error("pattern exceeds its declared size");
+                }
+                state.fill((int) row, (int) col, (int) (col + count));
+                col += count;
+            } else {
+                throw reader.error("unexpected character '" + (char) c + "'");
+            }
+        }
+    }
+
+    @Override
+    public void write(CellularAutomaton model, File file) throws IOException {
+        try (AsciiWriter writer = new AsciiWriter(file)) {
+            model.readState((state, generation) -> {
+                writer.write("x = " + state.getCols() + ", y = " + state.getRows() + ", rule = " + model.getRule() + "\n");
+
+                long pendingRows = 0;
+                for (int row = 0; row < state.getRows(); row++) {
+                    int col = state.nextSetBit(row, 0);
+                    if (col >= 0 && pendingRows > 0) {
+                        writeRun(writer, pendingRows, '$');
+                        pendingRows = 0;
+                    }
+
+                    int end = 0;
+                    while (col >= 0) {
+                        if (col > end) {
+                            writeRun(writer, col - end, 'b');
+                        }
+
+                        end = state.nextClearBit(row, col);
+                        writeRun(writer, end - col, 'o');
+
+                        col = state.nextSetBit(row, end);
+                    }
+
+                    pendingRows++;
+                }
+
+                writer.write('!');
+                writer.write('\n');
+            });
+        }
+    }
+
+    private static void writeRun(AsciiWriter writer, long count, char tag) throws IOException {
+        int length = count > 1 ? AsciiWriter.numberLength(count) + 1 : 1;
+        if (writer.getColumn() + length > MAX_LINE_LENGTH) {
+            writer.write('\n');
+        }
+
+        if (count > 1) {
+            writer.writeNumber(count);
+        }
+        writer.write(tag);
+    }
+}
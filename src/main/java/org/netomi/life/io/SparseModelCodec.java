@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.netomi.life.model.BitGrid;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A compressed format for mostly empty models, which only stores occupied tiles.
+ * <p>
+ * The file starts with a {@link ModelHeader} using the magic {@code 'G' 'O' 'L' 'S'},
+ * followed by a deflate compressed sequence of tiles. A tile covers 64 rows and
+ * a single word of 64 columns and is stored in little-endian byte order as:
+ * <pre>
+ * tile row    int   the first row of the tile divided by 64
+ * tile column int   the index of the word within a row
+ * row mask    long  bit i is set if row i of the tile is not empty
+ * words       long  one word for each bit set in the row mask
+ * </pre>
+ * The sequence is terminated by a tile with row and column -1. Thus the size
+ * of a file is proportional to the number of occupied tiles rather than to
+ * the size of the model.
+ *
+ * @author Thomas Neidhart
+ */
+public class SparseModelCodec implements ModelCodec {
+
+    static final byte[] MAGIC   = { 'G', 'O', 'L', 'S' };
+    static final int    VERSION = 1;
+
+    private static final int TILE_ROWS   = 64;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int TILE_HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+
+    @Override
+    public boolean canRead(ByteBuffer header) {
+        return ModelHeader.hasMagic(header, MAGIC);
+    }
+
+    @Override
+    public CellularAutomaton read(File file, EngineType engineType) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ModelHeader header;
+            try {
+                header = ModelHeader.read(channel, MAGIC, VERSION);
+            } catch (IOException ex) {
+                throw new IOException(ex.getMessage() + ": " + file, ex);
+            }
+
+            // the size of the state is not related to the size of the file, but
+            // the file has to contain at least the terminating tile.
+            if (channel.size() <= header.getSize()) {
+                throw new IOException("unexpected end of file: " + file);
+            }
+
+            BitGrid state    = new BitGrid(header.getRows(), header.getCols());
+            int     tileRows = (state.getRows() + TILE_ROWS - 1) / TILE_ROWS;
+
+            Inflater inflater = new Inflater();
+            try (InputStream in = new InflaterInputStream(Channels.newInputStream(channel), inflater, BUFFER_SIZE)) {
+                ByteBuffer tile = ByteBuffer.allocate(TILE_HEADER_SIZE + TILE_ROWS * Long.BYTES)
+                                            .order(ByteOrder.LITTLE_ENDIAN);
+
+                while (true) {
+                    readFully(in, tile, TILE_HEADER_SIZE, file);
+
+                    int  tileRow = tile.getInt();
+                    int  tileCol = tile.getInt();
+                    long rowMask = tile.getLong();
+
+                    if (tileRow == -1 && tileCol == -1) {
+                        break;
+                    }
+
+                    // check the tile row before computing its first row, which might overflow otherwise.
+                    if (tileRow < 0 || tileRow >= tileRows || tileCol < 0 || tileCol >= state.getWordsPerRow()) {
+                        throw new IOException("corrupt tile: " + file);
+                    }
+
+                    int fromRow = tileRow * TILE_ROWS;
+                    if (state.getRows() - fromRow < TILE_ROWS && rowMask >>> (state.getRows() - fromRow) != 0) {
+                        throw new IOException("corrupt tile: " + file);
+                    }
+
+                    readFully(in, tile, Long.bitCount(rowMask) * Long.BYTES, file);
+                    for (long mask = rowMask; mask != 0; mask &= mask - 1) {
+                        int row = fromRow + Long.numberOfTrailingZeros(mask);
+                        state.setWord(row, tileCol, tile.getLong());
+                    }
+                }
+            } finally {
+                inflater.end();
+            }
+
+            return header.createModel(state, engineType);
+        }
+    }
+
+    private static void readFully(InputStream in, ByteBuffer buffer, int length, File file) throws IOException {
+        buffer.clear();
+        int offset = 0;
+        while (offset < length) {
+            int count = in.read(buffer.array(), offset, length - offset);
+            if (count < 0) {
+                throw new IOException("unexpected end of file: " + file);
+            }
+            offset += count;
+        }
+        buffer.limit(length);
+    }
+
+    @Override
+    public void write(CellularAutomaton model, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+
+            model.readState((state, generation) -> {
+                ModelHeader header =
+                    new ModelHeader(MAGIC, VERSION, state.getRows(), state.getCols(), generation, model.getRule());
+                header.write(channel);
+
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                try (OutputStream out = new DeflaterOutputStream(Channels.newOutputStream(channel), deflater, BUFFER_SIZE)) {
+                    writeTiles(state, out);
+                } finally {
+                    deflater.end();
+                }
+            });
+        }
+    }
+
+    private static void writeTiles(BitGrid state, OutputStream out) throws IOException {
+        int    wordsPerRow = state.getWordsPerRow();
+        long[] rowMasks    = new long[wordsPerRow];
+
+        ByteBuffer tile = ByteBuffer.allocate(TILE_HEADER_SIZE + TILE_ROWS * Long.BYTES)
+                                    .order(ByteOrder.LITTLE_ENDIAN);
+
+        for (int fromRow = 0; fromRow < state.getRows(); fromRow += TILE_ROWS) {
+            int toRow = Math.min(fromRow + TILE_ROWS, state.getRows());
+
+            // determine the non-empty rows of all tiles within this band, row by row.
+            boolean occupied = false;
+            for (int row = fromRow; row < toRow; row++) {
+                long bit = 1L << (row - fromRow);
+                for (int w = 0; w < wordsPerRow; w++) {
+                    if (state.getWord(row, w) != 0) {
+                        rowMasks[w] |= bit;
+                        occupied = true;
+                    }
+                }
+            }
+
+            if (!occupied) {
+                continue;
+            }
+
+            for (int w = 0; w < wordsPerRow; w++) {
+                long rowMask = rowMasks[w];
+                if (rowMask == 0) {
+                    continue;
+                }
+
+                tile.clear();
+                tile.putInt(fromRow / TILE_ROWS);
+                tile.putInt(w);
+                tile.putLong(rowMask);
+                for (long mask = rowMask; mask != 0; mask &= mask - 1) {
+                    tile.putLong(state.getWord(fromRow + Long.numberOfTrailingZeros(mask), w));
+                }
+                out.write(tile.array(), 0, tile.position());
+
+                rowMasks[w] = 0;
+            }
+        }
+
+        tile.clear();
+        tile.putInt(-1);
+        tile.putInt(-1);
+        tile.putLong(0L);
+        out.write(tile.array(), 0, tile.position());
+    }
+}
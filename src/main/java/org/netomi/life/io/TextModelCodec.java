@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.netomi.life.model.BitGrid;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+import org.netomi.life.model.Rule;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The original text format, which consists of the number of rows and columns
+ * on separate lines followed by a single line with one character per cell,
+ * '1' for alive and '0' for dead cells.
+ * <p>
+ * The cells are processed in chunks, thus the state is never held as one
+ * big string. Neither the generation nor the rule are part of this format,
+ * thus only models using Conway's rule can be written.
+ *
+ * @author Thomas Neidhart
+ */
+public class TextModelCodec implements ModelCodec {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public boolean canRead(ByteBuffer header) {
+        return header.hasRemaining() && Character.isDigit(header.get());
+    }
+
+    @Override
+    public CellularAutomaton read(File file, EngineType engineType) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+
+            int rows = Integer.parseInt(reader.readLine());
+            int cols = Integer.parseInt(reader.readLine());
+
+            BitGrid state = new BitGrid(rows, cols);
+
+            char[] buffer = new char[BUFFER_SIZE];
+            int    length = 0;
+            int    offset = 0;
+
+            for (int row = 0; row < rows; row++) {
+                for (int w = 0; w < state.getWordsPerRow(); w++) {
+                    int  end  = Math.min(64, cols - w * 64);
+                    long word = 0L;
+                    for (int bit = 0; bit < end; bit++) {
+                        if (offset == length) {
+                            length = reader.read(buffer);
+                            offset = 0;
+                            if (length < 0) {
+                                throw new IOException("unexpected end of file: " + file);
+                            }
+                        }
+
+                        if (buffer[offset++] == '1') {
+                            word |= 1L << bit;
+                        }
+                    }
+                    state.setWord(row, w, word);
+                }
+            }
+
+            return new CellularAutomaton(state, 0, engineType.createEngine());
+        }
+    }
+
+    @Override
+    public void write(CellularAutomaton model, File file) throws IOException {
+        if (!Rule.CONWAY.equals(model.getRule())) {
+            throw new IOException("the text format does not support rule " + model.getRule());
+        }
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+
+            writer.write(String.format("%d\n", model.getRows()));
+            writer.write(String.format("%d\n", model.getCols()));
+
+            model.readState((state, generation) -> {
+                char[] buffer = new char[64];
+                for (int row = 0; row < state.getRows(); row++) {
+                    for (int w = 0; w < state.getWordsPerRow(); w++) {
+                        int  end  = Math.min(64, state.getCols() - w * 64);
+                        long word = state.getWord(row, w);
+                        for (int bit = 0; bit < end; bit++, word >>>= 1) {
+                            buffer[bit] = (word & 1L) != 0 ? '1' : '0';
+                        }
+                        writer.write(buffer, 0, end);
+                    }
+                }
+            });
+        }
+    }
+}
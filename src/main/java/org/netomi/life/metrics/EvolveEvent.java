@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event covering a single invocation of
+ * {@link org.netomi.life.model.CellularAutomaton#evolveState(long)}, including
+ * the update of the state and the detection of changes and cycles.
+ *
+ * @author Thomas Neidhart
+ */
+@Name(EvolveEvent.NAME)
+@Label("Evolve")
+@Description("Evolution of a model by one or more generations")
+public final class EvolveEvent extends GenerationEvent {
+
+    public static final String NAME = "org.netomi.life.Evolve";
+
+    @Label("Generations")
+    @Description("The number of generations evolved")
+    private long generations;
+
+    public void setGenerations(long generations) {
+        this.generations = generations;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event covering the publication of the latest generation
+ * computed by the simulation to the user interface within a single frame.
+ *
+ * @author Thomas Neidhart
+ */
+@Name(FrameEvent.NAME)
+@Label("Simulation Frame")
+@Description("Publication of the latest generation of a running simulation to the user interface")
+public final class FrameEvent extends GenerationEvent {
+
+    public static final String NAME = "org.netomi.life.Frame";
+
+    @Label("Generations")
+    @Description("The number of generations since the previous frame")
+    private long generations;
+
+    public void setGenerations(long generations) {
+        this.generations = generations;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base class of the flight recorder events emitted while evolving and displaying a model.
+ * <p>
+ * Events are meant to be created, begun and committed on the same thread:
+ * <pre>
+ * EvolveEvent event = new EvolveEvent();
+ * event.begin();
+ * ...
+ * event.end();
+ * if (event.shouldCommit()) {
+ *     event.setGeneration(...);
+ *     event.commit();
+ * }
+ * </pre>
+ * Values that are costly to compute should only be set after
+ * {@link #shouldCommit()} returned {@code true}, thus an event that is not
+ * recorded costs hardly more than two timestamps.
+ *
+ * @author Thomas Neidhart
+ */
+@Category("Simple Life")
+@StackTrace(false)
+abstract class GenerationEvent extends Event {
+
+    // fields of a super class are only recorded if they are not private.
+
+    @Label("Generation")
+    long generation;
+
+    @Label("Population")
+    int population;
+
+    @Label("Changed Cells")
+    int changedCells;
+
+    @Label("Engine")
+    String engine;
+
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    public void setPopulation(int population) {
+        this.population = population;
+    }
+
+    public void setChangedCells(int changedCells) {
+        this.changedCells = changedCells;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.metrics;
+
+import java.util.Locale;
+
+/**
+ * An immutable copy of the values recorded by a {@link LatencyHistogram}.
+ *
+ * @author Thomas Neidhart
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long   count;
+    private final long   sum;
+    private final long   max;
+
+    HistogramSnapshot(long[] counts, long count, long sum, long max) {
+        this.counts = counts;
+        this.count  = count;
+        this.sum    = sum;
+        this.max    = max;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of the recorded values in nanoseconds, or 0 if there are none.
+     */
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the largest recorded value in nanoseconds.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the value in nanoseconds below or equal to which the given percentage of
+     * values has been recorded, or 0 if there are none. The value is exact up to the
+     * precision of the histogram and never below the actual one.
+     *
+     * @param percentile the percentile in range [0, 100].
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0L;
+        }
+
+        long threshold = Math.max(1L, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+        long seen      = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= threshold) {
+                return Math.min(LatencyHistogram.highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the values recorded since the given earlier snapshot of the same histogram.
+     * <p>
+     * The maximum can not be derived for an interval, thus the maximum of this
+     * snapshot is kept unless the interval does not contain any value.
+     */
+    public HistogramSnapshot since(HistogramSnapshot earlier) {
+        long[] difference = new long[counts.length];
+        long   total      = 0;
+        for (int i = 0; i < counts.length; i++) {
+            // a reset in between might lead to negative differences.
+            difference[i] = Math.max(0L, counts[i] - earlier.counts[i]);
+            total        += difference[i];
+        }
+        return new HistogramSnapshot(difference, total, Math.max(0L, sum - earlier.sum), total == 0 ? 0L : max);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "count=%d mean=%s p50=%s p90=%s p99=%s p99.9=%s max=%s",
+                             count,
+                             format(getMean()),
+                             format(getValueAtPercentile(50)),
+                             format(getValueAtPercentile(90)),
+                             format(getValueAtPercentile(99)),
+                             format(getValueAtPercentile(99.9)),
+                             format(max));
+    }
+
+    /**
+     * Formats the given duration in nanoseconds with a suitable unit.
+     */
+    public static String format(double nanos) {
+        if (nanos >= 1e9) {
+            return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+        } else if (nanos >= 1e6) {
+            return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+        } else if (nanos >= 1e3) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        } else {
+            return String.format(Locale.ROOT, "%.0fns", nanos);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds in the spirit of HdrHistogram.
+ * <p>
+ * Values are grouped by their highest bit, each such range is divided into
+ * {@link #SUB_BUCKETS} linear sub-buckets. Thus any value is recorded in constant
+ * time and with a relative error of less than 1 / {@code SUB_BUCKETS}, while
+ * the memory footprint is fixed regardless of the range of values. Values may
+ * be recorded concurrently by multiple threads.
+ *
+ * @author Thomas Neidhart
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 6;
+
+    /**
+     * The number of sub-buckets per power of two.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // values below 2 * SUB_BUCKETS are recorded exactly, each further power of
+    // two adds SUB_BUCKETS buckets, up to values of 2^63 - 1.
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong      sum    = new AtomicLong();
+    private final AtomicLong      max    = new AtomicLong();
+
+    /**
+     * Records the given duration, negative durations are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+
+        counts.incrementAndGet(indexOf(value));
+        sum.addAndGet(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Removes all recorded values. Values recorded concurrently might be partially lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+        sum.set(0L);
+        max.set(0L);
+    }
+
+    /**
+     * Returns a copy of the recorded values.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long   total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total  += copy[i];
+        }
+        return new HistogramSnapshot(copy, total, sum.get(), max.get());
+    }
+
+    static int indexOf(long value) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS + 1));
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest value that is recorded in the bucket of the given index.
+     */
+    static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+
+        int  shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long sub   = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.metrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable copy of the data collected by {@link PerformanceMetrics}
+ * during a period of time.
+ * <p>
+ * A snapshot covers the time since the last reset, the data of an interval
+ * is derived from two snapshots via {@link #since(MetricsSnapshot)}.
+ *
+ * @author Thomas Neidhart
+ */
+public final class MetricsSnapshot {
+
+    private final long timestamp;
+    private final long elapsedNanos;
+    private final long generations;
+    private final long cells;
+    private final long allocatedBytes;
+
+    private final Map<Phase, HistogramSnapshot> histograms;
+
+    MetricsSnapshot(long timestamp, long elapsedNanos, long generations, long cells, long allocatedBytes,
+                    Map<Phase, HistogramSnapshot> histograms) {
+        this.timestamp      = timestamp;
+        this.elapsedNanos   = elapsedNanos;
+        this.generations    = generations;
+        this.cells          = cells;
+        this.allocatedBytes = allocatedBytes;
+        this.histograms     = histograms;
+    }
+
+    /**
+     * Returns the value of {@link System#nanoTime()} when the snapshot was taken.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the duration covered by this snapshot.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Returns the number of evolved cells, i.e. the sum of the number of
+     * cells of a model times the number of generations it evolved.
+     */
+    public long getCells() {
+        return cells;
+    }
+
+    /**
+     * Returns the number of bytes allocated while evolving, or 0 if the
+     * allocations can not be measured.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public double getGenerationsPerSecond() {
+        return perSecond(generations);
+    }
+
+    public double getCellsPerSecond() {
+        return perSecond(cells);
+    }
+
+    /**
+     * Returns the number of bytes allocated per second while evolving.
+     */
+    public double getAllocationRate() {
+        return perSecond(allocatedBytes);
+    }
+
+    public double getAllocatedBytesPerGeneration() {
+        return generations == 0 ? 0.0 : (double) allocatedBytes / generations;
+    }
+
+    /**
+     * Returns the durations recorded for the given phase.
+     */
+    public HistogramSnapshot getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * Returns the data collected between the given earlier snapshot and this one.
+     */
+    public MetricsSnapshot since(MetricsSnapshot earlier) {
+        Map<Phase, HistogramSnapshot> differences = new EnumMap<>(Phase.class);
+        for (Map.Entry<Phase, HistogramSnapshot> entry : histograms.entrySet()) {
+            differences.put(entry.getKey(), entry.getValue().since(earlier.getHistogram(entry.getKey())));
+        }
+
+        return new MetricsSnapshot(timestamp,
+                                   Math.min(elapsedNanos, timestamp - earlier.timestamp),
+                                   Math.max(0L, generations    - earlier.generations),
+                                   Math.max(0L, cells          - earlier.cells),
+                                   Math.max(0L, allocatedBytes - earlier.allocatedBytes),
+                                   differences);
+    }
+
+    private double perSecond(long value) {
+        return elapsedNanos <= 0 ? 0.0 : value * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "generations=%d gen/s=%.1f cells/s=%.3e alloc=%.1fMB/s (%.0f bytes/gen)",
+                             generations,
+                             getGenerationsPerSecond(),
+                             getCellsPerSecond(),
+                             getAllocationRate() / (1024 * 1024),
+                             getAllocatedBytesPerGeneration());
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the durations of the individual {@link Phase}s as well as the
+ * throughput of evolving models.
+ * <p>
+ * Recording is cheap and thread-safe, the collected data is read via
+ * {@link #snapshot()} or via JMX once {@link #registerMBeans()} has been
+ * called. Models record into the {@link #getDefault() default instance}
+ * unless configured otherwise.
+ *
+ * @author Thomas Neidhart
+ */
+public final class PerformanceMetrics {
+
+    /**
+     * The JMX domain of the registered MBeans.
+     */
+    public static final String DOMAIN = "org.netomi.life";
+
+    private static final PerformanceMetrics DEFAULT = new PerformanceMetrics();
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+
+    private final LongAdder generations    = new LongAdder();
+    private final LongAdder cells          = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private volatile long resetTime = System.nanoTime();
+
+    private boolean registered;
+
+    public PerformanceMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Returns the instance shared by all models of this application.
+     */
+    public static PerformanceMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Records the duration of a single execution of the given phase.
+     */
+    public void record(Phase phase, long nanos) {
+        histograms.get(phase).record(nanos);
+    }
+
+    /**
+     * Records the evolution of a model by the given number of generations,
+     * updating the given number of cells in total.
+     */
+    public void recordGenerations(long generations, long cells) {
+        this.generations.add(generations);
+        this.cells.add(cells);
+    }
+
+    /**
+     * Records the number of bytes allocated while evolving, see {@link #currentThreadAllocatedBytes()}.
+     */
+    public void recordAllocation(long bytes) {
+        if (bytes > 0) {
+            allocatedBytes.add(bytes);
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far,
+     * or -1 if this is not supported by the JVM.
+     */
+    public static long currentThreadAllocatedBytes() {
+        return ALLOCATION_BEAN != null ?
+            ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) :
+            -1L;
+    }
+
+    /**
+     * Returns the data collected since the creation or the last reset of this instance.
+     */
+    public MetricsSnapshot snapshot() {
+        long now = System.nanoTime();
+
+        Map<Phase, HistogramSnapshot> snapshots = new EnumMap<>(Phase.class);
+        for (Map.Entry<Phase, LatencyHistogram> entry : histograms.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        return new MetricsSnapshot(now, now - resetTime, generations.sum(), cells.sum(), allocatedBytes.sum(), snapshots);
+    }
+
+    /**
+     * Discards all collected data.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        generations.reset();
+        cells.reset();
+        allocatedBytes.reset();
+        resetTime = System.nanoTime();
+    }
+
+    /**
+     * Registers MBeans exposing the collected data with the platform MBean server:
+     * {@code org.netomi.life:type=Throughput} and {@code org.netomi.life:type=Phase,name=<phase>}
+     * for each {@link Phase}. Subsequent invocations have no effect.
+     *
+     * @throws IllegalStateException if the MBeans of another instance have already been registered.
+     */
+    public synchronized void registerMBeans() {
+        if (registered) {
+            return;
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new Throughput(), new ObjectName(DOMAIN + ":type=Throughput"));
+            for (Phase phase : Phase.values()) {
+                server.registerMBean(new PhaseTimer(phase), new ObjectName(DOMAIN + ":type=Phase,name=" + phase.getName()));
+            }
+        } catch (InstanceAlreadyExistsException ex) {
+            throw new IllegalStateException("metrics MBeans are already registered.", ex);
+        } catch (JMException ex) {
+            throw new IllegalStateException(ex);
+        }
+        registered = true;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+            if (allocationBean.isThreadAllocatedMemorySupported()) {
+                allocationBean.setThreadAllocatedMemoryEnabled(true);
+                return allocationBean;
+            }
+        }
+        return null;
+    }
+
+    private class Throughput implements ThroughputMXBean {
+
+        private static final long INTERVAL_NANOS = 1_000_000_000L;
+
+        private MetricsSnapshot last;
+        private MetricsSnapshot interval;
+
+        @Override
+        public long getGenerations() {
+            return generations.sum();
+        }
+
+        @Override
+        public long getCells() {
+            return cells.sum();
+        }
+
+        @Override
+        public long getAllocatedBytes() {
+            return allocatedBytes.sum();
+        }
+
+        @Override
+        public double getGenerationsPerSecond() {
+            return recent().getGenerationsPerSecond();
+        }
+
+        @Override
+        public double getCellsPerSecond() {
+            return recent().getCellsPerSecond();
+        }
+
+        @Override
+        public double getAllocationRate() {
+            return recent().getAllocationRate();
+        }
+
+        @Override
+        public double getAllocatedBytesPerGeneration() {
+            return recent().getAllocatedBytesPerGeneration();
+        }
+
+        @Override
+        public void reset() {
+            PerformanceMetrics.this.reset();
+        }
+
+        /**
+         * Returns the data of the latest complete interval of about a second,
+         * or all data if there is none yet.
+         */
+        private synchronized MetricsSnapshot recent() {
+            MetricsSnapshot current = snapshot();
+            if (last == null || current.getTimestamp() - last.getTimestamp() >= INTERVAL_NANOS) {
+                interval = last != null ? current.since(last) : current;
+                last     = current;
+            }
+            return interval;
+        }
+    }
+
+    private class PhaseTimer implements PhaseMXBean {
+
+        private final LatencyHistogram histogram;
+
+        PhaseTimer(Phase phase) {
+            histogram = histograms.get(phase);
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.snapshot().getCount();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return millis(histogram.snapshot().getMean());
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return millis(histogram.snapshot().getMax());
+        }
+
+        @Override
+        public double get50thPercentileMillis() {
+            return millis(histogram.snapshot().getValueAtPercentile(50));
+        }
+
+        @Override
+        public double get90thPercentileMillis() {
+            return millis(histogram.snapshot().getValueAtPercentile(90));
+        }
+
+        @Override
+        public double get99thPercentileMillis() {
+            return millis(histogram.snapshot().getValueAtPercentile(99));
+        }
+
+        @Override
+        public double get999thPercentileMillis() {
+            return millis(histogram.snapshot().getValueAtPercentile(99.9));
+        }
+
+        private double millis(double nanos) {
+            return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.metrics;
+
+/**
+ * The phases whose durations are recorded by {@link PerformanceMetrics}.
+ *
+ * @author Thomas Neidhart
+ */
+public enum Phase {
+    /**
+     * Computing the next generation(s) in the evolution engine.
+     */
+    EVOLVE("evolve"),
+
+    /**
+     * Exchanging the current and the next state after evolving.
+     */
+    SWAP("swap"),
+
+    /**
+     * Determining the cells that changed and updating the state hash.
+     */
+    CHANGE_SET("changeSet"),
+
+    /**
+     * Drawing the changed parts of a model in the user interface.
+     */
+    RENDER("render"),
+
+    /**
+     * Reading a model from a file.
+     */
+    LOAD("load"),
+
+    /**
+     * Writing a model to a file.
+     */
+    SAVE("save");
+
+    private final String name;
+
+    Phase(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of this phase as used for its MBean.
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event covering the drawing of the changed parts of a model.
+ * The changed cells are those that changed since the previous rendering.
+ *
+ * @author Thomas Neidhart
+ */
+@Name(RenderEvent.NAME)
+@Label("Render")
+@Description("Drawing of the changed parts of a model")
+public final class RenderEvent extends GenerationEvent {
+
+    public static final String NAME = "org.netomi.life.Render";
+
+    @Label("Tiles")
+    @Description("The number of tiles that have been redrawn")
+    private int tiles;
+
+    @Label("Full Redraw")
+    private boolean fullRedraw;
+
+    public void setTiles(int tiles) {
+        this.tiles = tiles;
+    }
+
+    public void setFullRedraw(boolean fullRedraw) {
+        this.fullRedraw = fullRedraw;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.metrics;
+
+/**
+ * Exposes the throughput collected by {@link PerformanceMetrics} via JMX.
+ * <p>
+ * The totals cover all data since the last reset, the rates are computed
+ * over the latest interval of about a second.
+ *
+ * @author Thomas Neidhart
+ */
+public interface ThroughputMXBean {
+    long getGenerations();
+    long getCells();
+    long getAllocatedBytes();
+
+    double getGenerationsPerSecond();
+    double getCellsPerSecond();
+
+    /**
+     * Returns the number of bytes allocated per second while evolving.
+     */
+    double getAllocationRate();
+    double getAllocatedBytesPerGeneration();
+
+    void reset();
+}
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * A listener that gets notified when the visible state of a
+ * {@link CellularAutomaton} has changed.
+ *
+ * @author Thomas Neidhart
+ */
+public interface AutomatonListener {
+
+    /**
+     * Called on the publishing thread after the state of the
+     * cells of the given automaton has changed.
+     *
+     * @param automaton the automaton whose state changed.
+     * @param changes   the cells that changed their state.
+     */
+    void stateChanged(CellularAutomaton automaton, ChangeSet changes);
+}
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * A compact two-dimensional grid of bits.
+ * <p>
+ * Each row is packed into a sequence of {@code long} words, bit {@code i} of
+ * word {@code w} corresponds to column {@code 64 * w + i}. Unused bits in the
+ * last word of a row are always kept at zero.
+ *
+ * @author Thomas Neidhart
+ */
+public class BitGrid {
+
+    /**
+     * The maximum number of words of a grid, i.e. the maximum length of an array.
+     */
+    public static final int MAX_WORDS = Integer.MAX_VALUE - 8;
+
+    private final int rows;
+    private final int cols;
+    private final int wordsPerRow;
+    private final long lastWordMask;
+
+    private long[] words;
+    private long   modificationCount;
+
+    /**
+     * Creates an empty grid of the given dimension.
+     *
+     * @throws IllegalArgumentException if the dimension is not valid, see {@link #isValidDimension(int, int)}.
+     */
+    public BitGrid(int rows, int cols) {
+        if (!isValidDimension(rows, cols)) {
+            throw new IllegalArgumentException("invalid grid dimension: " + rows + "x" + cols);
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+
+        this.wordsPerRow  = wordsPerRow(cols);
+        this.lastWordMask = -1L >>> (64 * wordsPerRow - cols);
+
+        this.words = new long[rows * wordsPerRow];
+    }
+
+    /**
+     * Returns whether a grid of the given dimension can be created, i.e. both are
+     * positive and its words fit into a single array.
+     */
+    public static boolean isValidDimension(int rows, int cols) {
+        return rows > 0 && cols > 0 && (long) rows * wordsPerRow(cols) <= MAX_WORDS;
+    }
+
+    /**
+     * Returns the number of words per row of a grid with the given number of columns.
+     */
+    public static int wordsPerRow(int cols) {
+        return (int) ((cols + 63L) >>> 6);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Returns the mask of valid bits in the last word of each row.
+     */
+    public long getLastWordMask() {
+        return lastWordMask;
+    }
+
+    /**
+     * Returns the number of modifications performed via the public mutators
+     * of this grid. Engines can use it to detect external modifications of
+     * a state they computed themselves.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    public boolean get(int row, int col) {
+        return (words[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    public void set(int row, int col, boolean value) {
+        int index = row * wordsPerRow + (col >>> 6);
+        if (value) {
+            words[index] |= 1L << col;
+        } else {
+            words[index] &= ~(1L << col);
+        }
+        modificationCount++;
+    }
+
+    public long getWord(int row, int word) {
+        return words[row * wordsPerRow + word];
+    }
+
+    public void setWord(int row, int word, long value) {
+        if (word == wordsPerRow - 1) {
+            value &= lastWordMask;
+        }
+        words[row * wordsPerRow + word] = value;
+        modificationCount++;
+    }
+
+    /**
+     * Sets all cells of the given row in range [fromCol, toCol) alive.
+     */
+    public void fill(int row, int fromCol, int toCol) {
+        if (fromCol >= toCol) {
+            return;
+        }
+
+        int fromWord = fromCol >>> 6;
+        int toWord   = (toCol - 1) >>> 6;
+
+        long fromMask = -1L << fromCol;
+        long toMask   = -1L >>> -toCol;
+
+        int offset = row * wordsPerRow;
+        if (fromWord == toWord) {
+            words[offset + fromWord] |= fromMask & toMask;
+        } else {
+            words[offset + fromWord] |= fromMask;
+            for (int w = fromWord + 1; w < toWord; w++) {
+                words[offset + w] = -1L;
+            }
+            words[offset + toWord] |= toMask;
+        }
+        modificationCount++;
+    }
+
+    /**
+     * Returns the column of the first alive cell in the given row at or after
+     * {@code fromCol}, or -1 if there is no such cell.
+     */
+    public int nextSetBit(int row, int fromCol) {
+        if (fromCol >= cols) {
+            return -1;
+        }
+
+        int  offset = row * wordsPerRow;
+        int  w      = fromCol >>> 6;
+        long word   = words[offset + w] & (-1L << fromCol);
+
+        while (word == 0) {
+            if (++w == wordsPerRow) {
+                return -1;
+            }
+            word = words[offset + w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns the column of the first dead cell in the given row at or after
+     * {@code fromCol}, or the number of columns if there is no such cell.
+     */
+    public int nextClearBit(int row, int fromCol) {
+        if (fromCol >= cols) {
+            return cols;
+        }
+
+        int  offset = row * wordsPerRow;
+        int  w      = fromCol >>> 6;
+        long word   = ~words[offset + w] & (-1L << fromCol);
+
+        while (word == 0) {
+            if (++w == wordsPerRow) {
+                return cols;
+            }
+            word = ~words[offset + w];
+        }
+        return Math.min(cols, (w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Transfers the words of the rows in range [fromRow, toRow) to the given buffer.
+     */
+    public void getWords(int fromRow, int toRow, LongBuffer buffer) {
+        buffer.put(words, fromRow * wordsPerRow, (toRow - fromRow) * wordsPerRow);
+    }
+
+    /**
+     * Transfers the words of the rows in range [fromRow, toRow) from the given buffer,
+     * unused bits in the last word of each row are cleared.
+     */
+    public void setWords(int fromRow, int toRow, LongBuffer buffer) {
+        buffer.get(words, fromRow * wordsPerRow, (toRow - fromRow) * wordsPerRow);
+        if (lastWordMask != -1L) {
+            for (int row = fromRow; row < toRow; row++) {
+                words[(row + 1) * wordsPerRow - 1] &= lastWordMask;
+            }
+        }
+        modificationCount++;
+    }
+
+    public int population() {
+        int population = 0;
+        for (long word : words) {
+            population += Long.bitCount(word);
+        }
+        return population;
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0L);
+        modificationCount++;
+    }
+
+    public void copyFrom(BitGrid other) {
+        checkCompatible(other);
+        System.arraycopy(other.words, 0, words, 0, words.length);
+        modificationCount++;
+    }
+
+    /**
+     * Returns a copy of this grid with the given dimension. Cells within both
+     * dimensions are kept, all other cells of the new grid are dead.
+     */
+    public BitGrid resize(int rows, int cols) {
+        BitGrid grid = new BitGrid(rows, cols);
+
+        int copiedRows  = Math.min(rows, this.rows);
+        int copiedWords = Math.min(grid.wordsPerRow, wordsPerRow);
+        for (int row = 0; row < copiedRows; row++) {
+            System.arraycopy(words, row * wordsPerRow, grid.words, row * grid.wordsPerRow, copiedWords);
+            if (grid.wordsPerRow <= wordsPerRow) {
+                grid.words[(row + 1) * grid.wordsPerRow - 1] &= grid.lastWordMask;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Exchanges the underlying storage with the given grid of the same dimension.
+     * The modification count is considered part of the content and exchanged as well.
+     */
+    void swap(BitGrid other) {
+        checkCompatible(other);
+
+        long[] tmpWords = words;
+        words           = other.words;
+        other.words     = tmpWords;
+
+        long tmpCount           = modificationCount;
+        modificationCount       = other.modificationCount;
+        other.modificationCount = tmpCount;
+    }
+
+    /**
+     * Provides direct access to the packed words, intended for evolution kernels only.
+     */
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * Records a modification made directly to the packed words.
+     */
+    void modified() {
+        modificationCount++;
+    }
+
+    private void checkCompatible(BitGrid other) {
+        if (other.rows != rows || other.cols != cols) {
+            throw new IllegalArgumentException("grid dimensions do not match.");
+        }
+    }
+}
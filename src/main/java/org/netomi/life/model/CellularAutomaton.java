@@ -16,46 +16,103 @@
  */
 package org.netomi.life.model;
 
-import javafx.beans.property.BooleanProperty;
-import javafx.beans.property.SimpleBooleanProperty;
+import org.netomi.life.metrics.EvolveEvent;
+import org.netomi.life.metrics.PerformanceMetrics;
+import org.netomi.life.metrics.Phase;
 
-import java.util.Arrays;
-import java.util.BitSet;
+import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The cellular automata model class.
+ * <p>
+ * The state of the automaton is stored in a packed {@link BitGrid}, the actual
+ * evolution is delegated to a pluggable {@link EvolutionEngine} applying the
+ * {@link Rule} of the automaton within its {@link Topology}. The model does
+ * not depend on any UI toolkit and can be used headless, observers are notified
+ * via {@link AutomatonListener}s on the thread that changed the state.
+ * <p>
+ * The state may be evolved by a background thread via {@link #evolveState(long)}
+ * without notifying any listener, the new state can be picked up by taking a
+ * {@link GenerationSnapshot}.
  *
  * @author Thomas Neidhart
  */
 public class CellularAutomaton implements Iterable<CellularAutomaton.Cell> {
 
+    /**
+     * The number of recent generations remembered to detect cycles.
+     */
+    public static final int CYCLE_DETECTION_WINDOW = 1024;
+
     private final int rows;
     private final int cols;
 
-    private final BitSet cellState;
-    private final BitSet updatedCellState;
+    // the state as seen by the engine, guarded by this.
+    private final BitGrid cellState;
+    private final BitGrid updatedCellState;
+
+    // holds the intermediate generations when evolving several at once, allocated on demand.
+    private BitGrid scratchState;
+
+    // the population of blocks of cellState, updated incrementally.
+    private final PopulationPyramid populationPyramid;
+
+    // the changes since the latest snapshot.
+    private final PendingChanges pendingChanges;
+    private       long           snapshotSequence;
+
+    private final EvolutionEngine engine;
 
-    private final int cellCount;
-    private final Cell[] cells;
+    private final List<AutomatonListener> listeners = new CopyOnWriteArrayList<>();
 
-    private int generation;
+    private long generation;
+    private long epoch;
+
+    private HistoryJournal journal;
+
+    private PerformanceMetrics metrics = PerformanceMetrics.getDefault();
+
+    // a hash of cellState, updated incrementally.
+    private       long          stateHash;
+    private       HistoryHash   historyHash;
+    private final CycleDetector cycleDetector = new CycleDetector(CYCLE_DETECTION_WINDOW);
+    private       Cycle         cycle;
 
     public CellularAutomaton(int rows, int cols) {
-        this.rows = rows;
-        this.cols = cols;
+        this(rows, cols, EngineType.PACKED.createEngine());
+    }
 
-        this.cellCount = rows * cols;
+    public CellularAutomaton(int rows, int cols, EvolutionEngine engine) {
+        this(new BitGrid(rows, cols), 0, engine);
+    }
 
-        cellState        = new BitSet(cellCount);
-        updatedCellState = new BitSet(cellCount);
+    /**
+     * Creates an automaton starting at the given state and generation.
+     * <p>
+     * The state is adopted without copying, it must not be modified
+     * by the caller afterwards.
+     */
+    public CellularAutomaton(BitGrid state, long generation, EvolutionEngine engine) {
+        this.rows   = state.getRows();
+        this.cols   = state.getCols();
+        this.engine = engine;
 
-        cells = new Cell[cellCount];
-        for (int i = 0; i < cellCount; i++) {
-            cells[i] = new Cell(i);
-        }
+        cellState        = state;
+        updatedCellState = new BitGrid(rows, cols);
+        pendingChanges   = new PendingChanges(state);
+
+        populationPyramid = new PopulationPyramid(state);
+
+        this.generation = generation;
 
-        generation = 0;
+        stateHash   = StateHash.of(cellState);
+        historyHash = new HistoryHash(engine.getRule().getStates() - 1);
+        resetCycleDetection();
     }
 
     public int getRows() {
@@ -66,121 +123,535 @@ public class CellularAutomaton implements Iterable<CellularAutomaton.Cell> {
         return cols;
     }
 
-    public int getGeneration() {
+    public EvolutionEngine getEngine() {
+        return engine;
+    }
+
+    public synchronized Rule getRule() {
+        return engine.getRule();
+    }
+
+    /**
+     * Changes the rule used to evolve the automaton, the current state is kept.
+     *
+     * @throws IllegalArgumentException if the rule is not supported by the engine.
+     */
+    public synchronized void setRule(Rule rule) {
+        engine.setRule(rule);
+
+        historyHash = new HistoryHash(rule.getStates() - 1);
+        resetCycleDetection();
+    }
+
+    public synchronized Topology getTopology() {
+        return engine.getTopology();
+    }
+
+    /**
+     * Changes the topology of the grid, the current state is kept.
+     *
+     * @throws IllegalArgumentException if the topology is not supported by the engine.
+     */
+    public synchronized void setTopology(Topology topology) {
+        engine.setTopology(topology);
+        resetCycleDetection();
+    }
+
+    /**
+     * Creates a copy of this automaton with the given dimension, which keeps the
+     * cells within both dimensions as well as the generation, rule and topology.
+     * The given engine must not be used by any other automaton.
+     *
+     * @throws IllegalArgumentException if the rule or topology is not supported by the engine.
+     */
+    public synchronized CellularAutomaton resize(int rows, int cols, EvolutionEngine engine) {
+        engine.setRule(getRule());
+        engine.setTopology(getTopology());
+        return new CellularAutomaton(cellState.resize(rows, cols), generation, engine);
+    }
+
+    public synchronized long getGeneration() {
         return generation;
     }
 
+    /**
+     * Returns the number of times the automaton has been cleared.
+     */
+    public synchronized long getEpoch() {
+        return epoch;
+    }
+
+    public synchronized boolean isAlive(int row, int col) {
+        return cellState.get(row, col);
+    }
+
+    /**
+     * Sets the state of the given cell, listeners are only notified if
+     * the state actually changed.
+     */
+    public synchronized void setAlive(int row, int col, boolean alive) {
+        if (cellState.get(row, col) != alive) {
+            cellState.set(row, col, alive);
+
+            ChangeSet changes = ChangeSet.ofCell(cellState, row, col);
+            if (journal != null) {
+                journal.record(generation, changes, cellState);
+            }
+            pendingChanges.add(changes);
+            populationPyramid.apply(changes);
+
+            stateHash = StateHash.update(stateHash, changes);
+            resetCycleDetection();
+
+            fireStateChanged(changes);
+        }
+    }
+
+    /**
+     * Returns the number of alive cells, which is kept up to date with each change.
+     */
+    public synchronized int getPopulation() {
+        return populationPyramid.getPopulation();
+    }
+
+    /**
+     * Returns the fraction of alive cells in the given region, parts of the region
+     * outside the grid are ignored. The density of large regions is approximated
+     * in constant time from the population of blocks of cells, see {@link PopulationPyramid}.
+     */
+    public synchronized double getDensity(int fromRow, int fromCol, int toRow, int toCol) {
+        return populationPyramid.getDensity(fromRow, fromCol, toRow, toCol);
+    }
+
+    public void addListener(AutomatonListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(AutomatonListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireStateChanged(ChangeSet changes) {
+        for (AutomatonListener listener : listeners) {
+            listener.stateChanged(this, changes);
+        }
+    }
+
+    /**
+     * Returns a view of the given cell, which is created on demand.
+     */
     public Cell getCell(int row, int col) {
-        int index = row * this.cols + col;
-        return cells[index];
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("cell (" + row + ", " + col + ") is outside of the grid.");
+        }
+        return new Cell(row, col);
     }
 
+    /**
+     * Returns an iterator over all cells in row-major order, the
+     * cells are created on demand.
+     */
     @Override
     public Iterator<Cell> iterator() {
-        return Arrays.asList(cells).iterator();
+        return new Iterator<Cell>() {
+            private int row;
+            private int col;
+
+            @Override
+            public boolean hasNext() {
+                return row < rows;
+            }
+
+            @Override
+            public Cell next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                Cell cell = new Cell(row, col);
+                if (++col == cols) {
+                    col = 0;
+                    row++;
+                }
+                return cell;
+            }
+        };
     }
 
     public void evolve() {
-        BitSet tmp = new BitSet(cellCount);
-        for (int i = 0; i < cellCount; i++) {
-            Cell cell = cells[i];
+        evolve(1);
+    }
 
-            boolean nextState = cell.evolve(tmp);
-            updatedCellState.set(i, nextState);
+    /**
+     * Advances the automaton by the given number of generations.
+     * <p>
+     * Listeners are only notified once with the changes between the
+     * initial and the final state.
+     */
+    public synchronized void evolve(long generations) {
+        ChangeSet changes = evolveState(generations);
+        if (!changes.isEmpty()) {
+            fireStateChanged(changes);
         }
+    }
 
-        generation++;
+    /**
+     * Advances the state of the automaton by the given number of generations
+     * without notifying any listener. This method may be called from any
+     * thread, use {@link #snapshot()} to hand over the new state.
+     * <p>
+     * Several generations are computed within the engine, only the changes
+     * between the initial and the final state are determined. As cycles are
+     * detected on consecutive generations, they are only found while evolving
+     * a single generation at a time or while a journal is attached.
+     *
+     * @return the cells that changed their state.
+     */
+    public synchronized ChangeSet evolveState(long generations) {
+        if (generations <= 0) {
+            return ChangeSet.between(cellState, cellState);
+        }
 
-        cellState.clear();
-        cellState.or(updatedCellState);
+        EvolveEvent event = new EvolveEvent();
+        event.begin();
+
+        long allocatedBytes = PerformanceMetrics.currentThreadAllocatedBytes();
+
+        ChangeSet changes = journal != null ? evolveRecorded(generations) : evolveUnrecorded(generations);
+        pendingChanges.add(changes);
+        populationPyramid.apply(changes);
 
-        for(int i = 0; i < cellCount; i++) {
-            cells[i].setAlive(cellState.get(i));
+        if (allocatedBytes >= 0) {
+            metrics.recordAllocation(PerformanceMetrics.currentThreadAllocatedBytes() - allocatedBytes);
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setGeneration(generation);
+            event.setGenerations(generations);
+            event.setPopulation(populationPyramid.getPopulation());
+            event.setChangedCells(changes.getChangedCellCount());
+            event.setEngine(engine.getName());
+            event.commit();
+        }
+        return changes;
     }
 
-    public void clear() {
-        this.generation = 0;
+    private ChangeSet evolveUnrecorded(long generations) {
+        if (generations > 1 && scratchState == null) {
+            scratchState = new BitGrid(rows, cols);
+        }
+
+        long startTime = System.nanoTime();
 
-        for (Cell cell : cells) {
-            cell.setAlive(false);
+        engine.evolve(cellState, updatedCellState, scratchState, generations);
+
+        long evolvedTime = System.nanoTime();
+
+        generation += generations;
+
+        cellState.swap(updatedCellState);
+
+        long swappedTime = System.nanoTime();
+
+        ChangeSet changes = ChangeSet.between(updatedCellState, cellState);
+        updateCycleDetection(changes, generations);
+
+        recordPhases(generations, startTime, evolvedTime, swappedTime, System.nanoTime());
+        return changes;
+    }
+
+    /**
+     * Advances the state one generation at a time, recording each generation in the journal.
+     */
+    private ChangeSet evolveRecorded(long generations) {
+        BitGrid initialState = null;
+        if (generations > 1) {
+            initialState = new BitGrid(rows, cols);
+            initialState.copyFrom(cellState);
         }
 
+        for (long i = 0; i < generations; i++) {
+            long startTime = System.nanoTime();
+
+            engine.evolve(cellState, updatedCellState);
+
+            long evolvedTime = System.nanoTime();
+
+            generation++;
+
+            cellState.swap(updatedCellState);
+
+            long swappedTime = System.nanoTime();
+
+            ChangeSet changes = ChangeSet.between(updatedCellState, cellState);
+            updateCycleDetection(changes, 1);
+
+            recordPhases(1, startTime, evolvedTime, swappedTime, System.nanoTime());
+
+            journal.record(generation, changes, cellState);
+        }
+
+        return ChangeSet.between(initialState != null ? initialState : updatedCellState, cellState);
+    }
+
+    private void recordPhases(long generations, long startTime, long evolvedTime, long swappedTime, long endTime) {
+        metrics.record(Phase.EVOLVE,     evolvedTime - startTime);
+        metrics.record(Phase.SWAP,       swappedTime - evolvedTime);
+        metrics.record(Phase.CHANGE_SET, endTime     - swappedTime);
+
+        long cellCount = (long) rows * cols;
+        metrics.recordGenerations(generations, generations <= Long.MAX_VALUE / cellCount ? generations * cellCount : Long.MAX_VALUE);
+    }
+
+    /**
+     * Advances the automaton by the given number of generations like
+     * {@link #evolveState(long)}. If the automaton is known to cycle, only the
+     * remainder of the generations modulo the period are actually evolved.
+     * <p>
+     * While a journal is attached, all generations are evolved.
+     *
+     * @return the cells that changed their state.
+     */
+    public synchronized ChangeSet skipAhead(long generations) {
+        if (cycle == null || journal != null || generations <= 0) {
+            return evolveState(generations);
+        }
+
+        long remainder = generations % cycle.getPeriod();
+        ChangeSet changes = evolveState(remainder);
+        generation += generations - remainder;
+        return changes;
+    }
+
+    /**
+     * Returns a hash of the current state, which is updated incrementally
+     * with each change.
+     */
+    public synchronized long getStateHash() {
+        return stateHash;
+    }
+
+    /**
+     * Returns the cycle the automaton has entered, or {@code null} if no state
+     * repeated within the last {@link #CYCLE_DETECTION_WINDOW} observed generations.
+     * <p>
+     * When evolving multiple generations at once, only the final states are
+     * observed, thus the reported period might be a multiple of the actual one.
+     * For rules with dying states, only consecutive single generations are observed.
+     * Editing the state restarts the detection.
+     */
+    public synchronized Cycle getCycle() {
+        return cycle;
+    }
+
+    private void updateCycleDetection(ChangeSet changes, long generations) {
+        stateHash = StateHash.update(stateHash, changes);
+        if (cycle == null) {
+            // the history only describes the state if it consists of consecutive generations.
+            if (generations != 1) {
+                historyHash.reset();
+            }
+
+            if (historyHash.add(stateHash)) {
+                cycle = cycleDetector.observe(generation, historyHash.get());
+            }
+        }
+    }
+
+    private void resetCycleDetection() {
+        cycleDetector.reset();
+        historyHash.reset();
+        if (historyHash.add(stateHash)) {
+            cycleDetector.observe(generation, historyHash.get());
+        }
+        cycle = null;
+    }
+
+    /**
+     * Sets the metrics to record the durations and throughput of evolving this
+     * automaton into, by default {@link PerformanceMetrics#getDefault()} is used.
+     */
+    public synchronized void setMetrics(PerformanceMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    public synchronized PerformanceMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Attaches a journal recording all further generations and edits, starting
+     * with the current state. Passing {@code null} stops recording.
+     * <p>
+     * While a journal is attached, multiple generations are evolved one at a time.
+     */
+    public synchronized void setJournal(HistoryJournal journal) {
+        this.journal = journal;
+        if (journal != null) {
+            journal.start(cellState, generation);
+        }
+    }
+
+    public synchronized HistoryJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Restores the state of a generation recorded in the journal, all later
+     * generations are discarded from the journal. Snapshots taken before are
+     * considered stale afterwards, listeners are notified with a change set
+     * covering every cell.
+     *
+     * @throws IllegalStateException if no journal is attached.
+     * @throws IllegalArgumentException if the generation has not been recorded.
+     */
+    public synchronized void rewind(long generation) throws IOException {
+        if (journal == null) {
+            throw new IllegalStateException("no journal attached.");
+        }
+
+        BitGrid state = journal.seek(generation);
+        journal.truncate(generation);
+
+        cellState.copyFrom(state);
+        this.generation = generation;
+        epoch++;
+
+        stateHash = StateHash.of(cellState);
+        resetCycleDetection();
+
+        pendingChanges.addAll(cellState);
+        populationPyramid.reset();
+        fireStateChanged(ChangeSet.ofGrid(cellState));
+    }
+
+    /**
+     * Passes the current state to the given reader while no other thread
+     * can modify it, e.g. to write it to a file without copying it first.
+     */
+    public synchronized void readState(StateReader reader) throws IOException {
+        reader.read(cellState, generation);
+    }
+
+    /**
+     * Returns an immutable snapshot of the current generation carrying the changes
+     * made since the previous snapshot, which costs time proportional to the number
+     * of changed words. The changes of consecutive generations are accumulated
+     * until a snapshot is taken, thus a single consumer should take the snapshots,
+     * e.g. a background thread handing them over to the UI.
+     */
+    public synchronized GenerationSnapshot snapshot() {
+        ChangeSet changes = pendingChanges.take(cellState);
+        snapshotSequence++;
+        return new GenerationSnapshot(this, generation, epoch, cycle, populationPyramid.getPopulation(),
+                                      snapshotSequence - 1, snapshotSequence, changes);
+    }
+
+    /**
+     * Returns an immutable snapshot of the current generation whose changes cover every
+     * cell, e.g. to initialize an observer of the automaton. This does not affect the
+     * changes carried by the next snapshot, but costs time proportional to the size
+     * of the grid.
+     */
+    public synchronized GenerationSnapshot fullSnapshot() {
+        return new GenerationSnapshot(this, generation, epoch, cycle, populationPyramid.getPopulation(),
+                                      -1, snapshotSequence, ChangeSet.ofGrid(cellState));
+    }
+
+    /**
+     * Kills all cells and resets the generation. Snapshots taken before
+     * are considered stale afterwards, see {@link GenerationSnapshot#getEpoch()}.
+     * <p>
+     * As observers might not have seen the latest generation yet, listeners
+     * are notified with a change set covering every cell. While a journal is
+     * attached, the generation is kept and the clear is recorded as an edit,
+     * thus the history before can still be restored.
+     */
+    public synchronized void clear() {
+        if (journal == null) {
+            generation = 0;
+        }
+        epoch++;
+
+        cellState.clear();
         updatedCellState.clear();
+
+        stateHash = 0;
+        resetCycleDetection();
+
+        ChangeSet changes = ChangeSet.ofGrid(cellState);
+        if (journal != null) {
+            journal.record(generation, changes, cellState);
+        }
+
+        pendingChanges.addAll(cellState);
+        populationPyramid.reset();
+        fireStateChanged(changes);
     }
 
+    /**
+     * Reads the state of an automaton in bulk, see {@link #readState(StateReader)}.
+     */
+    public interface StateReader {
+        /**
+         * Reads the given state, which must not be modified.
+         */
+        void read(BitGrid state, long generation) throws IOException;
+    }
+
+    /**
+     * A lightweight view of a single cell, two views of the same cell are equal.
+     */
     public class Cell {
-        private final int    cellIndex;
-        private final BitSet neighbors;
-
-        private final BooleanProperty aliveProperty;
-
-        Cell(int cellIndex) {
-            this.cellIndex = cellIndex;
-            this.neighbors = new BitSet(cellCount);
-
-            int row = cellIndex / cols;
-            int col = cellIndex % cols;
-
-            addNeighbor(row - 1, col); // top
-            addNeighbor(row + 1, col); // bottom
-            addNeighbor(row, col - 1); // left
-            addNeighbor(row, col + 1); // right
-            addNeighbor(row - 1, col - 1); // top left
-            addNeighbor(row - 1, col + 1); // top right
-            addNeighbor(row + 1, col - 1); // bottom left
-            addNeighbor(row + 1, col + 1); // bottom right
-
-            aliveProperty = new SimpleBooleanProperty(false) {
-                @Override
-                public void set(boolean newValue) {
-                    super.set(newValue);
-                    cellState.set(cellIndex, newValue);
-                }
-            };
+        private final int row;
+        private final int col;
+
+        Cell(int row, int col) {
+            this.row = row;
+            this.col = col;
         }
 
         public int getRow() {
-            return cellIndex / cols;
+            return row;
         }
 
         public int getColumn() {
-            return cellIndex % cols;
-        }
-
-        private void addNeighbor(int row, int col) {
-            if (row >= 0 && row < rows &&
-                col >= 0 && col < cols) {
-
-                int cellIndex = row * cols + col;
-                neighbors.set(cellIndex);
-            }
+            return col;
         }
 
         public void setAlive(boolean value) {
-            aliveProperty.set(value);
+            CellularAutomaton.this.setAlive(row, col, value);
         }
 
         public boolean isAlive() {
-            return aliveProperty.get();
+            return CellularAutomaton.this.isAlive(row, col);
         }
 
-        public BooleanProperty aliveProperty() {
-            return aliveProperty;
+        private CellularAutomaton getAutomaton() {
+            return CellularAutomaton.this;
         }
 
-        public boolean evolve(BitSet working) {
-            working.clear();
-            working.or(cellState);
-            working.and(neighbors);
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Cell)) {
+                return false;
+            }
 
-            int aliveNeighbors = working.cardinality();
+            Cell other = (Cell) o;
+            return other.getAutomaton() == CellularAutomaton.this &&
+                   other.row == row &&
+                   other.col == col;
+        }
 
-            if (isAlive()) {
-                return aliveNeighbors == 2 || aliveNeighbors == 3;
-            } else {
-                return aliveNeighbors == 3;
-            }
+        @Override
+        public int hashCode() {
+            return row * cols + col;
+        }
+
+        @Override
+        public String toString() {
+            return "Cell(" + row + ", " + col + ")";
         }
     }
 }
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of cells that changed their state between two generations.
+ * <p>
+ * The changes are stored per word of the packed state, only words containing
+ * at least one changed cell are included. Thus the size of a change set is
+ * proportional to the number of changes rather than to the size of the grid.
+ * The words are ordered by their index, and the state of a changed word always
+ * includes all of its cells.
+ *
+ * @author Thomas Neidhart
+ */
+public final class ChangeSet {
+
+    /**
+     * A consumer of changed cells.
+     */
+    public interface CellConsumer {
+        void accept(int row, int col, boolean alive);
+    }
+
+    private final int    wordsPerRow;
+    private final int[]  wordIndices;
+    private final long[] changedBits;
+    private final long[] aliveBits;
+
+    private ChangeSet(int wordsPerRow, int[] wordIndices, long[] changedBits, long[] aliveBits) {
+        this.wordsPerRow = wordsPerRow;
+        this.wordIndices = wordIndices;
+        this.changedBits = changedBits;
+        this.aliveBits   = aliveBits;
+    }
+
+    /**
+     * Creates a change set from its raw representation, the word indices refer to
+     * the packed words of a grid in row-major order.
+     */
+    static ChangeSet of(int wordsPerRow, int[] wordIndices, long[] changedBits, long[] aliveBits) {
+        return new ChangeSet(wordsPerRow, wordIndices, changedBits, aliveBits);
+    }
+
+    /**
+     * Returns the changes between the {@code previous} and {@code current} state.
+     */
+    public static ChangeSet between(BitGrid previous, BitGrid current) {
+        long[] previousWords = previous.words();
+        long[] currentWords  = current.words();
+
+        int size = 0;
+        for (int i = 0; i < currentWords.length; i++) {
+            if (previousWords[i] != currentWords[i]) {
+                size++;
+            }
+        }
+
+        int[]  wordIndices = new int[size];
+        long[] changedBits = new long[size];
+        long[] aliveBits   = new long[size];
+
+        int j = 0;
+        for (int i = 0; i < currentWords.length && j < size; i++) {
+            long changed = previousWords[i] ^ currentWords[i];
+            if (changed != 0) {
+                wordIndices[j] = i;
+                changedBits[j] = changed;
+                aliveBits[j]   = currentWords[i];
+                j++;
+            }
+        }
+
+        return new ChangeSet(current.getWordsPerRow(), wordIndices, changedBits, aliveBits);
+    }
+
+    /**
+     * Returns a change set containing the single given cell.
+     */
+    public static ChangeSet ofCell(BitGrid grid, int row, int col) {
+        int  word = col >>> 6;
+        long bit  = 1L << col;
+
+        return new ChangeSet(grid.getWordsPerRow(),
+                             new int[]  { row * grid.getWordsPerRow() + word },
+                             new long[] { bit },
+                             new long[] { grid.getWord(row, word) });
+    }
+
+    /**
+     * Returns a change set that sets every cell to its state in the given grid,
+     * regardless of the state it had before.
+     */
+    public static ChangeSet ofGrid(BitGrid grid) {
+        long[] words = grid.words();
+
+        int    wordsPerRow = grid.getWordsPerRow();
+        int[]  wordIndices = new int[words.length];
+        long[] changedBits = new long[words.length];
+
+        for (int i = 0; i < words.length; i++) {
+            wordIndices[i] = i;
+            changedBits[i] = (i % wordsPerRow) == wordsPerRow - 1 ? grid.getLastWordMask() : -1L;
+        }
+
+        return new ChangeSet(wordsPerRow, wordIndices, changedBits, words.clone());
+    }
+
+    /**
+     * Returns the changes of the given change sets applied one after the other.
+     * For words contained in both, the changed bits are combined and the state
+     * of the {@code newer} change set is taken, thus cells that changed back
+     * might be included.
+     */
+    public static ChangeSet merge(ChangeSet older, ChangeSet newer) {
+        int size = older.wordIndices.length + newer.wordIndices.length;
+
+        int[]  indices = new int[size];
+        long[] changed = new long[size];
+        long[] alive   = new long[size];
+
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < older.wordIndices.length || j < newer.wordIndices.length) {
+            int olderIndex = i < older.wordIndices.length ? older.wordIndices[i] : Integer.MAX_VALUE;
+            int newerIndex = j < newer.wordIndices.length ? newer.wordIndices[j] : Integer.MAX_VALUE;
+
+            if (olderIndex < newerIndex) {
+                indices[k] = olderIndex;
+                changed[k] = older.changedBits[i];
+                alive[k]   = older.aliveBits[i];
+                i++;
+            } else {
+                indices[k] = newerIndex;
+                changed[k] = newer.changedBits[j];
+                alive[k]   = newer.aliveBits[j];
+                if (olderIndex == newerIndex) {
+                    changed[k] |= older.changedBits[i];
+                    i++;
+                }
+                j++;
+            }
+            k++;
+        }
+
+        return new ChangeSet(newer.wordsPerRow,
+                             Arrays.copyOf(indices, k),
+                             Arrays.copyOf(changed, k),
+                             Arrays.copyOf(alive, k));
+    }
+
+    /**
+     * Applies the changes to the given grid.
+     *
+     * @return the cells of the grid that actually changed their state.
+     */
+    public ChangeSet applyTo(BitGrid grid) {
+        long[] words = grid.words();
+
+        int    size        = 0;
+        int[]  indices     = new int[wordIndices.length];
+        long[] changed     = new long[wordIndices.length];
+        long[] alive       = new long[wordIndices.length];
+
+        for (int i = 0; i < wordIndices.length; i++) {
+            int  index   = wordIndices[i];
+            long word    = words[index];
+            long updated = (word & ~changedBits[i]) | (aliveBits[i] & changedBits[i]);
+
+            if (updated != word) {
+                words[index] = updated;
+
+                indices[size] = index;
+                changed[size] = word ^ updated;
+                alive[size]   = updated;
+                size++;
+            }
+        }
+
+        if (size > 0) {
+            grid.modified();
+        }
+
+        return new ChangeSet(wordsPerRow,
+                             Arrays.copyOf(indices, size),
+                             Arrays.copyOf(changed, size),
+                             Arrays.copyOf(alive, size));
+    }
+
+    public boolean isEmpty() {
+        return wordIndices.length == 0;
+    }
+
+    /**
+     * Returns the number of words containing changed cells.
+     */
+    public int getWordCount() {
+        return wordIndices.length;
+    }
+
+    /**
+     * Returns the index of the word within the packed words of the grid.
+     */
+    int getWordIndex(int index) {
+        return wordIndices[index];
+    }
+
+    public int getRow(int index) {
+        return wordIndices[index] / wordsPerRow;
+    }
+
+    /**
+     * Returns the index of the word within its row.
+     */
+    public int getWord(int index) {
+        return wordIndices[index] % wordsPerRow;
+    }
+
+    public long getChangedBits(int index) {
+        return changedBits[index];
+    }
+
+    /**
+     * Returns the new state of all cells within the word.
+     */
+    public long getAliveBits(int index) {
+        return aliveBits[index];
+    }
+
+    public long getBirths(int index) {
+        return changedBits[index] & aliveBits[index];
+    }
+
+    public long getDeaths(int index) {
+        return changedBits[index] & ~aliveBits[index];
+    }
+
+    public int getChangedCellCount() {
+        int count = 0;
+        for (long bits : changedBits) {
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    public int getBirthCount() {
+        int count = 0;
+        for (int i = 0; i < changedBits.length; i++) {
+            count += Long.bitCount(getBirths(i));
+        }
+        return count;
+    }
+
+    public int getDeathCount() {
+        return getChangedCellCount() - getBirthCount();
+    }
+
+    /**
+     * Calls the given consumer for each changed cell together with its new state.
+     */
+    public void forEachChangedCell(CellConsumer consumer) {
+        for (int i = 0; i < wordIndices.length; i++) {
+            int row     = getRow(i);
+            int colBase = getWord(i) << 6;
+
+            long changed = changedBits[i];
+            while (changed != 0) {
+                int bit = Long.numberOfTrailingZeros(changed);
+                changed &= changed - 1;
+
+                consumer.accept(row, colBase + bit, (aliveBits[i] & (1L << bit)) != 0);
+            }
+        }
+    }
+}
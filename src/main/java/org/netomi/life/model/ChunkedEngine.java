@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * An evolution engine that treats the grid as a window onto an unbounded plane,
+ * which is stored in chunks by an {@link UnboundedAutomaton}.
+ * <p>
+ * Cells that leave the grid continue to evolve outside of it, thus the only
+ * supported topology is {@link Topology#UNBOUNDED}. In contrast to the
+ * {@link HashLifeEngine}, each generation is evolved individually, which costs
+ * O(population) per generation and does not depend on the regularity of the
+ * pattern. When the content of the grid is modified externally, the plane is
+ * rebuilt from the grid and any cells outside of it are discarded.
+ * <p>
+ * Only life-like rules without dying states are supported, where the empty
+ * plane stays empty, i.e. there is no birth on 0 neighbors.
+ *
+ * @author Thomas Neidhart
+ */
+public class ChunkedEngine implements EvolutionEngine {
+
+    private final UnboundedAutomaton plane = new UnboundedAutomaton();
+
+    // the grid holding the latest generation copied from the plane.
+    private long[] publishedWords;
+    private long   publishedModificationCount;
+
+    @Override
+    public String getName() {
+        return "chunked";
+    }
+
+    @Override
+    public Rule getRule() {
+        return plane.getRule();
+    }
+
+    @Override
+    public void setRule(Rule rule) {
+        if (!supports(rule)) {
+            throw new IllegalArgumentException("rule " + rule + " is not supported by the " + getName() + " engine");
+        }
+
+        plane.setRule(rule);
+    }
+
+    @Override
+    public boolean supports(Rule rule) {
+        return UnboundedAutomaton.supports(rule);
+    }
+
+    @Override
+    public Topology getTopology() {
+        return Topology.UNBOUNDED;
+    }
+
+    @Override
+    public void setTopology(Topology topology) {
+        if (!supports(topology)) {
+            throw new IllegalArgumentException("topology " + topology + " is not supported by the " + getName() + " engine");
+        }
+    }
+
+    @Override
+    public boolean supports(Topology topology) {
+        return topology == Topology.UNBOUNDED;
+    }
+
+    /**
+     * Returns the number of chunks currently allocated for the plane.
+     */
+    public int getChunkCount() {
+        return plane.getChunkCount();
+    }
+
+    @Override
+    public void evolve(BitGrid current, BitGrid next) {
+        evolve(current, next, null, 1);
+    }
+
+    @Override
+    public void evolve(BitGrid current, BitGrid next, long generations) {
+        evolve(current, next, null, generations);
+    }
+
+    @Override
+    public void evolve(BitGrid current, BitGrid next, BitGrid scratch, long generations) {
+        if (current.words() != publishedWords || current.getModificationCount() != publishedModificationCount) {
+            plane.load(current);
+        }
+
+        for (long i = 0; i < generations; i++) {
+            plane.evolve();
+        }
+
+        plane.copyTo(next, 0, 0);
+
+        publishedWords             = next.words();
+        publishedModificationCount = next.getModificationCount();
+    }
+}
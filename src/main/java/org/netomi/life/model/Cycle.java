@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * A detected repetition of states of a {@link CellularAutomaton}.
+ * <p>
+ * A period of 1 means the automaton has become stable, i.e. it does not change anymore.
+ *
+ * @author Thomas Neidhart
+ */
+public final class Cycle {
+
+    private final long startGeneration;
+    private final long period;
+
+    Cycle(long startGeneration, long period) {
+        this.startGeneration = startGeneration;
+        this.period          = period;
+    }
+
+    /**
+     * Returns the first observed generation that is part of the cycle.
+     */
+    public long getStartGeneration() {
+        return startGeneration;
+    }
+
+    /**
+     * Returns the number of generations after which the state repeats.
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    public boolean isStable() {
+        return period == 1;
+    }
+
+    @Override
+    public String toString() {
+        return isStable() ?
+            String.format("stable since generation %d", startGeneration) :
+            String.format("period %d since generation %d", period, startGeneration);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Arrays;
+
+/**
+ * Detects repeating states by remembering the hashes of the most recently
+ * observed generations.
+ * <p>
+ * The hashes are kept in a ring buffer in the order they have been observed,
+ * together with an open addressing table to look them up. Once the capacity
+ * is reached, the hash of the oldest generation is forgotten, thus cycles with
+ * a period of up to the capacity are detected.
+ *
+ * @author Thomas Neidhart
+ */
+final class CycleDetector {
+
+    private final int capacity;
+
+    private final long[] ringHashes;
+    private int          ringHead;
+    private int          ringSize;
+
+    private final long[]    tableHashes;
+    private final long[]    tableGenerations;
+    private final boolean[] tableUsed;
+    private final int       tableMask;
+
+    CycleDetector(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive.");
+        }
+
+        this.capacity   = capacity;
+        this.ringHashes = new long[capacity];
+
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        tableHashes      = new long[tableSize];
+        tableGenerations = new long[tableSize];
+        tableUsed        = new boolean[tableSize];
+        tableMask        = tableSize - 1;
+    }
+
+    void reset() {
+        ringHead = 0;
+        ringSize = 0;
+        Arrays.fill(tableUsed, false);
+    }
+
+    /**
+     * Records the hash of the given generation.
+     *
+     * @return the detected cycle if the hash has been observed before, {@code null} otherwise.
+     */
+    Cycle observe(long generation, long hash) {
+        int slot = slot(hash);
+        while (tableUsed[slot]) {
+            if (tableHashes[slot] == hash) {
+                long startGeneration = tableGenerations[slot];
+                return generation > startGeneration ? new Cycle(startGeneration, generation - startGeneration) : null;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+
+        if (ringSize == capacity) {
+            remove(ringHashes[ringHead]);
+            ringHead = (ringHead + 1) % capacity;
+            ringSize--;
+        }
+
+        ringHashes[(ringHead + ringSize) % capacity] = hash;
+        ringSize++;
+
+        tableUsed[slot]        = true;
+        tableHashes[slot]      = hash;
+        tableGenerations[slot] = generation;
+
+        return null;
+    }
+
+    /**
+     * Removes the given hash from the table, shifting back subsequent
+     * entries of the probe sequence to keep lookups correct.
+     */
+    private void remove(long hash) {
+        int slot = slot(hash);
+        while (tableHashes[slot] != hash) {
+            slot = (slot + 1) & tableMask;
+        }
+
+        int hole = slot;
+        int next = (hole + 1) & tableMask;
+        while (tableUsed[next]) {
+            int home = slot(tableHashes[next]);
+            // move the entry into the hole if its home slot is not within (hole, next].
+            if (((next - home) & tableMask) >= ((next - hole) & tableMask)) {
+                tableHashes[hole]      = tableHashes[next];
+                tableGenerations[hole] = tableGenerations[next];
+                hole = next;
+            }
+            next = (next + 1) & tableMask;
+        }
+        tableUsed[hole] = false;
+    }
+
+    private int slot(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & tableMask;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * The dying states of the cells of a grid evolved with a multi-state rule.
+ * <p>
+ * A dying cell is neither alive nor can it become alive, with each generation
+ * it advances to the next state until it is dead. The state of each cell is
+ * kept as a counter, 0 for alive or dead cells and 1 to {@code states - 2} for
+ * the dying states, which is stored in bit-sliced planes parallel to the words
+ * of the grid. Thus the counters of 64 cells are advanced with a few bitwise
+ * operations.
+ * <p>
+ * The planes describe the grid passed to the latest evolution step and are
+ * updated in place, as the update of a cell does not depend on any other
+ * counter. If the grid has been modified in between, dying cells that are
+ * alive again are reset, if its dimension changed, all dying cells are discarded.
+ *
+ * @author Thomas Neidhart
+ */
+final class DecayPlanes {
+
+    private final long[] lastStateMasks;
+
+    private int      rows;
+    private int      wordsPerRow;
+    private long[][] planes;
+
+    DecayPlanes(int states) {
+        int lastState  = states - 2;
+        int planeCount = 32 - Integer.numberOfLeadingZeros(lastState);
+
+        lastStateMasks = new long[planeCount];
+        for (int i = 0; i < planeCount; i++) {
+            lastStateMasks[i] = (lastState & (1 << i)) != 0 ? -1L : 0L;
+        }
+    }
+
+    /**
+     * Adjusts the planes to the dimension of the given grid, to be
+     * called before evolving it.
+     */
+    void prepare(BitGrid grid) {
+        if (planes == null || rows != grid.getRows() || wordsPerRow != grid.getWordsPerRow()) {
+            rows        = grid.getRows();
+            wordsPerRow = grid.getWordsPerRow();
+            planes      = new long[lastStateMasks.length][rows * wordsPerRow];
+        }
+    }
+
+    /**
+     * Advances the dying cells of a word to the next generation.
+     *
+     * @param index the index of the word within the grid.
+     * @param alive the currently alive cells.
+     * @param next  the next state of the word ignoring any dying cell.
+     * @return the next state of the word, which takes the dying cells into account.
+     */
+    long evolve(int index, long alive, long next) {
+        long[][] planes = this.planes;
+
+        long dying = 0;
+        for (long[] plane : planes) {
+            dying |= plane[index];
+        }
+        dying &= ~alive;
+
+        // cells in the last dying state die, all others advance.
+        long expired = dying;
+        for (int i = 0; i < planes.length; i++) {
+            expired &= ~(planes[i][index] ^ lastStateMasks[i]);
+        }
+
+        long advancing = dying & ~expired;
+        long carry     = advancing;
+        for (long[] plane : planes) {
+            long counter = plane[index];
+            plane[index] = (counter ^ carry) & advancing;
+            carry &= counter;
+        }
+
+        // alive cells that do not survive enter the first dying state.
+        planes[0][index] |= alive & ~next;
+
+        return next & ~dying;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.function.Supplier;
+
+/**
+ * The available evolution engines.
+ *
+ * @author Thomas Neidhart
+ */
+public enum EngineType {
+    REFERENCE(ReferenceEngine.class, ReferenceEngine::new),
+    PACKED   (PackedEngine.class,    PackedEngine::new),
+    PARALLEL (ParallelEngine.class,  ParallelEngine::configured),
+    SPARSE   (SparseEngine.class,    SparseEngine::new),
+    HASHLIFE (HashLifeEngine.class,  HashLifeEngine::configured),
+    CHUNKED  (ChunkedEngine.class,   ChunkedEngine::new);
+
+    private final Class<? extends EvolutionEngine> engineClass;
+    private final Supplier<EvolutionEngine>        factory;
+
+    EngineType(Class<? extends EvolutionEngine> engineClass, Supplier<EvolutionEngine> factory) {
+        this.engineClass = engineClass;
+        this.factory     = factory;
+    }
+
+    /**
+     * Returns the type of the given engine, or {@code null} if it is not one of the available engines.
+     */
+    public static EngineType of(EvolutionEngine engine) {
+        for (EngineType engineType : values()) {
+            if (engineType.engineClass == engine.getClass()) {
+                return engineType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a new engine instance of this type.
+     */
+    public EvolutionEngine createEngine() {
+        return factory.get();
+    }
+
+    /**
+     * Creates a new engine instance of this type applying the given rule.
+     *
+     * @throws IllegalArgumentException if the rule is not supported by engines of this type.
+     */
+    public EvolutionEngine createEngine(Rule rule) {
+        EvolutionEngine engine = factory.get();
+        engine.setRule(rule);
+        return engine;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * An engine that computes the evolution of a cellular automaton.
+ * <p>
+ * Engines may keep internal state between subsequent evolution steps,
+ * thus an instance must not be shared between different models.
+ *
+ * @author Thomas Neidhart
+ */
+public interface EvolutionEngine {
+
+    /**
+     * Returns a short, human-readable name of this engine.
+     */
+    String getName();
+
+    /**
+     * Returns the rule applied by this engine, which is {@link Rule#CONWAY} initially.
+     */
+    Rule getRule();
+
+    /**
+     * Changes the rule applied by this engine.
+     *
+     * @throws IllegalArgumentException if the rule is not supported by this engine.
+     */
+    void setRule(Rule rule);
+
+    /**
+     * Returns whether this engine is able to apply the given rule.
+     */
+    boolean supports(Rule rule);
+
+    /**
+     * Returns the topology of the grids evolved by this engine, which is {@link Topology#PLANE}
+     * initially for engines evolving bounded grids.
+     */
+    Topology getTopology();
+
+    /**
+     * Changes the topology of the grids evolved by this engine.
+     *
+     * @throws IllegalArgumentException if the topology is not supported by this engine.
+     */
+    void setTopology(Topology topology);
+
+    /**
+     * Returns whether this engine is able to evolve grids of the given topology.
+     */
+    boolean supports(Topology topology);
+
+    /**
+     * Computes the next generation of the {@code current} state and stores
+     * it in {@code next}. Both grids have the same dimension.
+     *
+     * @param current the current state, must not be modified.
+     * @param next    the grid to store the next generation into.
+     */
+    void evolve(BitGrid current, BitGrid next);
+
+    /**
+     * Computes the state of {@code current} after the given number of
+     * generations and stores it in {@code next}.
+     * <p>
+     * The default implementation allocates a scratch grid for the intermediate
+     * generations, see {@link #evolve(BitGrid, BitGrid, BitGrid, long)}.
+     *
+     * @param current     the current state, must not be modified.
+     * @param next        the grid to store the resulting generation into.
+     * @param generations the number of generations to advance.
+     */
+    default void evolve(BitGrid current, BitGrid next, long generations) {
+        BitGrid scratch = generations > 1 ? new BitGrid(current.getRows(), current.getCols()) : null;
+        evolve(current, next, scratch, generations);
+    }
+
+    /**
+     * Computes the state of {@code current} after the given number of
+     * generations and stores it in {@code next}, using {@code scratch} to
+     * store intermediate generations. The content of {@code scratch} is
+     * undefined afterwards.
+     * <p>
+     * The default implementation performs the single steps alternating
+     * between {@code next} and {@code scratch}, engines that can advance
+     * multiple generations at once should override it.
+     *
+     * @param current     the current state, must not be modified.
+     * @param next        the grid to store the resulting generation into.
+     * @param scratch     a grid of the same dimension, may be {@code null} if
+     *                    at most one generation is advanced.
+     * @param generations the number of generations to advance.
+     */
+    default void evolve(BitGrid current, BitGrid next, BitGrid scratch, long generations) {
+        if (generations <= 0) {
+            next.copyFrom(current);
+            return;
+        }
+
+        // choose the first target such that the last step ends in next.
+        BitGrid source = current;
+        BitGrid target = (generations & 1) != 0 ? next : scratch;
+        BitGrid other  = target == next ? scratch : next;
+
+        for (long i = 0; i < generations; i++) {
+            evolve(source, target);
+
+            source = target;
+            target = other;
+            other  = source;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * An immutable snapshot of a single generation of a {@link CellularAutomaton}.
+ * <p>
+ * Snapshots are safe to be handed over between threads, e.g. from a background
+ * simulation thread to the UI thread.
+ * <p>
+ * A snapshot does not copy the state of its source, it carries the changes
+ * made since the previous snapshot instead, see {@link #getChanges()}. The
+ * snapshots taken from an automaton are numbered consecutively, thus the
+ * receiver can tell whether it missed the changes of a snapshot.
+ *
+ * @author Thomas Neidhart
+ */
+public final class GenerationSnapshot {
+
+    private final CellularAutomaton source;
+    private final long              generation;
+    private final long              epoch;
+    private final Cycle             cycle;
+    private final int               population;
+    private final long              baseSequence;
+    private final long              sequence;
+    private final ChangeSet         changes;
+
+    GenerationSnapshot(CellularAutomaton source, long generation, long epoch, Cycle cycle, int population,
+                       long baseSequence, long sequence, ChangeSet changes) {
+        this.source       = source;
+        this.generation   = generation;
+        this.epoch        = epoch;
+        this.cycle        = cycle;
+        this.population   = population;
+        this.baseSequence = baseSequence;
+        this.sequence     = sequence;
+        this.changes      = changes;
+    }
+
+    /**
+     * Returns a snapshot combining the changes of the given snapshots of the same
+     * source, e.g. to replace a snapshot that has not been consumed yet. If the
+     * snapshots have been taken from different sources or the source has been
+     * cleared in between, the newer snapshot is returned.
+     *
+     * @param older the older snapshot, may be {@code null}.
+     * @param newer the newer snapshot.
+     */
+    public static GenerationSnapshot merge(GenerationSnapshot older, GenerationSnapshot newer) {
+        if (older == null || older.source != newer.source || older.epoch != newer.epoch) {
+            return newer;
+        }
+
+        return new GenerationSnapshot(newer.source, newer.generation, newer.epoch, newer.cycle, newer.population,
+                                      older.baseSequence, newer.sequence, ChangeSet.merge(older.changes, newer.changes));
+    }
+
+    public CellularAutomaton getSource() {
+        return source;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the cycle the source had entered at this generation, or {@code null}
+     * if none has been detected, see {@link CellularAutomaton#getCycle()}.
+     */
+    public Cycle getCycle() {
+        return cycle;
+    }
+
+    public int getPopulation() {
+        return population;
+    }
+
+    /**
+     * Returns the number of times the source had been cleared when this snapshot was taken.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the number of this snapshot, see {@link CellularAutomaton#snapshot()}.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of the snapshot the changes of this snapshot are based on,
+     * or {@code -1} if they cover every cell.
+     */
+    public long getBaseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * Returns the cells that changed since the snapshot this snapshot is based on,
+     * together with their state at this generation. Cells that changed back might
+     * be included.
+     */
+    public ChangeSet getChanges() {
+        return changes;
+    }
+}
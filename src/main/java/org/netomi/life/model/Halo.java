@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Arrays;
+
+/**
+ * The ghost cells surrounding a {@link BitGrid}, which contain the cells beyond
+ * the edges of the grid according to a {@link Topology}.
+ * <p>
+ * The halo covers {@code range} ghost rows above and below the grid and enough
+ * ghost words to cover {@code range} columns left and right of it. The columns
+ * right of the grid continue directly after the last valid column, i.e. they
+ * start in the unused bits of the last word of each row. Only the ghost cells
+ * are materialized: the ghost rows as well as the ghost words and the patched
+ * last word of each loaded row. Thus loading costs O(rows + range * cols)
+ * instead of copying the grid, and kernels read the interior words of a row
+ * directly from the grid via {@link #words(int)} and {@link #offset(int)}, the
+ * words at the edges via {@link #word(int, int)}.
+ * <p>
+ * On a {@link Topology#PLANE plane} all ghost cells are dead, nothing is loaded
+ * at all.
+ *
+ * @author Thomas Neidhart
+ */
+final class Halo {
+
+    private final int range;
+    private final int ghostWords;
+    private final int edgeStride;
+
+    private long[] gridWords;
+    private int    rows;
+    private int    wordsPerRow;
+    private boolean zeroBoundary;
+
+    private long[] zeros     = new long[0];
+    private long[] ghostRows = new long[0];
+    private long[] edges     = new long[0];
+    private int    edgeFromRow;
+
+    private long[] mirrored = new long[0];
+
+    /**
+     * Creates a halo of the given number of ghost rows and columns on each side.
+     */
+    Halo(int range) {
+        this.range      = range;
+        this.ghostWords = (range + 63) >>> 6;
+        this.edgeStride = 2 * ghostWords + 1;
+    }
+
+    /**
+     * Returns the number of ghost words on each side of a row.
+     */
+    int getGhostWords() {
+        return ghostWords;
+    }
+
+    /**
+     * Returns the number of words per row of the loaded grid.
+     */
+    int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Returns the words containing the given row, which may be any row
+     * in range [-range, rows + range). The last word of the row is not
+     * patched with the ghost cells right of the grid.
+     */
+    long[] words(int row) {
+        if (row >= 0 && row < rows) {
+            return gridWords;
+        }
+        return zeroBoundary ? zeros : ghostRows;
+    }
+
+    /**
+     * Returns the index of the first word of the given row within {@link #words(int)}.
+     */
+    int offset(int row) {
+        if (row >= 0 && row < rows) {
+            return row * wordsPerRow;
+        }
+        return zeroBoundary ? 0 : ghostRow(row) * wordsPerRow;
+    }
+
+    /**
+     * Returns the given word of a loaded row, which may be any word in range
+     * [-ghostWords, wordsPerRow + ghostWords). The last word of the row includes
+     * the ghost cells right of the grid in its unused bits.
+     */
+    long word(int row, int w) {
+        if (zeroBoundary) {
+            return row >= 0 && row < rows && w >= 0 && w < wordsPerRow ? gridWords[row * wordsPerRow + w] : 0L;
+        }
+
+        if (w >= 0 && w < wordsPerRow - 1) {
+            return row >= 0 && row < rows ?
+                gridWords[row * wordsPerRow + w] :
+                ghostRows[ghostRow(row) * wordsPerRow + w];
+        }
+
+        int edge = w < 0 ? w + ghostWords : w - wordsPerRow + 1 + ghostWords;
+        return edges[(row - edgeFromRow) * edgeStride + edge];
+    }
+
+    /**
+     * Loads the ghost cells needed to evolve the rows in range
+     * [{@code fromRow}, {@code toRow}) of the given grid.
+     */
+    void load(BitGrid grid, Topology topology, int fromRow, int toRow) {
+        gridWords    = grid.words();
+        rows         = grid.getRows();
+        wordsPerRow  = grid.getWordsPerRow();
+        zeroBoundary = !topology.wrapsColumns();
+
+        if (zeroBoundary) {
+            if (zeros.length != wordsPerRow) {
+                zeros = new long[wordsPerRow];
+            }
+            return;
+        }
+
+        // the ghost rows are only needed by the rows at the top and bottom of the grid.
+        boolean needsGhostRows = fromRow - range < 0 || toRow + range > rows;
+        if (needsGhostRows && ghostRows.length != 2 * range * wordsPerRow) {
+            ghostRows = new long[2 * range * wordsPerRow];
+        }
+
+        int edgeRows = toRow - fromRow + 2 * range;
+        if (edges.length < edgeRows * edgeStride) {
+            edges = new long[edgeRows * edgeStride];
+        }
+        edgeFromRow = fromRow - range;
+
+        int cols = grid.getCols();
+        int tail = cols & 63;
+
+        for (int row = edgeFromRow, offset = 0; row < toRow + range; row++, offset += edgeStride) {
+            if (row < 0 || row >= rows) {
+                loadGhostRow(grid, topology, row);
+            }
+
+            long[] source       = words(row);
+            int    sourceOffset = offset(row);
+
+            for (int w = -ghostWords; w < 0; w++) {
+                edges[offset + w + ghostWords] = ghostWord(source, sourceOffset, wordsPerRow, cols, w, true);
+            }
+
+            long lastWord = source[sourceOffset + wordsPerRow - 1];
+            if (tail != 0) {
+                lastWord |= extract(source, sourceOffset, wordsPerRow, cols, 0) << tail;
+            }
+            edges[offset + ghostWords] = lastWord;
+
+            for (int w = wordsPerRow; w < wordsPerRow + ghostWords; w++) {
+                edges[offset + w - wordsPerRow + 1 + ghostWords] = ghostWord(source, sourceOffset, wordsPerRow, cols, w, true);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the given row outside of the grid within the ghost rows.
+     */
+    private int ghostRow(int row) {
+        return row < 0 ? row + range : row - rows + range;
+    }
+
+    private void loadGhostRow(BitGrid grid, Topology topology, int row) {
+        int offset = ghostRow(row) * wordsPerRow;
+        if (topology.isMirrored(row, rows)) {
+            mirror(grid, Math.floorMod(row, rows));
+            System.arraycopy(mirrored, 0, ghostRows, offset, wordsPerRow);
+        } else {
+            System.arraycopy(gridWords, Math.floorMod(row, rows) * wordsPerRow, ghostRows, offset, wordsPerRow);
+        }
+    }
+
+    /**
+     * Loads the words in range [{@code fromWord}, {@code toWord}) of the rows in range
+     * [{@code fromRow}, {@code toRow}) into the given array, row after row. Rows and
+     * words outside of the grid are filled with ghost cells, the last word of each
+     * row is patched with the ghost cells right of the grid.
+     */
+    void load(BitGrid grid, Topology topology, int fromRow, int toRow, int fromWord, int toWord, long[] dest) {
+        int width = toWord - fromWord;
+        for (int row = fromRow, offset = 0; row < toRow; row++, offset += width) {
+            loadRow(grid, topology, row, fromWord, toWord, dest, offset);
+        }
+    }
+
+    private void loadRow(BitGrid grid, Topology topology, int row, int fromWord, int toWord, long[] dest, int offset) {
+        int rows        = grid.getRows();
+        int cols        = grid.getCols();
+        int wordsPerRow = grid.getWordsPerRow();
+
+        if (topology == Topology.PLANE && (row < 0 || row >= rows)) {
+            Arrays.fill(dest, offset, offset + toWord - fromWord, 0L);
+            return;
+        }
+
+        int    sourceRow = Math.floorMod(row, rows);
+        long[] source;
+        int    sourceOffset;
+        if (topology.isMirrored(row, rows)) {
+            mirror(grid, sourceRow);
+            source       = mirrored;
+            sourceOffset = 0;
+        } else {
+            source       = grid.words();
+            sourceOffset = sourceRow * wordsPerRow;
+        }
+
+        boolean wraps = topology.wrapsColumns();
+
+        int from = Math.max(fromWord, 0);
+        int to   = Math.min(toWord, wordsPerRow);
+        if (from < to) {
+            System.arraycopy(source, sourceOffset + from, dest, offset + from - fromWord, to - from);
+
+            int tail = cols & 63;
+            if (wraps && tail != 0 && to == wordsPerRow) {
+                dest[offset + to - 1 - fromWord] |= extract(source, sourceOffset, wordsPerRow, cols, 0) << tail;
+            }
+        }
+
+        for (int w = fromWord; w < Math.min(toWord, 0); w++) {
+            dest[offset + w - fromWord] = ghostWord(source, sourceOffset, wordsPerRow, cols, w, wraps);
+        }
+        for (int w = Math.max(fromWord, wordsPerRow); w < toWord; w++) {
+            dest[offset + w - fromWord] = ghostWord(source, sourceOffset, wordsPerRow, cols, w, wraps);
+        }
+    }
+
+    private static long ghostWord(long[] source, int offset, int wordsPerRow, int cols, int w, boolean wraps) {
+        return wraps ? extract(source, offset, wordsPerRow, cols, Math.floorMod(w << 6, cols)) : 0L;
+    }
+
+    /**
+     * Returns 64 consecutive cells of a row starting at the given column,
+     * continuing at the start of the row once its end is reached.
+     */
+    private static long extract(long[] source, int offset, int wordsPerRow, int cols, int col) {
+        long result = 0L;
+        for (int filled = 0; filled < 64; col = 0) {
+            int count = Math.min(64 - filled, cols - col);
+            int w     = col >>> 6;
+            int shift = col & 63;
+
+            long bits = source[offset + w] >>> shift;
+            if (shift != 0 && w + 1 < wordsPerRow) {
+                bits |= source[offset + w + 1] << -shift;
+            }
+            if (count < 64) {
+                bits &= (1L << count) - 1;
+            }
+
+            result |= bits << filled;
+            filled += count;
+        }
+        return result;
+    }
+
+    /**
+     * Stores the given row with reversed columns in the mirror buffer.
+     */
+    private void mirror(BitGrid grid, int row) {
+        long[] source      = grid.words();
+        int    wordsPerRow = grid.getWordsPerRow();
+        int    offset      = row * wordsPerRow;
+
+        if (mirrored.length != wordsPerRow) {
+            mirrored = new long[wordsPerRow];
+        }
+
+        // reversing the words maps column c to 64 * wordsPerRow - 1 - c,
+        // shifting by the unused bits maps it to cols - 1 - c.
+        int padding = 64 * wordsPerRow - grid.getCols();
+        for (int w = 0; w < wordsPerRow; w++) {
+            long low  = Long.reverse(source[offset + wordsPerRow - 1 - w]);
+            long high = w + 1 < wordsPerRow ? Long.reverse(source[offset + wordsPerRow - 2 - w]) : 0L;
+
+            mirrored[w] = padding == 0 ? low : (low >>> padding) | (high << -padding);
+        }
+    }
+}
@@ -0,0 +1,599 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Arrays;
+
+/**
+ * An evolution engine based on Bill Gosper's Hashlife algorithm.
+ * <p>
+ * The state is represented as a quadtree of canonicalized nodes, the evolution
+ * of each node is memoized. This allows to advance repetitive patterns by
+ * {@code 2^k} generations in a single step, see {@link #evolve(BitGrid, BitGrid, long)}.
+ * <p>
+ * The engine treats the grid as a window onto an unbounded plane, cells that
+ * leave the grid continue to evolve outside of it, thus the only supported
+ * topology is {@link Topology#UNBOUNDED}. When the content of the grid is
+ * modified externally, the plane is rebuilt from the grid and any cells
+ * outside of it are discarded.
+ * <p>
+ * Only life-like rules without dying states are supported, where the empty
+ * plane stays empty, i.e. there is no birth on 0 neighbors.
+ * <p>
+ * The memoized nodes are kept in a cache that is garbage collected when it
+ * exceeds a maximum number of nodes. For engines created via
+ * {@link EngineType#HASHLIFE} the maximum is read from the system property
+ * {@value #MAX_NODES_PROPERTY}.
+ *
+ * @author Thomas Neidhart
+ */
+public class HashLifeEngine implements EvolutionEngine {
+
+    /**
+     * The default maximum number of nodes kept in the node cache.
+     */
+    public static final int DEFAULT_MAX_NODES = 1 << 20;
+
+    /**
+     * The system property to configure the maximum number of nodes of engines
+     * created via {@link EngineType#HASHLIFE}.
+     */
+    public static final String MAX_NODES_PROPERTY = "org.netomi.life.hashlife.maxNodes";
+
+    private static final Node DEAD  = new Node(0, 0x5bd1e995);
+    private static final Node ALIVE = new Node(1, 0x1b873593);
+
+    private Rule rule = Rule.CONWAY;
+
+    /**
+     * The next generation of the center 2x2 cells for each possible 4x4 block.
+     */
+    private byte[] level2Results = computeLevel2Results(rule);
+
+    private final NodeCache nodeCache;
+    private final Node[]    emptyNodes = new Node[64];
+
+    private Node   root;
+    private long[] published;
+
+    public HashLifeEngine() {
+        this(DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * Creates a new engine whose maximum number of nodes is read from the
+     * system property {@value #MAX_NODES_PROPERTY}, falling back to
+     * {@link #DEFAULT_MAX_NODES}.
+     *
+     * @throws IllegalArgumentException if the configured value is not a positive number.
+     */
+    static HashLifeEngine configured() {
+        String value = System.getProperty(MAX_NODES_PROPERTY);
+        if (value == null) {
+            return new HashLifeEngine();
+        }
+
+        try {
+            return new HashLifeEngine(Integer.parseInt(value.trim()));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("invalid value of " + MAX_NODES_PROPERTY + ": " + value, ex);
+        }
+    }
+
+    /**
+     * Creates a new engine whose node cache is garbage collected when
+     * it exceeds the given number of nodes.
+     */
+    public HashLifeEngine(int maxNodes) {
+        this.nodeCache = new NodeCache(maxNodes);
+    }
+
+    @Override
+    public String getName() {
+        return "hashlife";
+    }
+
+    @Override
+    public Rule getRule() {
+        return rule;
+    }
+
+    @Override
+    public void setRule(Rule rule) {
+        if (!supports(rule)) {
+            throw new IllegalArgumentException("rule " + rule + " is not supported by the " + getName() + " engine");
+        }
+
+        this.rule     = rule;
+        level2Results = computeLevel2Results(rule);
+
+        // discard the plane together with all memoized results of the previous rule.
+        root      = null;
+        published = null;
+        nodeCache.collectGarbage();
+    }
+
+    @Override
+    public boolean supports(Rule rule) {
+        return rule instanceof LifeLikeRule && rule.getStates() == 2 && !rule.isBorn(0);
+    }
+
+    @Override
+    public Topology getTopology() {
+        return Topology.UNBOUNDED;
+    }
+
+    @Override
+    public void setTopology(Topology topology) {
+        if (!supports(topology)) {
+            throw new IllegalArgumentException("topology " + topology + " is not supported by the " + getName() + " engine");
+        }
+    }
+
+    @Override
+    public boolean supports(Topology topology) {
+        return topology == Topology.UNBOUNDED;
+    }
+
+    public int getNodeCount() {
+        return nodeCache.size;
+    }
+
+    public int getMaxNodes() {
+        return nodeCache.maxNodes;
+    }
+
+    /**
+     * Returns the number of slots of the node cache.
+     */
+    int getNodeCapacity() {
+        return nodeCache.table.length;
+    }
+
+    @Override
+    public void evolve(BitGrid current, BitGrid next) {
+        evolve(current, next, 1);
+    }
+
+    @Override
+    public void evolve(BitGrid current, BitGrid next, BitGrid scratch, long generations) {
+        evolve(current, next, generations);
+    }
+
+    @Override
+    public void evolve(BitGrid current, BitGrid next, long generations) {
+        if (root == null || !Arrays.equals(current.words(), published)) {
+            root = buildRoot(current);
+        }
+
+        for (int k = 0; generations != 0; k++, generations >>>= 1) {
+            if ((generations & 1) != 0) {
+                advance(k);
+            }
+        }
+
+        // the grid is located close to the origin, thus it is sufficient
+        // to write the center of the root, which also avoids overflows.
+        Node window = root;
+        while (window.level > 32) {
+            window = center(window);
+        }
+
+        next.clear();
+        long offset = 1L << (window.level - 1);
+        writeNode(window, -offset, -offset, next);
+
+        if (published == null) {
+            published = new long[next.words().length];
+        }
+        System.arraycopy(next.words(), 0, published, 0, published.length);
+    }
+
+    /**
+     * Advances the plane by {@code 2^k} generations.
+     */
+    private void advance(int k) {
+        if (nodeCache.size > nodeCache.maxNodes) {
+            nodeCache.collectGarbage();
+        }
+
+        // the pattern has to be contained in the center quarter of the root,
+        // so that it can not grow beyond the center of the root after 2^k steps.
+        while (root.level < k + 3 || innerPopulation(root) != root.population) {
+            root = expand(root);
+        }
+
+        root = step(root, k);
+    }
+
+    /**
+     * Returns the center node of the given node, advanced by {@code 2^j} generations.
+     * The resulting node is one level below the given node, {@code j} must be
+     * less than or equal to {@code level - 2}.
+     */
+    private Node step(Node node, int j) {
+        if (node.population == 0) {
+            return empty(node.level - 1);
+        }
+
+        if (node.result != null && node.resultStep == j) {
+            return node.result;
+        }
+
+        Node result;
+        if (node.level == 2) {
+            result = evolveLevel2(node);
+        } else {
+            Node n00 = node.nw;
+            Node n01 = join(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw);
+            Node n02 = node.ne;
+            Node n10 = join(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne);
+            Node n11 = join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+            Node n12 = join(node.ne.sw, node.ne.se, node.se.nw, node.se.ne);
+            Node n20 = node.sw;
+            Node n21 = join(node.sw.ne, node.se.nw, node.sw.se, node.se.sw);
+            Node n22 = node.se;
+
+            // at full speed, both halves advance by 2^(level - 3) generations,
+            // otherwise only the second half advances by 2^j generations.
+            boolean fullSpeed = j == node.level - 2;
+
+            Node r00 = fullSpeed ? step(n00, j - 1) : center(n00);
+            Node r01 = fullSpeed ? step(n01, j - 1) : center(n01);
+            Node r02 = fullSpeed ? step(n02, j - 1) : center(n02);
+            Node r10 = fullSpeed ? step(n10, j - 1) : center(n10);
+            Node r11 = fullSpeed ? step(n11, j - 1) : center(n11);
+            Node r12 = fullSpeed ? step(n12, j - 1) : center(n12);
+            Node r20 = fullSpeed ? step(n20, j - 1) : center(n20);
+            Node r21 = fullSpeed ? step(n21, j - 1) : center(n21);
+            Node r22 = fullSpeed ? step(n22, j - 1) : center(n22);
+
+            int nextStep = fullSpeed ? j - 1 : j;
+
+            result = join(step(join(r00, r01, r10, r11), nextStep),
+                          step(join(r01, r02, r11, r12), nextStep),
+                          step(join(r10, r11, r20, r21), nextStep),
+                          step(join(r11, r12, r21, r22), nextStep));
+        }
+
+        node.result     = result;
+        node.resultStep = j;
+
+        return result;
+    }
+
+    private Node evolveLevel2(Node node) {
+        int bits = 0;
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                if (cell(node, row, col)) {
+                    bits |= 1 << (row * 4 + col);
+                }
+            }
+        }
+
+        int result = level2Results[bits];
+        return join(leaf((result & 1) != 0), leaf((result & 2) != 0),
+                    leaf((result & 4) != 0), leaf((result & 8) != 0));
+    }
+
+    private static boolean cell(Node node, int row, int col) {
+        while (node.level > 0) {
+            int half = 1 << (node.level - 1);
+            if (row < half) {
+                node = col < half ? node.nw : node.ne;
+            } else {
+                node = col < half ? node.sw : node.se;
+            }
+            row &= half - 1;
+            col &= half - 1;
+        }
+        return node == ALIVE;
+    }
+
+    private Node center(Node node) {
+        return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+    }
+
+    private static long innerPopulation(Node node) {
+        return node.nw.se.se.population + node.ne.sw.sw.population +
+               node.sw.ne.ne.population + node.se.nw.nw.population;
+    }
+
+    /**
+     * Returns a node one level above the given node, keeping it centered.
+     */
+    private Node expand(Node node) {
+        Node border = empty(node.level - 1);
+        return join(join(border, border, border, node.nw),
+                    join(border, border, node.ne, border),
+                    join(border, node.sw, border, border),
+                    join(node.se, border, border, border));
+    }
+
+    private Node empty(int level) {
+        if (level == 0) {
+            return DEAD;
+        }
+
+        Node node = emptyNodes[level];
+        if (node == null) {
+            Node child = empty(level - 1);
+            node = join(child, child, child, child);
+            emptyNodes[level] = node;
+        }
+        return node;
+    }
+
+    private static Node leaf(boolean alive) {
+        return alive ? ALIVE : DEAD;
+    }
+
+    private Node join(Node nw, Node ne, Node sw, Node se) {
+        return nodeCache.join(nw, ne, sw, se);
+    }
+
+    /**
+     * Builds the quadtree for the given grid, the top left cell of
+     * the grid is located at the origin of the plane.
+     */
+    private Node buildRoot(BitGrid grid) {
+        int level = 1;
+        while ((1 << level) < Math.max(grid.getRows(), grid.getCols())) {
+            level++;
+        }
+
+        Node border = empty(level);
+        return join(border, border, border, buildNode(grid, level, 0, 0));
+    }
+
+    private Node buildNode(BitGrid grid, int level, int row, int col) {
+        if (row >= grid.getRows() || col >= grid.getCols()) {
+            return empty(level);
+        }
+
+        if (level == 0) {
+            return leaf(grid.get(row, col));
+        }
+
+        if (level == 6 && isEmptyBlock(grid, row, col)) {
+            return empty(level);
+        }
+
+        int half = 1 << (level - 1);
+        return join(buildNode(grid, level - 1, row, col),
+                    buildNode(grid, level - 1, row, col + half),
+                    buildNode(grid, level - 1, row + half, col),
+                    buildNode(grid, level - 1, row + half, col + half));
+    }
+
+    /**
+     * Checks whether the 64x64 block starting at the given position is
+     * empty, the column has to be a multiple of 64.
+     */
+    private static boolean isEmptyBlock(BitGrid grid, int row, int col) {
+        int toRow = Math.min(row + 64, grid.getRows());
+        for (int r = row; r < toRow; r++) {
+            if (grid.getWord(r, col >>> 6) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes all alive cells of the given node that are within the grid.
+     */
+    private static void writeNode(Node node, long row, long col, BitGrid grid) {
+        long size = 1L << node.level;
+        if (node.population == 0 ||
+            row >= grid.getRows() || row + size <= 0 ||
+            col >= grid.getCols() || col + size <= 0) {
+            return;
+        }
+
+        if (node.level == 0) {
+            grid.set((int) row, (int) col, true);
+        } else {
+            long half = size >>> 1;
+            writeNode(node.nw, row, col, grid);
+            writeNode(node.ne, row, col + half, grid);
+            writeNode(node.sw, row + half, col, grid);
+            writeNode(node.se, row + half, col + half, grid);
+        }
+    }
+
+    private static byte[] computeLevel2Results(Rule rule) {
+        byte[] results = new byte[1 << 16];
+        for (int bits = 0; bits < results.length; bits++) {
+            int result = 0;
+            int i      = 0;
+            for (int row = 1; row <= 2; row++) {
+                for (int col = 1; col <= 2; col++, i++) {
+                    int aliveNeighbors = 0;
+                    for (int dr = -1; dr <= 1; dr++) {
+                        for (int dc = -1; dc <= 1; dc++) {
+                            if ((dr != 0 || dc != 0) && (bits & (1 << ((row + dr) * 4 + col + dc))) != 0) {
+                                aliveNeighbors++;
+                            }
+                        }
+                    }
+
+                    boolean alive = (bits & (1 << (row * 4 + col))) != 0;
+                    if (alive ? rule.survives(aliveNeighbors) : rule.isBorn(aliveNeighbors)) {
+                        result |= 1 << i;
+                    }
+                }
+            }
+            results[bits] = (byte) result;
+        }
+        return results;
+    }
+
+    /**
+     * A canonical quadtree node, two nodes with identical children are
+     * guaranteed to be the same instance.
+     */
+    private static final class Node {
+        final Node nw;
+        final Node ne;
+        final Node sw;
+        final Node se;
+
+        final int  level;
+        final long population;
+        final int  hash;
+
+        Node result;
+        int  resultStep;
+
+        Node(long population, int hash) {
+            this.nw = this.ne = this.sw = this.se = null;
+
+            this.level      = 0;
+            this.population = population;
+            this.hash       = hash;
+        }
+
+        Node(Node nw, Node ne, Node sw, Node se, int hash) {
+            this.nw = nw;
+            this.ne = ne;
+            this.sw = sw;
+            this.se = se;
+
+            this.level      = nw.level + 1;
+            this.population = nw.population + ne.population + sw.population + se.population;
+            this.hash       = hash;
+        }
+    }
+
+    /**
+     * An open-addressing hash table holding all canonical nodes.
+     */
+    private final class NodeCache {
+        private static final int MIN_CAPACITY = 1 << 10;
+
+        private final int maxNodes;
+
+        private Node[] table;
+        private int    size;
+
+        NodeCache(int maxNodes) {
+            if (maxNodes <= 0) {
+                throw new IllegalArgumentException("maxNodes must be positive.");
+            }
+
+            this.maxNodes = maxNodes;
+            this.table    = new Node[MIN_CAPACITY];
+        }
+
+        Node join(Node nw, Node ne, Node sw, Node se) {
+            int hash = hash(nw, ne, sw, se);
+            int mask = table.length - 1;
+
+            int index = hash & mask;
+            for (Node node = table[index]; node != null; node = table[index]) {
+                if (node.nw == nw && node.ne == ne && node.sw == sw && node.se == se) {
+                    return node;
+                }
+                index = (index + 1) & mask;
+            }
+
+            Node node = new Node(nw, ne, sw, se, hash);
+            table[index] = node;
+
+            if (++size > table.length >>> 1) {
+                resize(table.length << 1);
+            }
+            return node;
+        }
+
+        /**
+         * Discards all nodes that are not reachable from the current root
+         * together with all memoized results, the table is shrunk afterwards
+         * if most of it is unused.
+         */
+        void collectGarbage() {
+            table = new Node[table.length];
+            size  = 0;
+
+            if (root != null) {
+                retain(root);
+            }
+
+            for (Node node : emptyNodes) {
+                if (node != null) {
+                    retain(node);
+                }
+            }
+
+            int capacity = MIN_CAPACITY;
+            while (capacity >>> 1 < size) {
+                capacity <<= 1;
+            }
+            if (capacity < table.length) {
+                resize(capacity);
+            }
+        }
+
+        private void retain(Node node) {
+            if (node.level == 0 || !insert(node)) {
+                return;
+            }
+
+            node.result = null;
+
+            retain(node.nw);
+            retain(node.ne);
+            retain(node.sw);
+            retain(node.se);
+        }
+
+        private boolean insert(Node node) {
+            int mask  = table.length - 1;
+            int index = node.hash & mask;
+            for (Node n = table[index]; n != null; n = table[index]) {
+                if (n == node) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+
+            table[index] = node;
+            size++;
+            return true;
+        }
+
+        private void resize(int capacity) {
+            Node[] oldTable = table;
+
+            table = new Node[capacity];
+            size  = 0;
+
+            for (Node node : oldTable) {
+                if (node != null) {
+                    insert(node);
+                }
+            }
+        }
+
+        private int hash(Node nw, Node ne, Node sw, Node se) {
+            int hash = nw.hash * 0x9e3779b1 + ne.hash * 0x85ebca77 + sw.hash * 0xc2b2ae3d + se.hash * 0x27d4eb2f;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * A rolling hash over the state hashes of a number of consecutive generations.
+ * <p>
+ * The alive cells do not fully describe the state of an automaton with a
+ * multi-state rule, but the dying cells are determined by the alive cells of
+ * the previous {@code states - 2} generations. Thus two generations are equal
+ * if the hashes of the last {@code states - 1} generations are equal.
+ *
+ * @author Thomas Neidhart
+ */
+final class HistoryHash {
+
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final long[] hashes;
+    private final long   oldestFactor;
+
+    private int  head;
+    private int  size;
+    private long value;
+
+    HistoryHash(int length) {
+        hashes = new long[length];
+
+        long factor = 1;
+        for (int i = 0; i < length; i++) {
+            factor *= MULTIPLIER;
+        }
+        oldestFactor = factor;
+    }
+
+    void reset() {
+        head  = 0;
+        size  = 0;
+        value = 0;
+    }
+
+    /**
+     * Adds the hash of the next generation.
+     *
+     * @return whether the hashes of enough generations have been added.
+     */
+    boolean add(long hash) {
+        value = value * MULTIPLIER + hash;
+
+        if (size == hashes.length) {
+            value -= hashes[head] * oldestFactor;
+            hashes[head] = hash;
+            head = (head + 1) % hashes.length;
+        } else {
+            hashes[(head + size) % hashes.length] = hash;
+            size++;
+        }
+
+        return size == hashes.length;
+    }
+
+    /**
+     * Returns the combined hash of the latest generations.
+     */
+    long get() {
+        return value;
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A journal of the generations of a {@link CellularAutomaton}, which allows
+ * to go back to any recorded generation, see {@link CellularAutomaton#setJournal(HistoryJournal)}.
+ * <p>
+ * Generations are recorded as deltas to their predecessor. Every
+ * {@code keyframeInterval} entries a keyframe containing the full state is
+ * recorded as well, thus a generation can be restored by applying a bounded
+ * number of deltas to the preceding keyframe.
+ * <p>
+ * A keyframe and its deltas form a group. At most {@code capacity} entries
+ * are kept in memory, if exceeded the oldest groups are either appended to a
+ * spill file, if configured, or discarded otherwise. Failures to write the
+ * spill file while recording are reported as {@link UncheckedIOException}.
+ *
+ * @author Thomas Neidhart
+ */
+public final class HistoryJournal {
+
+    private final int  capacity;
+    private final int  keyframeInterval;
+    private final File spillFile;
+
+    private int  rows;
+    private int  cols;
+    private int  wordsPerRow;
+
+    private final List<Group>        groups        = new ArrayList<>();
+    private final List<SpilledGroup> spilledGroups = new ArrayList<>();
+
+    private int         entryCount;
+    private FileChannel spillChannel;
+    private long        spillSize;
+
+    /**
+     * Creates a journal keeping all entries in memory, the oldest ones are discarded
+     * if the capacity is exceeded.
+     */
+    public HistoryJournal(int capacity, int keyframeInterval) {
+        this(capacity, keyframeInterval, null);
+    }
+
+    /**
+     * Creates a journal spilling the oldest entries to the given file if the
+     * capacity is exceeded, any existing content of the file is overwritten.
+     */
+    public HistoryJournal(int capacity, int keyframeInterval, File spillFile) {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("keyframe interval must be positive.");
+        }
+        if (capacity < keyframeInterval) {
+            throw new IllegalArgumentException("capacity must not be less than the keyframe interval.");
+        }
+
+        this.capacity         = capacity;
+        this.keyframeInterval = keyframeInterval;
+        this.spillFile        = spillFile;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Returns the number of entries currently held in memory.
+     */
+    public synchronized int getSize() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the number of groups that have been spilled to disk.
+     */
+    public synchronized int getSpilledGroupCount() {
+        return spilledGroups.size();
+    }
+
+    /**
+     * Returns the oldest generation that can be restored.
+     */
+    public synchronized long getFirstGeneration() {
+        if (!spilledGroups.isEmpty()) {
+            return spilledGroups.get(0).generation;
+        }
+        checkStarted();
+        return groups.get(0).generation;
+    }
+
+    /**
+     * Returns the latest recorded generation.
+     */
+    public synchronized long getLastGeneration() {
+        checkStarted();
+        return groups.get(groups.size() - 1).getLastGeneration();
+    }
+
+    /**
+     * Restores the state of the given generation. If edits have been recorded
+     * for the generation, the state after the last edit is returned.
+     *
+     * @throws IllegalArgumentException if the generation is outside the recorded range.
+     * @throws IOException if the generation has to be read from the spill file and that failed.
+     */
+    public synchronized BitGrid seek(long generation) throws IOException {
+        if (generation < getFirstGeneration() || generation > getLastGeneration()) {
+            throw new IllegalArgumentException("generation " + generation + " has not been recorded.");
+        }
+
+        Group group = findGroup(generation);
+
+        BitGrid state = new BitGrid(rows, cols);
+        state.setWords(0, rows, LongBuffer.wrap(group.keyframe));
+
+        for (Delta delta : group.deltas) {
+            if (delta.generation > generation) {
+                break;
+            }
+            delta.changes.applyTo(state);
+        }
+        return state;
+    }
+
+    /**
+     * Closes the spill file, the journal must not be used afterwards.
+     */
+    public synchronized void close() throws IOException {
+        if (spillChannel != null) {
+            spillChannel.close();
+            spillChannel = null;
+        }
+    }
+
+    /**
+     * Discards all entries and starts a new history with the given state.
+     */
+    synchronized void start(BitGrid state, long generation) {
+        rows        = state.getRows();
+        cols        = state.getCols();
+        wordsPerRow = state.getWordsPerRow();
+
+        groups.clear();
+        spilledGroups.clear();
+        entryCount = 0;
+        spillSize  = 0;
+
+        if (spillChannel != null) {
+            try {
+                spillChannel.truncate(0);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        addGroup(state, generation);
+    }
+
+    /**
+     * Records the changes that led to the given state of the given generation.
+     */
+    synchronized void record(long generation, ChangeSet changes, BitGrid state) {
+        checkStarted();
+
+        Group current = groups.get(groups.size() - 1);
+        if (current.deltas.size() + 1 >= keyframeInterval) {
+            addGroup(state, generation);
+        } else {
+            current.deltas.add(new Delta(generation, changes));
+            entryCount++;
+        }
+
+        while (entryCount > capacity && groups.size() > 1) {
+            Group oldest = groups.remove(0);
+            entryCount -= oldest.size();
+
+            if (spillFile != null) {
+                spill(oldest);
+            }
+        }
+    }
+
+    /**
+     * Discards all entries recorded after the given generation.
+     */
+    synchronized void truncate(long generation) throws IOException {
+        while (!groups.isEmpty() && groups.get(groups.size() - 1).generation > generation) {
+            entryCount -= groups.remove(groups.size() - 1).size();
+        }
+
+        if (groups.isEmpty()) {
+            // the generation is only available in the spill file, move its group back to memory.
+            SpilledGroup spilled = spilledGroups.get(findSpilledGroup(generation));
+            groups.add(readSpilledGroup(spilled));
+            entryCount += groups.get(0).size();
+
+            while (spilledGroups.get(spilledGroups.size() - 1) != spilled) {
+                spilledGroups.remove(spilledGroups.size() - 1);
+            }
+            spilledGroups.remove(spilledGroups.size() - 1);
+
+            spillSize = spilled.offset;
+            spillChannel.truncate(spillSize);
+        }
+
+        List<Delta> deltas = groups.get(groups.size() - 1).deltas;
+        while (!deltas.isEmpty() && deltas.get(deltas.size() - 1).generation > generation) {
+            deltas.remove(deltas.size() - 1);
+            entryCount--;
+        }
+    }
+
+    private void addGroup(BitGrid state, long generation) {
+        long[] keyframe = new long[rows * wordsPerRow];
+        state.getWords(0, rows, LongBuffer.wrap(keyframe));
+
+        groups.add(new Group(generation, keyframe));
+        entryCount++;
+    }
+
+    private void checkStarted() {
+        if (groups.isEmpty()) {
+            throw new IllegalStateException("journal is not attached to an automaton.");
+        }
+    }
+
+    private Group findGroup(long generation) throws IOException {
+        for (int i = groups.size() - 1; i >= 0; i--) {
+            if (groups.get(i).generation <= generation) {
+                return groups.get(i);
+            }
+        }
+        return readSpilledGroup(spilledGroups.get(findSpilledGroup(generation)));
+    }
+
+    /**
+     * Returns the index of the last spilled group starting at or before the given generation.
+     */
+    private int findSpilledGroup(long generation) {
+        int low  = 0;
+        int high = spilledGroups.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (spilledGroups.get(mid).generation <= generation) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private void spill(Group group) {
+        ByteBuffer buffer = group.encode();
+        try {
+            if (spillChannel == null) {
+                spillChannel = FileChannel.open(spillFile.toPath(),
+                                                StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING,
+                                                StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE);
+            }
+
+            long offset = spillSize;
+            while (buffer.hasRemaining()) {
+                spillSize += spillChannel.write(buffer, spillSize);
+            }
+            spilledGroups.add(new SpilledGroup(group.generation, offset, buffer.limit()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Group readSpilledGroup(SpilledGroup spilled) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(spilled.length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (spillChannel.read(buffer, spilled.offset + buffer.position()) < 0) {
+                throw new IOException("unexpected end of spill file: " + spillFile);
+            }
+        }
+        buffer.flip();
+        return Group.decode(buffer, wordsPerRow, rows * wordsPerRow);
+    }
+
+    private static final class Delta {
+        private final long      generation;
+        private final ChangeSet changes;
+
+        Delta(long generation, ChangeSet changes) {
+            this.generation = generation;
+            this.changes    = changes;
+        }
+    }
+
+    /**
+     * A keyframe together with the deltas recorded up to the next keyframe.
+     */
+    private static final class Group {
+        private final long        generation;
+        private final long[]      keyframe;
+        private final List<Delta> deltas = new ArrayList<>();
+
+        Group(long generation, long[] keyframe) {
+            this.generation = generation;
+            this.keyframe   = keyframe;
+        }
+
+        int size() {
+            return 1 + deltas.size();
+        }
+
+        long getLastGeneration() {
+            return deltas.isEmpty() ? generation : deltas.get(deltas.size() - 1).generation;
+        }
+
+        /**
+         * Encodes the group in little-endian byte order as
+         * <pre>
+         * generation long, keyframe words, delta count int,
+         * for each delta: generation long, word count int,
+         *                 for each word: index int, changed bits long, alive bits long
+         * </pre>
+         */
+        ByteBuffer encode() {
+            long size = Long.BYTES + (long) keyframe.length * Long.BYTES + Integer.BYTES;
+            for (Delta delta : deltas) {
+                size += Long.BYTES + Integer.BYTES +
+                        (long) delta.changes.getWordCount() * (Integer.BYTES + 2 * Long.BYTES);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size)).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(generation);
+            buffer.asLongBuffer().put(keyframe);
+            buffer.position(buffer.position() + keyframe.length * Long.BYTES);
+
+            buffer.putInt(deltas.size());
+            for (Delta delta : deltas) {
+                ChangeSet changes = delta.changes;
+                buffer.putLong(delta.generation);
+                buffer.putInt(changes.getWordCount());
+                for (int i = 0; i < changes.getWordCount(); i++) {
+                    buffer.putInt(changes.getWordIndex(i));
+                    buffer.putLong(changes.getChangedBits(i));
+                    buffer.putLong(changes.getAliveBits(i));
+                }
+            }
+
+            buffer.flip();
+            return buffer;
+        }
+
+        static Group decode(ByteBuffer buffer, int wordsPerRow, int keyframeLength) {
+            long   generation = buffer.getLong();
+            long[] keyframe   = new long[keyframeLength];
+            buffer.asLongBuffer().get(keyframe);
+            buffer.position(buffer.position() + keyframeLength * Long.BYTES);
+
+            Group group = new Group(generation, keyframe);
+
+            int deltaCount = buffer.getInt();
+            for (int d = 0; d < deltaCount; d++) {
+                long deltaGeneration = buffer.getLong();
+                int  wordCount       = buffer.getInt();
+
+                int[]  wordIndices = new int[wordCount];
+                long[] changedBits = new long[wordCount];
+                long[] aliveBits   = new long[wordCount];
+                for (int i = 0; i < wordCount; i++) {
+                    wordIndices[i] = buffer.getInt();
+                    changedBits[i] = buffer.getLong();
+                    aliveBits[i]   = buffer.getLong();
+                }
+
+                group.deltas.add(new Delta(deltaGeneration,
+                                           ChangeSet.of(wordsPerRow, wordIndices, changedBits, aliveBits)));
+            }
+            return group;
+        }
+    }
+
+    private static final class SpilledGroup {
+        private final long generation;
+        private final long offset;
+        private final int  length;
+
+        SpilledGroup(long generation, long offset, int length) {
+            this.generation = generation;
+            this.offset     = offset;
+            this.length     = length;
+        }
+    }
+}
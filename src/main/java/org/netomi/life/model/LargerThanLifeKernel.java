@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Arrays;
+
+/**
+ * The compiled form of a {@link LargerThanLifeRule}.
+ * <p>
+ * The neighbor counts of a row are computed from sliding window sums: for the
+ * Moore neighborhood, the number of alive cells per column within the range
+ * of rows is updated incrementally from row to row and then summed up over
+ * the range of columns, which costs O(1) per cell independent of the range.
+ * The von Neumann neighborhood sums up the rows of the diamond individually
+ * using prefix sums, i.e. O(range) per cell.
+ * <p>
+ * The sums are taken over the rows extended by {@code range} ghost columns
+ * on both sides as provided by the {@link Halo}, thus the windows never have
+ * to be clipped at the edges of the grid.
+ * <p>
+ * The dying cells of multi-state rules are tracked in {@link DecayPlanes}.
+ *
+ * @author Thomas Neidhart
+ */
+final class LargerThanLifeKernel extends RuleKernel {
+
+    private final int     range;
+    private final boolean includeCenter;
+    private final boolean vonNeumann;
+    private final int     survivalMin;
+    private final int     survivalMax;
+    private final int     birthMin;
+    private final int     birthMax;
+
+    private final DecayPlanes decayPlanes;
+
+    LargerThanLifeKernel(LargerThanLifeRule rule) {
+        super(rule.getRange());
+
+        range         = rule.getRange();
+        includeCenter = rule.isCenterIncluded();
+        vonNeumann    = rule.isVonNeumann();
+        survivalMin   = rule.getSurvivalMin();
+        survivalMax   = rule.getSurvivalMax();
+        birthMin      = rule.getBirthMin();
+        birthMax      = rule.getBirthMax();
+
+        decayPlanes = rule.getStates() > 2 ? new DecayPlanes(rule.getStates()) : null;
+    }
+
+    @Override
+    void prepare(BitGrid current) {
+        if (decayPlanes != null) {
+            decayPlanes.prepare(current);
+        }
+    }
+
+    @Override
+    void evolveRows(Halo halo, BitGrid current, BitGrid next, int fromRow, int toRow) {
+        int cols = current.getCols();
+
+        // the sums cover the columns in range [-range, cols + range).
+        int[] counts     = new int[cols];
+        int[] prefixSums = new int[cols + 2 * range + 1];
+        int[] columnSums = new int[cols + 2 * range];
+
+        if (!vonNeumann) {
+            for (int row = fromRow - range; row <= fromRow + range; row++) {
+                addRow(halo, row, columnSums, 1);
+            }
+        }
+
+        for (int row = fromRow; row < toRow; row++) {
+            if (vonNeumann) {
+                countVonNeumann(halo, row, columnSums, counts, prefixSums);
+            } else {
+                if (row > fromRow) {
+                    addRow(halo, row + range, columnSums, 1);
+                    addRow(halo, row - range - 1, columnSums, -1);
+                }
+                countMoore(columnSums, counts, prefixSums);
+            }
+
+            evolveRow(current, next, row, counts);
+        }
+    }
+
+    /**
+     * Adds the cells of the given row within the range of columns covered by the sums.
+     */
+    private void addRow(Halo halo, int row, int[] columnSums, int delta) {
+        long[] words    = halo.words(row);
+        int    offset   = halo.offset(row);
+        int    lastWord = halo.getWordsPerRow() - 1;
+        int    limit    = columnSums.length - range;
+
+        for (int w = -halo.getGhostWords(); (w << 6) < limit; w++) {
+            long word = w >= 0 && w < lastWord ? words[offset + w] : halo.word(row, w);
+            while (word != 0) {
+                int col = (w << 6) + Long.numberOfTrailingZeros(word);
+                if (col >= -range && col < limit) {
+                    columnSums[col + range] += delta;
+                }
+                word &= word - 1;
+            }
+        }
+    }
+
+    private void countMoore(int[] columnSums, int[] counts, int[] prefixSums) {
+        for (int col = 0; col < columnSums.length; col++) {
+            prefixSums[col + 1] = prefixSums[col] + columnSums[col];
+        }
+
+        for (int col = 0; col < counts.length; col++) {
+            counts[col] = prefixSums[col + 2 * range + 1] - prefixSums[col];
+        }
+    }
+
+    private void countVonNeumann(Halo halo, int row, int[] columnSums, int[] counts, int[] prefixSums) {
+        Arrays.fill(counts, 0);
+
+        for (int r = row - range; r <= row + range; r++) {
+            int width = range - Math.abs(r - row);
+
+            Arrays.fill(columnSums, 0);
+            addRow(halo, r, columnSums, 1);
+            for (int col = 0; col < columnSums.length; col++) {
+                prefixSums[col + 1] = prefixSums[col] + columnSums[col];
+            }
+
+            for (int col = 0; col < counts.length; col++) {
+                counts[col] += prefixSums[col + range + width + 1] - prefixSums[col + range - width];
+            }
+        }
+    }
+
+    private void evolveRow(BitGrid current, BitGrid next, int row, int[] counts) {
+        long[] currentWords = current.words();
+        long[] nextWords    = next.words();
+
+        int cols        = current.getCols();
+        int wordsPerRow = current.getWordsPerRow();
+        int offset      = row * wordsPerRow;
+
+        for (int w = 0; w < wordsPerRow; w++) {
+            long alive    = currentWords[offset + w];
+            long nextWord = 0L;
+
+            int bits = Math.min(64, cols - (w << 6));
+            for (int bit = 0; bit < bits; bit++) {
+                int count = counts[(w << 6) + bit];
+
+                boolean nextState;
+                if ((alive & (1L << bit)) != 0) {
+                    if (!includeCenter) {
+                        count--;
+                    }
+                    nextState = count >= survivalMin && count <= survivalMax;
+                } else {
+                    nextState = count >= birthMin && count <= birthMax;
+                }
+
+                if (nextState) {
+                    nextWord |= 1L << bit;
+                }
+            }
+
+            if (decayPlanes != null) {
+                nextWord = decayPlanes.evolve(offset + w, alive, nextWord);
+            }
+            nextWords[offset + w] = nextWord;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Locale;
+
+/**
+ * A Larger than Life rule, an outer totalistic rule on an extended neighborhood
+ * where births and survivals are determined by ranges of neighbor counts.
+ * <p>
+ * The notation follows Golly, e.g. {@code R5,C0,M1,S34..58,B34..45,NM}:
+ * <ul>
+ * <li>{@code R}: the range of the neighborhood, from 1 to {@link #MAX_RANGE}.</li>
+ * <li>{@code C}: the number of states, values below 3 denote a rule without dying states.</li>
+ * <li>{@code M}: whether the cell itself is counted as its neighbor (1) or not (0).</li>
+ * <li>{@code S} and {@code B}: the inclusive ranges of counts for survival and birth.</li>
+ * <li>{@code N}: the neighborhood, {@code M} for Moore or {@code N} for von Neumann.</li>
+ * </ul>
+ *
+ * @author Thomas Neidhart
+ */
+public final class LargerThanLifeRule extends Rule {
+
+    public static final int MAX_RANGE = 500;
+
+    private final int     range;
+    private final int     states;
+    private final boolean includeCenter;
+    private final boolean vonNeumann;
+    private final int     survivalMin;
+    private final int     survivalMax;
+    private final int     birthMin;
+    private final int     birthMax;
+
+    private final String notation;
+
+    LargerThanLifeRule(int range, int states, boolean includeCenter, boolean vonNeumann,
+                       int survivalMin, int survivalMax, int birthMin, int birthMax) {
+        if (range < 1 || range > MAX_RANGE) {
+            throw new IllegalArgumentException("range must be between 1 and " + MAX_RANGE);
+        }
+        if (states < 0 || states > LifeLikeRule.MAX_STATES) {
+            throw new IllegalArgumentException("number of states must be between 0 and " + LifeLikeRule.MAX_STATES);
+        }
+        if (survivalMin < 0 || survivalMin > survivalMax || birthMin < 0 || birthMin > birthMax) {
+            throw new IllegalArgumentException("invalid count range");
+        }
+
+        this.range         = range;
+        this.states        = Math.max(2, states);
+        this.includeCenter = includeCenter;
+        this.vonNeumann    = vonNeumann;
+        this.survivalMin   = survivalMin;
+        this.survivalMax   = survivalMax;
+        this.birthMin      = birthMin;
+        this.birthMax      = birthMax;
+
+        this.notation = String.format(Locale.ROOT, "R%d,C%d,M%d,S%d..%d,B%d..%d,N%c",
+                                      range, this.states > 2 ? this.states : 0, includeCenter ? 1 : 0,
+                                      survivalMin, survivalMax, birthMin, birthMax, vonNeumann ? 'N' : 'M');
+    }
+
+    /**
+     * Parses a rule in the notation of Golly, the input is expected in upper case.
+     */
+    static LargerThanLifeRule parseNotation(String notation) {
+        String[] parts = notation.split(",", -1);
+        if (parts.length != 6) {
+            throw new IllegalArgumentException("expected R,C,M,S,B,N notation");
+        }
+
+        int range  = Integer.parseInt(expect(parts[0], "R"));
+        int states = Integer.parseInt(expect(parts[1], "C"));
+
+        String center = expect(parts[2], "M");
+        if (!center.equals("0") && !center.equals("1")) {
+            throw new IllegalArgumentException("M must be 0 or 1");
+        }
+
+        int[] survival = parseRange(expect(parts[3], "S"));
+        int[] birth    = parseRange(expect(parts[4], "B"));
+
+        String neighborhood = expect(parts[5], "N");
+        if (!neighborhood.equals("M") && !neighborhood.equals("N")) {
+            throw new IllegalArgumentException("unsupported neighborhood '" + neighborhood + "'");
+        }
+
+        return new LargerThanLifeRule(range, states, center.equals("1"), neighborhood.equals("N"),
+                                      survival[0], survival[1], birth[0], birth[1]);
+    }
+
+    private static String expect(String part, String prefix) {
+        if (!part.startsWith(prefix)) {
+            throw new IllegalArgumentException("'" + prefix + "' expected instead of '" + part + "'");
+        }
+        return part.substring(prefix.length());
+    }
+
+    private static int[] parseRange(String range) {
+        int separator = range.indexOf("..");
+        if (separator < 0) {
+            throw new IllegalArgumentException("invalid count range '" + range + "'");
+        }
+        return new int[] { Integer.parseInt(range.substring(0, separator)),
+                           Integer.parseInt(range.substring(separator + 2)) };
+    }
+
+    @Override
+    public String getNotation() {
+        return notation;
+    }
+
+    @Override
+    public int getStates() {
+        return states;
+    }
+
+    @Override
+    public int getRange() {
+        return range;
+    }
+
+    public boolean isCenterIncluded() {
+        return includeCenter;
+    }
+
+    public boolean isVonNeumann() {
+        return vonNeumann;
+    }
+
+    int getSurvivalMin() {
+        return survivalMin;
+    }
+
+    int getSurvivalMax() {
+        return survivalMax;
+    }
+
+    int getBirthMin() {
+        return birthMin;
+    }
+
+    int getBirthMax() {
+        return birthMax;
+    }
+
+    @Override
+    public boolean isBorn(int neighbors) {
+        return neighbors >= birthMin && neighbors <= birthMax;
+    }
+
+    @Override
+    public boolean survives(int neighbors) {
+        return neighbors >= survivalMin && neighbors <= survivalMax;
+    }
+
+    @Override
+    int countNeighbors(BitGrid grid, Topology topology, int row, int col) {
+        int count = 0;
+        for (int r = row - range; r <= row + range; r++) {
+            int width = vonNeumann ? range - Math.abs(r - row) : range;
+            for (int c = col - width; c <= col + width; c++) {
+                if ((r != row || c != col || includeCenter) && topology.isAlive(grid, r, c)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    RuleKernel createKernel() {
+        return new LargerThanLifeKernel(this);
+    }
+}
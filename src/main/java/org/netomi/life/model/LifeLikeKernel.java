@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * The compiled form of a {@link LifeLikeRule}, which evolves 64 cells at once by
+ * counting their neighbors with bitwise adder logic.
+ * <p>
+ * The neighbor counts are accumulated as bit-sliced binary numbers, the next
+ * state is then selected by a multiplexer tree over the bits of the count,
+ * whose leaves are precomputed masks for each possible count. Thus any rule is
+ * evaluated with the same fixed number of word operations, for Conway's rule
+ * a shorter expression is used.
+ * <p>
+ * The dying cells of Generations rules are tracked in {@link DecayPlanes}.
+ *
+ * @author Thomas Neidhart
+ */
+final class LifeLikeKernel extends RuleKernel {
+
+    private final boolean conway;
+
+    // the leaf for count n is born[n] ^ (alive & toggle[n]), i.e. born[n] for
+    // dead and born[n] ^ toggle[n] for alive cells.
+    private final long[] born   = new long[9];
+    private final long[] toggle = new long[9];
+
+    private final DecayPlanes decayPlanes;
+
+    LifeLikeKernel(LifeLikeRule rule) {
+        super(1);
+
+        boolean conway = true;
+        for (int count = 0; count <= 8; count++) {
+            born[count]   = rule.isBorn(count) ? -1L : 0L;
+            toggle[count] = rule.isBorn(count) != rule.survives(count) ? -1L : 0L;
+
+            conway &= rule.isBorn(count) == (count == 3) &&
+                      rule.survives(count) == (count == 2 || count == 3);
+        }
+        this.conway = conway;
+
+        decayPlanes = rule.getStates() > 2 ? new DecayPlanes(rule.getStates()) : null;
+    }
+
+    @Override
+    void prepare(BitGrid current) {
+        if (decayPlanes != null) {
+            decayPlanes.prepare(current);
+        }
+    }
+
+    @Override
+    void evolveRows(Halo halo, BitGrid current, BitGrid next, int fromRow, int toRow) {
+        long[] currentWords = current.words();
+        long[] nextWords    = next.words();
+
+        int  wordsPerRow  = current.getWordsPerRow();
+        int  lastWord     = wordsPerRow - 1;
+        long lastWordMask = current.getLastWordMask();
+
+        for (int row = fromRow; row < toRow; row++) {
+            int offset = row * wordsPerRow;
+
+            evolveEdgeWord(halo, row, 0, currentWords, nextWords, offset);
+            evolveInterior(halo.words(row - 1), halo.offset(row - 1),
+                           currentWords,
+                           halo.words(row + 1), halo.offset(row + 1),
+                           nextWords, offset, wordsPerRow);
+            if (lastWord > 0) {
+                evolveEdgeWord(halo, row, lastWord, currentWords, nextWords, offset);
+            }
+
+            nextWords[offset + lastWord] &= lastWordMask;
+        }
+    }
+
+    /**
+     * Computes the next state of a word at the edge of a row, whose neighbors
+     * may be ghost cells.
+     */
+    private void evolveEdgeWord(Halo halo, int row, int w, long[] current, long[] next, int offset) {
+        long nextWord =
+            evolveWord(halo.word(row - 1, w - 1), halo.word(row - 1, w), halo.word(row - 1, w + 1),
+                       halo.word(row,     w - 1), halo.word(row,     w), halo.word(row,     w + 1),
+                       halo.word(row + 1, w - 1), halo.word(row + 1, w), halo.word(row + 1, w + 1));
+
+        if (decayPlanes != null) {
+            nextWord = decayPlanes.evolve(offset + w, current[offset + w], nextWord);
+        }
+        next[offset + w] = nextWord;
+    }
+
+    /**
+     * Computes the next state of the interior words of a single row, i.e. all
+     * words except the first and the last one, which only have neighbors within the grid.
+     *
+     * @param above         the words containing the row above.
+     * @param aboveOffset   the offset of the row above.
+     * @param current       the current state.
+     * @param below         the words containing the row below.
+     * @param belowOffset   the offset of the row below.
+     * @param next          the array to store the next state.
+     * @param offset        the offset of the row within the current and next state.
+     * @param wordsPerRow   the number of words per row.
+     */
+    private void evolveInterior(long[] above, int aboveOffset,
+                                long[] current,
+                                long[] below, int belowOffset,
+                                long[] next, int offset, int wordsPerRow) {
+
+        for (int w = 1; w < wordsPerRow - 1; w++) {
+            int a = aboveOffset + w;
+            int b = offset + w;
+            int c = belowOffset + w;
+
+            long nextWord =
+                evolveWord(above[a - 1],   above[a],   above[a + 1],
+                           current[b - 1], current[b], current[b + 1],
+                           below[c - 1],   below[c],   below[c + 1]);
+
+            if (decayPlanes != null) {
+                nextWord = decayPlanes.evolve(b, current[b], nextWord);
+            }
+            next[b] = nextWord;
+        }
+    }
+
+    /**
+     * Computes the next state of the word {@code b} given its eight neighboring words,
+     * ignoring any dying cells.
+     * <p>
+     * The neighbor counts of 64 cells are accumulated in parallel as bit-sliced
+     * binary numbers, i.e. bit {@code i} of {@code count0..count3} forms the
+     * number of alive neighbors of the cell at bit position {@code i}.
+     *
+     * @param aW the word left of the word above.
+     * @param a  the word above.
+     * @param aE the word right of the word above.
+     * @param bW the word left of the word.
+     * @param b  the word to evolve.
+     * @param bE the word right of the word.
+     * @param cW the word left of the word below.
+     * @param c  the word below.
+     * @param cE the word right of the word below.
+     * @return the next state of the word.
+     */
+    long evolveWord(long aW, long a, long aE,
+                    long bW, long b, long bE,
+                    long cW, long c, long cE) {
+
+        long aL = (a << 1)  | (aW >>> 63);
+        long aR = (a >>> 1) | (aE << 63);
+
+        long bL = (b << 1)  | (bW >>> 63);
+        long bR = (b >>> 1) | (bE << 63);
+
+        long cL = (c << 1)  | (cW >>> 63);
+        long cR = (c >>> 1) | (cE << 63);
+
+        // row sums: each a value between 0 and 3 (or 0 and 2 for the middle row).
+        long aXor  = aL ^ a;
+        long aOnes = aXor ^ aR;
+        long aTwos = (aL & a) | (aXor & aR);
+
+        long bOnes = bL ^ bR;
+        long bTwos = bL & bR;
+
+        long cXor  = cL ^ c;
+        long cOnes = cXor ^ cR;
+        long cTwos = (cL & c) | (cXor & cR);
+
+        // add up the ones.
+        long onesXor = aOnes ^ bOnes;
+        long count0  = onesXor ^ cOnes;
+        long carry   = (aOnes & bOnes) | (onesXor & cOnes);
+
+        // add up the twos including the carry.
+        long twosXor = aTwos ^ bTwos;
+        long twos    = twosXor ^ cTwos;
+        long fours   = (aTwos & bTwos) | (twosXor & cTwos);
+
+        long count1  = twos ^ carry;
+        long fours2  = twos & carry;
+        long count2  = fours ^ fours2;
+        long count3  = fours & fours2;
+
+        if (conway) {
+            // alive in the next generation: 3 neighbors, or 2 neighbors and alive.
+            return count1 & ~count2 & ~count3 & (count0 | b);
+        }
+
+        return select(b, count0, count1, count2, count3);
+    }
+
+    /**
+     * Selects the leaf of each cell according to its neighbor count, a count
+     * of 8 is the only one with {@code count3} set.
+     */
+    private long select(long b, long count0, long count1, long count2, long count3) {
+        long[] born   = this.born;
+        long[] toggle = this.toggle;
+
+        long l0 = born[0] ^ (b & toggle[0]);
+        long l1 = born[1] ^ (b & toggle[1]);
+        long l2 = born[2] ^ (b & toggle[2]);
+        long l3 = born[3] ^ (b & toggle[3]);
+        long l4 = born[4] ^ (b & toggle[4]);
+        long l5 = born[5] ^ (b & toggle[5]);
+        long l6 = born[6] ^ (b & toggle[6]);
+        long l7 = born[7] ^ (b & toggle[7]);
+        long l8 = born[8] ^ (b & toggle[8]);
+
+        long m01 = l0 ^ (count0 & (l0 ^ l1));
+        long m23 = l2 ^ (count0 & (l2 ^ l3));
+        long m45 = l4 ^ (count0 & (l4 ^ l5));
+        long m67 = l6 ^ (count0 & (l6 ^ l7));
+
+        long m03 = m01 ^ (count1 & (m01 ^ m23));
+        long m47 = m45 ^ (count1 & (m45 ^ m67));
+
+        long m07 = m03 ^ (count2 & (m03 ^ m47));
+
+        return m07 ^ (count3 & (m07 ^ l8));
+    }
+}
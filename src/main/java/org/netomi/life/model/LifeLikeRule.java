@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * An outer totalistic rule on the Moore neighborhood of range 1, optionally
+ * with additional dying states, also known as Generations rule.
+ * <p>
+ * The notation lists the neighbor counts that lead to a birth or let a
+ * cell survive, e.g. {@code B3/S23}, followed by the number of states for
+ * Generations rules, e.g. {@code B2/S/C3}.
+ *
+ * @author Thomas Neidhart
+ */
+public final class LifeLikeRule extends Rule {
+
+    /**
+     * The maximum number of states supported for Generations rules.
+     */
+    public static final int MAX_STATES = 256;
+
+    // bit n is set if n alive neighbors lead to a birth or survival respectively.
+    private final int birth;
+    private final int survival;
+    private final int states;
+
+    private final String notation;
+
+    LifeLikeRule(int birth, int survival, int states) {
+        if (states < 2 || states > MAX_STATES) {
+            throw new IllegalArgumentException("number of states must be between 2 and " + MAX_STATES);
+        }
+
+        this.birth    = birth;
+        this.survival = survival;
+        this.states   = states;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append('B');
+        appendCounts(sb, birth);
+        sb.append("/S");
+        appendCounts(sb, survival);
+        if (states > 2) {
+            sb.append("/C").append(states);
+        }
+        this.notation = sb.toString();
+    }
+
+    /**
+     * Parses a rule in B/S or S/B notation, the input is expected in upper case.
+     */
+    static LifeLikeRule parseNotation(String notation) {
+        String[] parts = notation.split("/", -1);
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("expected B/S or S/B notation");
+        }
+
+        int birth    = -1;
+        int survival = -1;
+        int states   = 2;
+
+        boolean lettered = false;
+        for (String part : parts) {
+            lettered |= !part.isEmpty() && Character.isLetter(part.charAt(0));
+        }
+
+        if (lettered) {
+            for (String part : parts) {
+                if (part.isEmpty()) {
+                    throw new IllegalArgumentException("empty condition");
+                }
+
+                String value = part.substring(1);
+                switch (part.charAt(0)) {
+                    case 'B':
+                        birth = parseCounts(value);
+                        break;
+
+                    case 'S':
+                        survival = parseCounts(value);
+                        break;
+
+                    case 'C':
+                    case 'G':
+                        states = Integer.parseInt(value);
+                        break;
+
+                    default:
+                        throw new IllegalArgumentException("unknown condition '" + part + "'");
+                }
+            }
+
+            if (birth < 0 || survival < 0) {
+                throw new IllegalArgumentException("birth and survival conditions expected");
+            }
+        } else {
+            survival = parseCounts(parts[0]);
+            birth    = parseCounts(parts[1]);
+            if (parts.length == 3) {
+                states = Integer.parseInt(parts[2]);
+            }
+        }
+
+        return new LifeLikeRule(birth, survival, states);
+    }
+
+    private static int parseCounts(String counts) {
+        int mask = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            char c = counts.charAt(i);
+            if (c < '0' || c > '8') {
+                throw new IllegalArgumentException("invalid neighbor count '" + c + "'");
+            }
+            mask |= 1 << (c - '0');
+        }
+        return mask;
+    }
+
+    private static void appendCounts(StringBuilder sb, int mask) {
+        for (int count = 0; count <= 8; count++) {
+            if ((mask & (1 << count)) != 0) {
+                sb.append(count);
+            }
+        }
+    }
+
+    @Override
+    public String getNotation() {
+        return notation;
+    }
+
+    @Override
+    public int getStates() {
+        return states;
+    }
+
+    @Override
+    public int getRange() {
+        return 1;
+    }
+
+    @Override
+    public boolean isBorn(int neighbors) {
+        return neighbors >= 0 && neighbors <= 8 && (birth & (1 << neighbors)) != 0;
+    }
+
+    @Override
+    public boolean survives(int neighbors) {
+        return neighbors >= 0 && neighbors <= 8 && (survival & (1 << neighbors)) != 0;
+    }
+
+    @Override
+    int countNeighbors(BitGrid grid, Topology topology, int row, int col) {
+        int count = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                if ((r != row || c != col) && topology.isAlive(grid, r, c)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    LifeLikeKernel createKernel() {
+        return new LifeLikeKernel(this);
+    }
+}
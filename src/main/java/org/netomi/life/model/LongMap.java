@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A hash map from primitive {@code long} keys to non-null values, which avoids
+ * boxing the keys. Collisions are resolved by linear probing, removed entries
+ * are filled by shifting subsequent entries of the same probe sequence back.
+ *
+ * @author Thomas Neidhart
+ */
+final class LongMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[]   keys;
+    private Object[] values;
+    private int      size;
+    private int      shift;
+
+    LongMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int mask = keys.length - 1;
+        for (int i = index(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Associates the given value with the key.
+     *
+     * @return the previous value of the key, or {@code null} if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        Objects.requireNonNull(value);
+
+        if (2 * (size + 1) > keys.length) {
+            resize(2 * keys.length);
+        }
+
+        int mask = keys.length - 1;
+        int i    = index(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+
+        keys[i]   = key;
+        values[i] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the value of the given key.
+     *
+     * @return the removed value, or {@code null} if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int mask = keys.length - 1;
+        int hole = index(key);
+        while (values[hole] != null && keys[hole] != key) {
+            hole = (hole + 1) & mask;
+        }
+
+        V removed = (V) values[hole];
+        if (removed == null) {
+            return null;
+        }
+        values[hole] = null;
+        size--;
+
+        // move back entries whose probe sequence passes the hole.
+        for (int i = (hole + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = index(keys[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole]   = keys[i];
+                values[hole] = values[i];
+                values[i]    = null;
+                hole         = i;
+            }
+        }
+        return removed;
+    }
+
+    void clear() {
+        if (keys.length > MIN_CAPACITY) {
+            allocate(MIN_CAPACITY);
+        } else {
+            Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+
+    private int index(long key) {
+        // fibonacci hashing spreads consecutive keys over the whole table.
+        return (int) ((key * 0x9e3779b97f4a7c15L) >>> shift);
+    }
+
+    private void allocate(int capacity) {
+        keys   = new long[capacity];
+        values = new Object[capacity];
+        shift  = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private void resize(int capacity) {
+        long[]   oldKeys   = keys;
+        Object[] oldValues = values;
+
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] != null) {
+                int i = index(oldKeys[j]);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i]   = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
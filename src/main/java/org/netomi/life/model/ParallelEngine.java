@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An evolution engine that splits the grid into horizontal bands of rows
+ * and evolves them concurrently on a {@link ForkJoinPool}.
+ * <p>
+ * Each band is evolved with the same {@link RuleKernel} as used by the {@link PackedEngine}.
+ * As the current and next generation are kept in separate grids, bands only
+ * read the halo rows of their neighbors and never write to shared rows.
+ * <p>
+ * Engines created via {@link EngineType#PARALLEL} use the common fork/join pool,
+ * unless a parallelism level is given by the system property
+ * {@value #PARALLELISM_PROPERTY}. In this case, all such engines share a pool
+ * of this level.
+ *
+ * @author Thomas Neidhart
+ */
+public class ParallelEngine implements EvolutionEngine {
+
+    /**
+     * The system property to configure the parallelism level of engines
+     * created via {@link EngineType#PARALLEL}.
+     */
+    public static final String PARALLELISM_PROPERTY = "org.netomi.life.parallel.parallelism";
+
+    // the pools shared by configured engines, by parallelism level. Their worker
+    // threads are daemon threads which terminate when idle, thus the pools are
+    // never shut down.
+    private static final Map<Integer, ForkJoinPool> SHARED_POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * The minimum number of rows in a band, smaller bands do not
+     * amortize the cost of forking a task.
+     */
+    private static final int MIN_BAND_ROWS = 16;
+
+    /**
+     * The number of bands per worker thread, multiple bands per
+     * worker allow for some load balancing via work stealing.
+     */
+    private static final int BANDS_PER_THREAD = 4;
+
+    /**
+     * The maximum parallelism level supported by a {@link ForkJoinPool}.
+     */
+    private static final int MAX_PARALLELISM = 0x7fff;
+
+    private final ForkJoinPool pool;
+
+    private Rule       rule     = Rule.CONWAY;
+    private RuleKernel kernel   = rule.createKernel();
+    private Topology   topology = Topology.PLANE;
+
+    /**
+     * Creates a new engine that uses the common fork/join pool.
+     */
+    public ParallelEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new engine that uses the given pool, which remains owned by the caller.
+     */
+    public ParallelEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Creates a new engine with the parallelism level configured via the system
+     * property {@value #PARALLELISM_PROPERTY}, falling back to the common pool.
+     *
+     * @throws IllegalArgumentException if the configured value is not a positive number.
+     */
+    static ParallelEngine configured() {
+        String value = System.getProperty(PARALLELISM_PROPERTY);
+        if (value == null) {
+            return new ParallelEngine();
+        }
+
+        int parallelism;
+        try {
+            parallelism = Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("invalid value of " + PARALLELISM_PROPERTY + ": " + value, ex);
+        }
+
+        if (parallelism <= 0 || parallelism > MAX_PARALLELISM) {
+            throw new IllegalArgumentException("invalid value of " + PARALLELISM_PROPERTY + ": " + value);
+        }
+        return new ParallelEngine(SHARED_POOLS.computeIfAbsent(parallelism, ForkJoinPool::new));
+    }
+
+    @Override
+    public String getName() {
+        return "parallel";
+    }
+
+    @Override
+    public Rule getRule() {
+        return rule;
+    }
+
+    @Override
+    public void setRule(Rule rule) {
+        this.rule   = rule;
+        this.kernel = rule.createKernel();
+    }
+
+    @Override
+    public boolean supports(Rule rule) {
+        return true;
+    }
+
+    @Override
+    public Topology getTopology() {
+        return topology;
+    }
+
+    @Override
+    public void setTopology(Topology topology) {
+        if (!supports(topology)) {
+            throw new IllegalArgumentException("topology " + topology + " is not supported by the " + getName() + " engine");
+        }
+
+        this.topology = topology;
+    }
+
+    @Override
+    public boolean supports(Topology topology) {
+        return topology.isBounded();
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void evolve(BitGrid current, BitGrid next) {
+        int rows     = current.getRows();
+        int bandRows = Math.max(MIN_BAND_ROWS, rows / (pool.getParallelism() * BANDS_PER_THREAD));
+
+        kernel.prepare(current);
+
+        EvolveBandTask task = new EvolveBandTask(kernel, topology, current, next, 0, rows, bandRows);
+        if (rows <= bandRows) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    /**
+     * Evolves a range of rows, splitting it into bands. Each band loads
+     * the ghost cells it needs into a halo of its own, thus there is no
+     * serial phase apart from preparing the kernel.
+     */
+    private static class EvolveBandTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RuleKernel kernel;
+        private final Topology   topology;
+        private final BitGrid    current;
+        private final BitGrid    next;
+        private final int        fromRow;
+        private final int        toRow;
+        private final int        bandRows;
+
+        EvolveBandTask(RuleKernel kernel, Topology topology, BitGrid current, BitGrid next,
+                       int fromRow, int toRow, int bandRows) {
+            this.kernel   = kernel;
+            this.topology = topology;
+            this.current  = current;
+            this.next     = next;
+            this.fromRow  = fromRow;
+            this.toRow    = toRow;
+            this.bandRows = bandRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= bandRows) {
+                Halo halo = kernel.createHalo();
+                halo.load(current, topology, fromRow, toRow);
+                kernel.evolveRows(halo, current, next, fromRow, toRow);
+            } else {
+                int middleRow = (fromRow + toRow) >>> 1;
+                invokeAll(new EvolveBandTask(kernel, topology, current, next, fromRow, middleRow, bandRows),
+                          new EvolveBandTask(kernel, topology, current, next, middleRow, toRow, bandRows));
+            }
+        }
+    }
+}
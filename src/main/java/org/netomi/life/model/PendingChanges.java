@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the changes made to a grid until they are taken as a single
+ * {@link ChangeSet}.
+ * <p>
+ * The changed bits of each word are combined, thus adding a change set costs
+ * time proportional to its size and taking the accumulated changes costs time
+ * proportional to the number of changed words, not to the size of the grid.
+ *
+ * @author Thomas Neidhart
+ */
+final class PendingChanges {
+
+    private final long[] changedBits;
+
+    // the indices of the words with changed bits, in the order they changed first.
+    private int[] wordIndices = new int[16];
+    private int   size;
+
+    PendingChanges(BitGrid grid) {
+        changedBits = new long[grid.words().length];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds the given changes.
+     */
+    void add(ChangeSet changes) {
+        for (int i = 0; i < changes.getWordCount(); i++) {
+            add(changes.getWordIndex(i), changes.getChangedBits(i));
+        }
+    }
+
+    /**
+     * Marks every cell of the given grid as changed, e.g. after it has been replaced.
+     */
+    void addAll(BitGrid grid) {
+        int wordsPerRow = grid.getWordsPerRow();
+        for (int i = 0; i < changedBits.length; i++) {
+            add(i, (i % wordsPerRow) == wordsPerRow - 1 ? grid.getLastWordMask() : -1L);
+        }
+    }
+
+    /**
+     * Returns the accumulated changes together with the current state of
+     * the given grid and starts accumulating anew.
+     */
+    ChangeSet take(BitGrid grid) {
+        long[] words = grid.words();
+
+        int[] indices = Arrays.copyOf(wordIndices, size);
+        Arrays.sort(indices);
+
+        long[] changed = new long[size];
+        long[] alive   = new long[size];
+        for (int i = 0; i < size; i++) {
+            int index = indices[i];
+            changed[i] = changedBits[index];
+            alive[i]   = words[index];
+
+            changedBits[index] = 0L;
+        }
+
+        size = 0;
+        return ChangeSet.of(grid.getWordsPerRow(), indices, changed, alive);
+    }
+
+    private void add(int index, long bits) {
+        if (bits == 0L) {
+            return;
+        }
+
+        if (changedBits[index] == 0L) {
+            if (size == wordIndices.length) {
+                wordIndices = Arrays.copyOf(wordIndices, Math.min(2 * size, changedBits.length));
+            }
+            wordIndices[size++] = index;
+        }
+        changedBits[index] |= bits;
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the population of square blocks of cells at several levels of detail.
+ * <p>
+ * The blocks of the lowest level span {@code 16x16} cells, each further level
+ * combines {@code 4x4} blocks of the previous one, until a single block covers
+ * the whole grid. The counts are updated incrementally from the changes applied
+ * to the grid, which allows to determine the density of any region of the grid
+ * by reading a small number of blocks, independent of the size of the region.
+ * <p>
+ * A {@link CellularAutomaton} keeps the counts of its state up to date, observers
+ * on another thread can keep the counts of their copy of the state up to date
+ * from the changes carried by {@link GenerationSnapshot}s.
+ *
+ * @author Thomas Neidhart
+ */
+public final class PopulationPyramid {
+
+    private static final int BASE_SHIFT  = 4;
+    private static final int LEVEL_SHIFT = 2;
+
+    // the number of base blocks within a word of the grid.
+    private static final int BLOCKS_PER_WORD = 64 >>> BASE_SHIFT;
+    private static final long BLOCK_MASK     = (1L << (1 << BASE_SHIFT)) - 1;
+
+    private final BitGrid grid;
+    private final int     rows;
+    private final int     cols;
+
+    private final int[]   shifts;
+    private final int[]   blockCols;
+    private final int[][] counts;
+
+    private int population;
+
+    /**
+     * Creates a pyramid for the current state of the given grid.
+     */
+    public PopulationPyramid(BitGrid grid) {
+        this.grid = grid;
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+
+        int levels = 1;
+        for (int shift = BASE_SHIFT; (rows - 1) >> shift > 0 || (cols - 1) >> shift > 0; shift += LEVEL_SHIFT) {
+            levels++;
+        }
+
+        shifts    = new int[levels];
+        blockCols = new int[levels];
+        counts    = new int[levels][];
+
+        for (int level = 0; level < levels; level++) {
+            int shift        = BASE_SHIFT + level * LEVEL_SHIFT;
+            int levelRows    = ((rows - 1) >> shift) + 1;
+            shifts[level]    = shift;
+            blockCols[level] = ((cols - 1) >> shift) + 1;
+            counts[level]    = new int[levelRows * blockCols[level]];
+        }
+
+        reset();
+    }
+
+    public int getPopulation() {
+        return population;
+    }
+
+    /**
+     * Updates the counts with the given changes that have been applied to the grid,
+     * only cells that actually changed their state may be included.
+     */
+    public void apply(ChangeSet changes) {
+        for (int i = 0; i < changes.getWordCount(); i++) {
+            update(changes.getRow(i), changes.getWord(i), changes.getBirths(i), changes.getDeaths(i));
+        }
+    }
+
+    /**
+     * Determines the counts from the current state of the grid, e.g. after it has
+     * been replaced, which costs time proportional to the size of the grid.
+     */
+    public void reset() {
+        for (int[] levelCounts : counts) {
+            Arrays.fill(levelCounts, 0);
+        }
+        population = 0;
+
+        int wordsPerRow = grid.getWordsPerRow();
+        for (int row = 0; row < rows; row++) {
+            for (int word = 0; word < wordsPerRow; word++) {
+                long alive = grid.getWord(row, word);
+                if (alive != 0) {
+                    update(row, word, alive, 0L);
+                }
+            }
+        }
+    }
+
+    private void update(int row, int word, long births, long deaths) {
+        int[] baseCounts = counts[0];
+        int   delta      = Long.bitCount(births) - Long.bitCount(deaths);
+
+        int baseIndex = (row >> BASE_SHIFT) * blockCols[0] + word * BLOCKS_PER_WORD;
+        for (int block = 0; block < BLOCKS_PER_WORD && (births | deaths) != 0; block++) {
+            baseCounts[baseIndex + block] += Long.bitCount(births & BLOCK_MASK) - Long.bitCount(deaths & BLOCK_MASK);
+
+            births >>>= 1 << BASE_SHIFT;
+            deaths >>>= 1 << BASE_SHIFT;
+        }
+
+        // a word lies completely within a single block on all higher levels.
+        int col = word << 6;
+        for (int level = 1; level < counts.length; level++) {
+            counts[level][(row >> shifts[level]) * blockCols[level] + (col >> shifts[level])] += delta;
+        }
+        population += delta;
+    }
+
+    /**
+     * Returns the fraction of alive cells in the given region. Unless the region
+     * is small, the density is approximated by the blocks overlapping the region.
+     */
+    public double getDensity(int fromRow, int fromCol, int toRow, int toCol) {
+        fromRow = Math.max(fromRow, 0);
+        fromCol = Math.max(fromCol, 0);
+        toRow   = Math.min(toRow, rows);
+        toCol   = Math.min(toCol, cols);
+        if (fromRow >= toRow || fromCol >= toCol) {
+            return 0.0;
+        }
+
+        int span  = Math.min(toRow - fromRow, toCol - fromCol);
+        int level = -1;
+        while (level + 1 < shifts.length && 1 << shifts[level + 1] <= span) {
+            level++;
+        }
+
+        if (level < 0) {
+            return (double) countAlive(fromRow, fromCol, toRow, toCol) / ((toRow - fromRow) * (toCol - fromCol));
+        }
+
+        int   shift       = shifts[level];
+        int[] levelCounts = counts[level];
+
+        int fromBlockRow = fromRow >> shift;
+        int toBlockRow   = (toRow - 1) >> shift;
+        int fromBlockCol = fromCol >> shift;
+        int toBlockCol   = (toCol - 1) >> shift;
+
+        long alive = 0;
+        for (int blockRow = fromBlockRow; blockRow <= toBlockRow; blockRow++) {
+            int offset = blockRow * blockCols[level];
+            for (int blockCol = fromBlockCol; blockCol <= toBlockCol; blockCol++) {
+                alive += levelCounts[offset + blockCol];
+            }
+        }
+
+        long area = (long) (Math.min((toBlockRow + 1) << shift, rows) - (fromBlockRow << shift)) *
+                           (Math.min((toBlockCol + 1) << shift, cols) - (fromBlockCol << shift));
+        return (double) alive / area;
+    }
+
+    /**
+     * Determines the densities of adjacent regions spanning the given rows, region
+     * {@code i} spans the columns from {@code colEdges[i]} to {@code colEdges[i + 1]}
+     * and its density is stored in {@code densities[i]}, for {@code i} in
+     * {@code [fromIndex, toIndex)}. Densities are determined like in
+     * {@link #getDensity(int, int, int, int)}, but more efficiently.
+     */
+    public void getDensities(int fromRow, int toRow, int[] colEdges, int fromIndex, int toIndex, double[] densities) {
+        fromRow = Math.max(fromRow, 0);
+        toRow   = Math.min(toRow, rows);
+
+        for (int i = fromIndex; i < toIndex; i++) {
+            densities[i] = 0.0;
+        }
+
+        if (fromRow >= toRow || fromIndex >= toIndex) {
+            return;
+        }
+
+        int span  = Math.min(toRow - fromRow, colEdges[fromIndex + 1] - colEdges[fromIndex]);
+        int level = -1;
+        while (level + 1 < shifts.length && 1 << shifts[level + 1] <= span) {
+            level++;
+        }
+
+        if (level < 0) {
+            countAlive(fromRow, toRow, colEdges, fromIndex, toIndex, densities);
+        } else {
+            sumBlocks(level, fromRow, toRow, colEdges, fromIndex, toIndex, densities);
+        }
+    }
+
+    private void countAlive(int fromRow, int toRow, int[] colEdges, int fromIndex, int toIndex, double[] densities) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            int fromCol = Math.max(colEdges[i], 0);
+            int toCol   = Math.min(colEdges[i + 1], cols);
+            if (fromCol < toCol) {
+                densities[i] = (double) countAlive(fromRow, fromCol, toRow, toCol) / ((toRow - fromRow) * (toCol - fromCol));
+            }
+        }
+    }
+
+    private void sumBlocks(int level, int fromRow, int toRow, int[] colEdges, int fromIndex, int toIndex, double[] densities) {
+        int   shift       = shifts[level];
+        int   stride      = blockCols[level];
+        int[] levelCounts = counts[level];
+
+        int fromBlockRow = fromRow >> shift;
+        int toBlockRow   = (toRow - 1) >> shift;
+        int height       = Math.min((toBlockRow + 1) << shift, rows) - (fromBlockRow << shift);
+
+        for (int i = fromIndex; i < toIndex; i++) {
+            int fromCol = Math.max(colEdges[i], 0);
+            int toCol   = Math.min(colEdges[i + 1], cols);
+            if (fromCol >= toCol) {
+                continue;
+            }
+
+            int fromBlockCol = fromCol >> shift;
+            int toBlockCol   = (toCol - 1) >> shift;
+
+            long alive = 0;
+            for (int blockRow = fromBlockRow; blockRow <= toBlockRow; blockRow++) {
+                int offset = blockRow * stride;
+                for (int blockCol = fromBlockCol; blockCol <= toBlockCol; blockCol++) {
+                    alive += levelCounts[offset + blockCol];
+                }
+            }
+
+            int width = Math.min((toBlockCol + 1) << shift, cols) - (fromBlockCol << shift);
+            densities[i] = (double) alive / ((long) height * width);
+        }
+    }
+
+    private int countAlive(int fromRow, int fromCol, int toRow, int toCol) {
+        int fromWord = fromCol >>> 6;
+        int toWord   = (toCol - 1) >>> 6;
+
+        long firstMask = -1L << fromCol;
+        long lastMask  = -1L >>> (63 - ((toCol - 1) & 63));
+
+        int alive = 0;
+        for (int row = fromRow; row < toRow; row++) {
+            if (fromWord == toWord) {
+                alive += Long.bitCount(grid.getWord(row, fromWord) & firstMask & lastMask);
+            } else {
+                alive += Long.bitCount(grid.getWord(row, fromWord) & firstMask);
+                for (int word = fromWord + 1; word < toWord; word++) {
+                    alive += Long.bitCount(grid.getWord(row, word));
+                }
+                alive += Long.bitCount(grid.getWord(row, toWord) & lastMask);
+            }
+        }
+        return alive;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * A straight-forward evolution engine that evaluates each cell individually.
+ * <p>
+ * It is slow but easy to verify and serves as reference for the optimized engines.
+ * Any rule and topology is supported, the dying states of multi-state rules are kept
+ * per cell with the same semantics as {@link DecayPlanes}.
+ *
+ * @author Thomas Neidhart
+ */
+public class ReferenceEngine implements EvolutionEngine {
+
+    private Rule     rule     = Rule.CONWAY;
+    private Topology topology = Topology.PLANE;
+
+    // the dying state of each cell, 0 if the cell is not dying.
+    private int[] decay;
+
+    @Override
+    public String getName() {
+        return "reference";
+    }
+
+    @Override
+    public Rule getRule() {
+        return rule;
+    }
+
+    @Override
+    public void setRule(Rule rule) {
+        this.rule  = rule;
+        this.decay = null;
+    }
+
+    @Override
+    public boolean supports(Rule rule) {
+        return true;
+    }
+
+    @Override
+    public Topology getTopology() {
+        return topology;
+    }
+
+    @Override
+    public void setTopology(Topology topology) {
+        if (!supports(topology)) {
+            throw new IllegalArgumentException("topology " + topology + " is not supported by the " + getName() + " engine");
+        }
+
+        this.topology = topology;
+    }
+
+    @Override
+    public boolean supports(Topology topology) {
+        return topology.isBounded();
+    }
+
+    @Override
+    public void evolve(BitGrid current, BitGrid next) {
+        int rows = current.getRows();
+        int cols = current.getCols();
+
+        int lastState = rule.getStates() - 2;
+        if (lastState > 0 && (decay == null || decay.length != rows * cols)) {
+            decay = new int[rows * cols];
+        }
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int aliveNeighbors = rule.countNeighbors(current, topology, row, col);
+                int index          = row * cols + col;
+
+                boolean nextState;
+                if (current.get(row, col)) {
+                    nextState = rule.survives(aliveNeighbors);
+                    if (lastState > 0) {
+                        decay[index] = nextState ? 0 : 1;
+                    }
+                } else if (lastState > 0 && decay[index] > 0) {
+                    nextState = false;
+                    decay[index] = decay[index] == lastState ? 0 : decay[index] + 1;
+                } else {
+                    nextState = rule.isBorn(aliveNeighbors);
+                }
+
+                next.set(row, col, nextState);
+            }
+        }
+    }
+}
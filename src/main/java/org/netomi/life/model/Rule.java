@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Locale;
+
+/**
+ * A rule determining the next state of each cell from the number of alive
+ * cells in its neighborhood.
+ * <p>
+ * Rules are created from their textual notation via {@link #parse(String)},
+ * the following families are supported:
+ * <ul>
+ * <li>Life-like rules in B/S notation, e.g. {@code B36/S23} for HighLife,
+ *     or the older S/B notation, e.g. {@code 23/36}.</li>
+ * <li>Generations rules, which add dying states to a life-like rule, e.g.
+ *     {@code B2/S/C3} or {@code /2/3} for Brian's Brain.</li>
+ * <li>Larger than Life rules in the notation used by Golly, e.g.
+ *     {@code R5,C0,M1,S34..58,B34..45,NM} for Bosco's Rule.</li>
+ * </ul>
+ * Multi-state rules only expose the alive cells as state of an automaton,
+ * dying cells do not count as neighbors and can not become alive again
+ * before they are dead.
+ *
+ * @author Thomas Neidhart
+ */
+public abstract class Rule {
+
+    /**
+     * The rule of Conway's Game of Life.
+     */
+    public static final Rule CONWAY = parse("B3/S23");
+
+    Rule() {}
+
+    /**
+     * Parses the given rule notation, letters are case-insensitive.
+     *
+     * @throws IllegalArgumentException if the notation is invalid.
+     */
+    public static Rule parse(String notation) {
+        String normalized = notation.replace(" ", "").toUpperCase(Locale.ROOT);
+        try {
+            if (normalized.startsWith("R")) {
+                return LargerThanLifeRule.parseNotation(normalized);
+            } else {
+                return LifeLikeRule.parseNotation(normalized);
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("invalid rule '" + notation + "'", ex);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("invalid rule '" + notation + "': " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Returns the canonical notation of this rule.
+     */
+    public abstract String getNotation();
+
+    /**
+     * Returns the number of states of a cell, i.e. 2 for rules without dying states.
+     */
+    public abstract int getStates();
+
+    /**
+     * Returns the maximum distance of a neighbor to a cell.
+     */
+    public abstract int getRange();
+
+    /**
+     * Returns whether a dead cell with the given number of alive neighbors becomes alive.
+     */
+    public abstract boolean isBorn(int neighbors);
+
+    /**
+     * Returns whether an alive cell with the given number of alive neighbors stays alive.
+     */
+    public abstract boolean survives(int neighbors);
+
+    /**
+     * Counts the alive neighbors of the given cell in the way {@link #isBorn(int)} and
+     * {@link #survives(int)} expect it, cells outside of the grid are mapped according
+     * to the given topology.
+     */
+    abstract int countNeighbors(BitGrid grid, Topology topology, int row, int col);
+
+    /**
+     * Creates the compiled form of this rule used to evolve packed grids.
+     */
+    abstract RuleKernel createKernel();
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Rule && getNotation().equals(((Rule) o).getNotation());
+    }
+
+    @Override
+    public int hashCode() {
+        return getNotation().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getNotation();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * The compiled form of a {@link Rule}, which evolves the packed words of a {@link BitGrid}.
+ * <p>
+ * A kernel may keep additional state like the dying cells of multi-state rules,
+ * thus each engine uses its own instance. Disjoint ranges of rows may be evolved
+ * concurrently.
+ * <p>
+ * Kernels read the interior of the current state directly from the grid and the
+ * cells beyond its edges from a {@link Halo} covering the range of the rule, which
+ * is loaded by the caller for the evolved rows according to the {@link Topology}.
+ *
+ * @author Thomas Neidhart
+ */
+abstract class RuleKernel {
+
+    private final int range;
+
+    RuleKernel(int range) {
+        this.range = range;
+    }
+
+    /**
+     * Creates a halo covering the range of the rule.
+     */
+    Halo createHalo() {
+        return new Halo(range);
+    }
+
+    /**
+     * Prepares the evolution of the given grid, to be called once per
+     * generation before evolving its rows.
+     */
+    void prepare(BitGrid current) {}
+
+    /**
+     * Computes the next generation for the rows in the range [{@code fromRow}, {@code toRow}),
+     * the given halo has to be loaded for these rows.
+     */
+    abstract void evolveRows(Halo halo, BitGrid current, BitGrid next, int fromRow, int toRow);
+}
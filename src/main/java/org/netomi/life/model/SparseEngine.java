@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Arrays;
+
+/**
+ * An evolution engine that only evaluates the active regions of a grid.
+ * <p>
+ * The grid is divided into tiles of {@link #TILE_ROWS} rows and one word (64 columns).
+ * A tile is active if it or one of its adjacent cells in a neighboring tile changed
+ * during the last generation, all other tiles are stable and skipped entirely. Thus
+ * the cost of a generation is proportional to the activity instead of the grid area.
+ * <p>
+ * Skipping stable tiles requires the {@code next} grid to contain the stable tiles
+ * already. The engine keeps track of the grids it evolved recently, e.g. the two
+ * grids of a double buffer or the three grids rotated by a batch of generations,
+ * together with the tiles of each grid that are stale, i.e. differ from the latest
+ * generation. Stale tiles that are not evaluated are copied before evolving into
+ * a grid, a grid that is not known yet is treated as stale entirely. If the
+ * {@code current} grid is not the latest generation computed by this engine, or
+ * has been modified externally, all tiles are evaluated once.
+ * <p>
+ * Only life-like rules without dying states are supported, where a dead cell
+ * without alive neighbors stays dead, i.e. there is no birth on 0 neighbors.
+ * <p>
+ * Tiles in the interior of the grid read their neighbors directly, tiles at the
+ * edges are evaluated on a {@link Halo} of their own. With a wrapping topology,
+ * a change at an edge activates all tiles along the edges of the grid.
+ *
+ * @author Thomas Neidhart
+ */
+public class SparseEngine implements EvolutionEngine {
+
+    public static final int TILE_ROWS = 64;
+
+    /**
+     * The number of grids whose stale tiles are tracked, sufficient for the
+     * grids used by {@link #evolve(BitGrid, BitGrid, BitGrid, long)}.
+     */
+    private static final int TRACKED_GRIDS = 3;
+
+    private Rule           rule     = Rule.CONWAY;
+    private LifeLikeKernel kernel   = ((LifeLikeRule) rule).createKernel();
+    private Topology       topology = Topology.PLANE;
+
+    private final Halo   halo     = new Halo(1);
+    private final long[] tileHalo = new long[(TILE_ROWS + 2) * 3];
+
+    private int   tilesPerRow;
+    private int   tileCount;
+
+    private int[] activeTiles     = new int[0];
+    private int   activeCount;
+    private int[] nextActiveTiles = new int[0];
+    private int   nextActiveCount;
+
+    private int[] tileMarks = new int[0];
+    private int   mark;
+
+    private int[] changedTiles = new int[0];
+    private int   changedCount;
+
+    private final TrackedGrid[] trackedGrids = new TrackedGrid[TRACKED_GRIDS];
+    private TrackedGrid         latest;
+
+    private long evaluatedTiles;
+
+    @Override
+    public String getName() {
+        return "sparse";
+    }
+
+    @Override
+    public Rule getRule() {
+        return rule;
+    }
+
+    @Override
+    public void setRule(Rule rule) {
+        if (!supports(rule)) {
+            throw new IllegalArgumentException("rule " + rule + " is not supported by the " + getName() + " engine");
+        }
+
+        this.rule   = rule;
+        this.kernel = ((LifeLikeRule) rule).createKernel();
+
+        // the activity of the previous rule is meaningless for the new one.
+        latest = null;
+    }
+
+    @Override
+    public boolean supports(Rule rule) {
+        return rule instanceof LifeLikeRule && rule.getStates() == 2 && !rule.isBorn(0);
+    }
+
+    @Override
+    public Topology getTopology() {
+        return topology;
+    }
+
+    @Override
+    public void setTopology(Topology topology) {
+        if (!supports(topology)) {
+            throw new IllegalArgumentException("topology " + topology + " is not supported by the " + getName() + " engine");
+        }
+
+        this.topology = topology;
+
+        latest = null;
+    }
+
+    @Override
+    public boolean supports(Topology topology) {
+        return topology.isBounded();
+    }
+
+    /**
+     * Returns the number of tiles that will be evaluated in the next generation.
+     */
+    public int getActiveTileCount() {
+        return activeCount;
+    }
+
+    /**
+     * Returns the total number of tiles evaluated by this engine.
+     */
+    long getEvaluatedTileCount() {
+        return evaluatedTiles;
+    }
+
+    @Override
+    public void evolve(BitGrid current, BitGrid next) {
+        TrackedGrid source = latest != null && latest.is(current) ? latest : null;
+        TrackedGrid target;
+        if (source == null) {
+            activateAll(current);
+            Arrays.fill(trackedGrids, null);
+            source = track(current, false);
+            target = track(next, false);
+        } else {
+            target = find(next);
+            if (target == null) {
+                target = track(next, true);
+            }
+            refreshStaleTiles(current, next, target);
+        }
+
+        if (++mark == 0) {
+            Arrays.fill(tileMarks, 0);
+            mark = 1;
+        }
+        nextActiveCount = 0;
+        changedCount    = 0;
+
+        long[] currentWords = current.words();
+        long[] nextWords    = next.words();
+
+        for (int i = 0; i < activeCount; i++) {
+            evolveTile(current, currentWords, nextWords, activeTiles[i]);
+        }
+        evaluatedTiles += activeCount;
+
+        int[] tmp       = activeTiles;
+        activeTiles     = nextActiveTiles;
+        activeCount     = nextActiveCount;
+        nextActiveTiles = tmp;
+
+        // all other grids now differ from the latest generation in the changed tiles.
+        for (TrackedGrid grid : trackedGrids) {
+            if (grid != null && grid != target) {
+                for (int i = 0; i < changedCount; i++) {
+                    grid.markStale(changedTiles[i]);
+                }
+            }
+        }
+        target.modificationCount = next.getModificationCount();
+        latest = target;
+    }
+
+    /**
+     * Copies the stale tiles of the target that will not be evaluated from the current grid.
+     */
+    private void refreshStaleTiles(BitGrid current, BitGrid next, TrackedGrid target) {
+        long[] currentWords = current.words();
+        long[] nextWords    = next.words();
+
+        int rows        = current.getRows();
+        int wordsPerRow = current.getWordsPerRow();
+
+        for (int i = 0; i < target.staleCount; i++) {
+            int tile = target.staleTiles[i];
+
+            // the tiles activated by the previous generation carry the current mark.
+            if (tileMarks[tile] != mark) {
+                int w       = tile % tilesPerRow;
+                int fromRow = (tile / tilesPerRow) * TILE_ROWS;
+                int toRow   = Math.min(fromRow + TILE_ROWS, rows);
+                for (int index = fromRow * wordsPerRow + w; index < toRow * wordsPerRow; index += wordsPerRow) {
+                    nextWords[index] = currentWords[index];
+                }
+            }
+            target.isStale[tile] = false;
+        }
+        target.staleCount = 0;
+    }
+
+    private TrackedGrid find(BitGrid grid) {
+        for (TrackedGrid trackedGrid : trackedGrids) {
+            if (trackedGrid != null && trackedGrid.is(grid)) {
+                return trackedGrid;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Starts tracking the given grid, replacing a grid that is neither the latest
+     * generation nor modified externally if possible.
+     */
+    private TrackedGrid track(BitGrid grid, boolean stale) {
+        int slot = -1;
+        for (int i = 0; i < trackedGrids.length && slot < 0; i++) {
+            if (trackedGrids[i] == null) {
+                slot = i;
+            }
+        }
+        for (int i = 0; i < trackedGrids.length && slot < 0; i++) {
+            if (trackedGrids[i] != latest) {
+                slot = i;
+            }
+        }
+
+        TrackedGrid trackedGrid = new TrackedGrid(grid, tileCount);
+        if (stale) {
+            for (int tile = 0; tile < tileCount; tile++) {
+                trackedGrid.markStale(tile);
+            }
+        }
+        trackedGrids[slot] = trackedGrid;
+        return trackedGrid;
+    }
+
+    private void activateAll(BitGrid grid) {
+        tilesPerRow = grid.getWordsPerRow();
+        tileCount   = ((grid.getRows() + TILE_ROWS - 1) / TILE_ROWS) * tilesPerRow;
+
+        if (activeTiles.length != tileCount) {
+            activeTiles     = new int[tileCount];
+            nextActiveTiles = new int[tileCount];
+            tileMarks       = new int[tileCount];
+            changedTiles    = new int[tileCount];
+            mark            = 0;
+        }
+
+        for (int tile = 0; tile < tileCount; tile++) {
+            activeTiles[tile] = tile;
+        }
+        activeCount = tileCount;
+    }
+
+    private void evolveTile(BitGrid grid, long[] currentWords, long[] nextWords, int tile) {
+        int rows        = grid.getRows();
+        int wordsPerRow = grid.getWordsPerRow();
+
+        int w        = tile % tilesPerRow;
+        int tileRow  = tile / tilesPerRow;
+        int tileRows = tileCount / tilesPerRow;
+        int fromRow  = tileRow * TILE_ROWS;
+        int toRow    = Math.min(fromRow + TILE_ROWS, rows);
+
+        boolean isLeft   = w == 0;
+        boolean isRight  = w == tilesPerRow - 1;
+        boolean isTop    = tileRow == 0;
+        boolean isBottom = tileRow == tileRows - 1;
+
+        long[] source;
+        int    stride;
+        int    offset;
+        if (isLeft || isRight || isTop || isBottom) {
+            halo.load(grid, topology, fromRow - 1, toRow + 1, w - 1, w + 2, tileHalo);
+            source = tileHalo;
+            stride = 3;
+            offset = stride + 1;
+        } else {
+            source = currentWords;
+            stride = wordsPerRow;
+            offset = fromRow * wordsPerRow + w;
+        }
+
+        long mask = isRight ? grid.getLastWordMask() : -1L;
+
+        long changed       = 0;
+        long changedTop    = 0;
+        long changedBottom = 0;
+
+        for (int row = fromRow; row < toRow; row++, offset += stride) {
+            int above = offset - stride;
+            int below = offset + stride;
+
+            long nextWord =
+                kernel.evolveWord(source[above - 1],  source[above],  source[above + 1],
+                                  source[offset - 1], source[offset], source[offset + 1],
+                                  source[below - 1],  source[below],  source[below + 1]) & mask;
+
+            int  index = row * wordsPerRow + w;
+            long diff  = nextWord ^ currentWords[index];
+
+            nextWords[index] = nextWord;
+
+            changed |= diff;
+            if (row == fromRow) {
+                changedTop = diff;
+            }
+            if (row == toRow - 1) {
+                changedBottom = diff;
+            }
+        }
+
+        if (changed == 0) {
+            return;
+        }
+
+        changedTiles[changedCount++] = tile;
+        activate(tile);
+
+        // activate neighboring tiles that are adjacent to a changed cell.
+        if (!isLeft && (changed & 1L) != 0) {
+            activate(tile - 1);
+        }
+        if (!isRight && (changed >>> 63) != 0) {
+            activate(tile + 1);
+        }
+
+        if (!isTop && changedTop != 0) {
+            int above = tile - tilesPerRow;
+            activate(above);
+            if (!isLeft && (changedTop & 1L) != 0) {
+                activate(above - 1);
+            }
+            if (!isRight && (changedTop >>> 63) != 0) {
+                activate(above + 1);
+            }
+        }
+
+        if (!isBottom && changedBottom != 0) {
+            int below = tile + tilesPerRow;
+            activate(below);
+            if (!isLeft && (changedBottom & 1L) != 0) {
+                activate(below - 1);
+            }
+            if (!isRight && (changedBottom >>> 63) != 0) {
+                activate(below + 1);
+            }
+        }
+
+        // cells at the edges are adjacent to cells at the opposite edges.
+        if (topology.wrapsColumns()) {
+            long lastColumn = 1L << ((grid.getCols() - 1) & 63);
+            if (isLeft   && (changed & 1L) != 0         ||
+                isRight  && (changed & lastColumn) != 0 ||
+                isTop    && changedTop != 0             ||
+                isBottom && changedBottom != 0) {
+                activateEdges();
+            }
+        }
+    }
+
+    private void activateEdges() {
+        for (int w = 0; w < tilesPerRow; w++) {
+            activate(w);
+            activate(tileCount - tilesPerRow + w);
+        }
+        for (int tile = tilesPerRow; tile < tileCount - tilesPerRow; tile += tilesPerRow) {
+            activate(tile);
+            activate(tile + tilesPerRow - 1);
+        }
+    }
+
+    private void activate(int tile) {
+        if (tileMarks[tile] != mark) {
+            tileMarks[tile] = mark;
+            nextActiveTiles[nextActiveCount++] = tile;
+        }
+    }
+
+    /**
+     * A grid evolved by this engine together with its tiles that differ from the
+     * latest generation. Grids are identified by their words, which move along
+     * with their modification count when grids are swapped.
+     */
+    private static final class TrackedGrid {
+        private final long[]    words;
+        private long            modificationCount;
+        private final int[]     staleTiles;
+        private int             staleCount;
+        private final boolean[] isStale;
+
+        TrackedGrid(BitGrid grid, int tileCount) {
+            words             = grid.words();
+            modificationCount = grid.getModificationCount();
+            staleTiles        = new int[tileCount];
+            isStale           = new boolean[tileCount];
+        }
+
+        boolean is(BitGrid grid) {
+            return grid.words() == words && grid.getModificationCount() == modificationCount;
+        }
+
+        void markStale(int tile) {
+            if (!isStale[tile]) {
+                isStale[tile] = true;
+                staleTiles[staleCount++] = tile;
+            }
+        }
+    }
+}
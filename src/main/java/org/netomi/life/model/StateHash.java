@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * A 64-bit hash of the state of a grid that can be updated incrementally.
+ * <p>
+ * The hash is the sum of a strong mix of each non-empty word together with
+ * its index, thus changing a word only requires to subtract its old and add
+ * its new contribution. Updating the hash for a {@link ChangeSet} costs time
+ * proportional to the number of changed words.
+ *
+ * @author Thomas Neidhart
+ */
+final class StateHash {
+
+    private StateHash() {}
+
+    /**
+     * Returns the hash of the whole grid, the hash of an empty grid is 0.
+     */
+    static long of(BitGrid grid) {
+        long[] words = grid.words();
+
+        long hash = 0;
+        for (int i = 0; i < words.length; i++) {
+            hash += word(i, words[i]);
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the hash of a grid after applying the given changes to a grid with the given hash.
+     */
+    static long update(long hash, ChangeSet changes) {
+        for (int i = 0; i < changes.getWordCount(); i++) {
+            int  index    = changes.getWordIndex(i);
+            long newWord  = changes.getAliveBits(i);
+            long oldWord  = newWord ^ changes.getChangedBits(i);
+
+            hash += word(index, newWord) - word(index, oldWord);
+        }
+        return hash;
+    }
+
+    private static long word(int index, long word) {
+        if (word == 0) {
+            return 0;
+        }
+
+        // the finalizer of SplitMix64.
+        long z = word ^ (index * 0xD1B54A32D192ED03L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+/**
+ * The available topologies of a grid, i.e. how the neighborhood of cells
+ * at the edges of the grid is continued beyond them.
+ * <p>
+ * Engines do not check the boundaries while evolving a grid, instead the
+ * cells beyond the edges are materialized as ghost cells, see {@link Halo}.
+ *
+ * @author Thomas Neidhart
+ */
+public enum Topology {
+
+    /**
+     * A bounded plane surrounded by a halo of dead cells.
+     */
+    PLANE,
+
+    /**
+     * The left and right as well as the top and bottom edges are joined.
+     */
+    TORUS,
+
+    /**
+     * The left and right edges are joined, the top and bottom edges are joined
+     * with a twist, i.e. a cell leaving the grid at the top in column {@code c}
+     * enters it at the bottom in column {@code cols - 1 - c}.
+     */
+    KLEIN_BOTTLE,
+
+    /**
+     * The grid is a window onto an unbounded plane, cells that leave the grid
+     * continue to evolve outside of it and may return later on. Only engines
+     * that keep track of the whole plane support this topology.
+     */
+    UNBOUNDED;
+
+    /**
+     * Returns whether the grid covers the whole universe, i.e. whether no
+     * cell exists outside of it.
+     */
+    boolean isBounded() {
+        return this != UNBOUNDED;
+    }
+
+    /**
+     * Returns whether the cells beyond the left and right edges wrap around.
+     */
+    boolean wrapsColumns() {
+        return this == TORUS || this == KLEIN_BOTTLE;
+    }
+
+    /**
+     * Returns whether the given cell is alive, the coordinates may lie
+     * outside of the grid and are mapped according to this topology.
+     * The cells outside of an unbounded grid are considered to be dead.
+     */
+    boolean isAlive(BitGrid grid, int row, int col) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+
+        if (!wrapsColumns()) {
+            return row >= 0 && row < rows &&
+                   col >= 0 && col < cols &&
+                   grid.get(row, col);
+        }
+
+        int sourceRow = Math.floorMod(row, rows);
+        int sourceCol = Math.floorMod(col, cols);
+        if (isMirrored(row, rows)) {
+            sourceCol = cols - 1 - sourceCol;
+        }
+        return grid.get(sourceRow, sourceCol);
+    }
+
+    /**
+     * Returns whether the columns of the given row, which may lie outside
+     * of the grid, appear mirrored.
+     */
+    boolean isMirrored(int row, int rows) {
+        return this == KLEIN_BOTTLE && (Math.floorDiv(row, rows) & 1) != 0;
+    }
+}
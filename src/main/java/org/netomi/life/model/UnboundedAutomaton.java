@@ -0,0 +1,366 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cellular automaton on an unbounded plane.
+ * <p>
+ * The plane is divided into chunks of {@link #CHUNK_SIZE}x{@link #CHUNK_SIZE} cells,
+ * which are stored in a hash map keyed by their packed chunk coordinates. Chunks are
+ * allocated lazily when activity reaches them and freed as soon as they become
+ * empty, thus the memory consumption is proportional to the population rather
+ * than to the bounding box of the pattern. The chunk coordinates are stored as
+ * {@code int}, which limits the plane to cells within 2^37 of the origin.
+ * <p>
+ * Only life-like rules without dying states are supported, where the empty
+ * plane stays empty, i.e. there is no birth on 0 neighbors. The automaton is
+ * evolved within a {@link CellularAutomaton} by the {@link ChunkedEngine}.
+ *
+ * @author Thomas Neidhart
+ */
+public class UnboundedAutomaton {
+
+    public static final int CHUNK_SIZE = 64;
+
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_MASK  = CHUNK_SIZE - 1;
+
+    private final LongMap<Chunk> chunks    = new LongMap<>();
+    private final List<Chunk>    chunkList = new ArrayList<>();
+
+    private Rule           rule;
+    private LifeLikeKernel kernel;
+
+    private long generation;
+
+    /**
+     * Creates an empty plane evolved with {@link Rule#CONWAY}.
+     */
+    public UnboundedAutomaton() {
+        this(Rule.CONWAY);
+    }
+
+    /**
+     * Creates an empty plane evolved with the given rule.
+     *
+     * @throws IllegalArgumentException if the rule is not supported.
+     */
+    public UnboundedAutomaton(Rule rule) {
+        setRule(rule);
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Changes the rule applied to the plane.
+     *
+     * @throws IllegalArgumentException if the rule is not supported.
+     */
+    public void setRule(Rule rule) {
+        if (!supports(rule)) {
+            throw new IllegalArgumentException("rule " + rule + " is not supported on an unbounded plane");
+        }
+
+        this.rule   = rule;
+        this.kernel = ((LifeLikeRule) rule).createKernel();
+    }
+
+    /**
+     * Returns whether the given rule can be applied to an unbounded plane.
+     */
+    public static boolean supports(Rule rule) {
+        return rule instanceof LifeLikeRule && rule.getStates() == 2 && !rule.isBorn(0);
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the number of currently allocated chunks.
+     */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    public long getPopulation() {
+        long population = 0;
+        for (Chunk chunk : chunkList) {
+            population += chunk.population();
+        }
+        return population;
+    }
+
+    public boolean isAlive(long row, long col) {
+        Chunk chunk = chunks.get(key(chunkCoordinate(row), chunkCoordinate(col)));
+        return chunk != null && (chunk.cells[(int) (row & CHUNK_MASK)] & (1L << col)) != 0;
+    }
+
+    public void setAlive(long row, long col, boolean alive) {
+        int chunkRow = chunkCoordinate(row);
+        int chunkCol = chunkCoordinate(col);
+
+        Chunk chunk = chunks.get(key(chunkRow, chunkCol));
+        if (chunk == null) {
+            if (!alive) {
+                return;
+            }
+            chunk = new Chunk(chunkRow, chunkCol);
+            add(chunk);
+        }
+
+        int index = (int) (row & CHUNK_MASK);
+        if (alive) {
+            chunk.cells[index] |= 1L << col;
+        } else {
+            chunk.cells[index] &= ~(1L << col);
+            if (chunk.isEmpty()) {
+                remove(chunk);
+            }
+        }
+    }
+
+    public void clear() {
+        chunks.clear();
+        chunkList.clear();
+        generation = 0;
+    }
+
+    /**
+     * Copies the given grid onto the plane, its top left cell is placed at the given position.
+     */
+    public void paste(BitGrid grid, long row, long col) {
+        for (int r = 0; r < grid.getRows(); r++) {
+            for (int c = 0; c < grid.getCols(); c++) {
+                setAlive(row + r, col + c, grid.get(r, c));
+            }
+        }
+    }
+
+    /**
+     * Replaces the plane with the alive cells of the given grid, its top left cell
+     * is placed at the origin.
+     */
+    void load(BitGrid grid) {
+        clear();
+        for (int r = 0; r < grid.getRows(); r++) {
+            for (int c = grid.nextSetBit(r, 0); c >= 0; c = grid.nextSetBit(r, c + 1)) {
+                setAlive(r, c, true);
+            }
+        }
+    }
+
+    /**
+     * Copies the region of the plane starting at the given position into the given grid.
+     */
+    public void copyTo(BitGrid grid, long row, long col) {
+        grid.clear();
+        for (Chunk chunk : chunkList) {
+            long chunkRow = (long) chunk.chunkRow << CHUNK_SHIFT;
+            long chunkCol = (long) chunk.chunkCol << CHUNK_SHIFT;
+
+            if (chunkRow + CHUNK_SIZE <= row || chunkRow >= row + grid.getRows() ||
+                chunkCol + CHUNK_SIZE <= col || chunkCol >= col + grid.getCols()) {
+                continue;
+            }
+
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                long word = chunk.cells[r];
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+
+                    long gridRow = chunkRow + r - row;
+                    long gridCol = chunkCol + bit - col;
+                    if (gridRow >= 0 && gridRow < grid.getRows() &&
+                        gridCol >= 0 && gridCol < grid.getCols()) {
+                        grid.set((int) gridRow, (int) gridCol, true);
+                    }
+                }
+            }
+        }
+    }
+
+    public void evolve() {
+        // allocate empty chunks next to populated borders, as cells may be born in them.
+        List<Chunk> frontier = new ArrayList<>();
+        for (Chunk chunk : chunkList) {
+            addFrontier(chunk, frontier);
+        }
+        for (Chunk chunk : frontier) {
+            if (chunks.get(key(chunk.chunkRow, chunk.chunkCol)) == null) {
+                add(chunk);
+            }
+        }
+
+        for (Chunk chunk : chunkList) {
+            evolveChunk(chunk);
+        }
+
+        for (int i = chunkList.size() - 1; i >= 0; i--) {
+            Chunk chunk = chunkList.get(i);
+            chunk.swap();
+            if (chunk.isEmpty()) {
+                remove(chunk);
+            }
+        }
+
+        generation++;
+    }
+
+    private void add(Chunk chunk) {
+        chunk.index = chunkList.size();
+        chunkList.add(chunk);
+        chunks.put(key(chunk.chunkRow, chunk.chunkCol), chunk);
+    }
+
+    /**
+     * Removes the given chunk, the last chunk of the list takes its place.
+     */
+    private void remove(Chunk chunk) {
+        chunks.remove(key(chunk.chunkRow, chunk.chunkCol));
+
+        Chunk last = chunkList.remove(chunkList.size() - 1);
+        if (last != chunk) {
+            last.index = chunk.index;
+            chunkList.set(chunk.index, last);
+        }
+    }
+
+    private void addFrontier(Chunk chunk, List<Chunk> frontier) {
+        long top    = chunk.cells[0];
+        long bottom = chunk.cells[CHUNK_MASK];
+        long left   = 0;
+        long right  = 0;
+        for (long word : chunk.cells) {
+            left  |= word & 1L;
+            right |= word >>> 63;
+        }
+
+        addFrontier(chunk.chunkRow - 1, chunk.chunkCol,     top != 0,                  frontier);
+        addFrontier(chunk.chunkRow + 1, chunk.chunkCol,     bottom != 0,               frontier);
+        addFrontier(chunk.chunkRow,     chunk.chunkCol - 1, left != 0,                 frontier);
+        addFrontier(chunk.chunkRow,     chunk.chunkCol + 1, right != 0,                frontier);
+        addFrontier(chunk.chunkRow - 1, chunk.chunkCol - 1, (top & 1L) != 0,           frontier);
+        addFrontier(chunk.chunkRow - 1, chunk.chunkCol + 1, (top >>> 63) != 0,         frontier);
+        addFrontier(chunk.chunkRow + 1, chunk.chunkCol - 1, (bottom & 1L) != 0,        frontier);
+        addFrontier(chunk.chunkRow + 1, chunk.chunkCol + 1, (bottom >>> 63) != 0,      frontier);
+    }
+
+    private void addFrontier(int chunkRow, int chunkCol, boolean active, List<Chunk> frontier) {
+        if (active && chunks.get(key(chunkRow, chunkCol)) == null) {
+            frontier.add(new Chunk(chunkRow, chunkCol));
+        }
+    }
+
+    private void evolveChunk(Chunk chunk) {
+        Chunk n  = chunks.get(key(chunk.chunkRow - 1, chunk.chunkCol));
+        Chunk s  = chunks.get(key(chunk.chunkRow + 1, chunk.chunkCol));
+        Chunk w  = chunks.get(key(chunk.chunkRow,     chunk.chunkCol - 1));
+        Chunk e  = chunks.get(key(chunk.chunkRow,     chunk.chunkCol + 1));
+        Chunk nw = chunks.get(key(chunk.chunkRow - 1, chunk.chunkCol - 1));
+        Chunk ne = chunks.get(key(chunk.chunkRow - 1, chunk.chunkCol + 1));
+        Chunk sw = chunks.get(key(chunk.chunkRow + 1, chunk.chunkCol - 1));
+        Chunk se = chunks.get(key(chunk.chunkRow + 1, chunk.chunkCol + 1));
+
+        long[] cells = chunk.cells;
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            long aW, a, aE, cW, c, cE;
+
+            if (r > 0) {
+                aW = word(w, r - 1);
+                a  = cells[r - 1];
+                aE = word(e, r - 1);
+            } else {
+                aW = word(nw, CHUNK_MASK);
+                a  = word(n,  CHUNK_MASK);
+                aE = word(ne, CHUNK_MASK);
+            }
+
+            if (r < CHUNK_MASK) {
+                cW = word(w, r + 1);
+                c  = cells[r + 1];
+                cE = word(e, r + 1);
+            } else {
+                cW = word(sw, 0);
+                c  = word(s,  0);
+                cE = word(se, 0);
+            }
+
+            chunk.next[r] = kernel.evolveWord(aW, a, aE, word(w, r), cells[r], word(e, r), cW, c, cE);
+        }
+    }
+
+    private static long word(Chunk chunk, int row) {
+        return chunk != null ? chunk.cells[row] : 0L;
+    }
+
+    private static int chunkCoordinate(long coordinate) {
+        return (int) (coordinate >> CHUNK_SHIFT);
+    }
+
+    private static long key(int chunkRow, int chunkCol) {
+        return ((long) chunkRow << 32) | (chunkCol & 0xffffffffL);
+    }
+
+    /**
+     * A square region of the plane, each row is stored in a single word.
+     */
+    private static class Chunk {
+        final int chunkRow;
+        final int chunkCol;
+
+        long[] cells = new long[CHUNK_SIZE];
+        long[] next  = new long[CHUNK_SIZE];
+
+        // the position within the list of chunks.
+        int index;
+
+        Chunk(int chunkRow, int chunkCol) {
+            this.chunkRow = chunkRow;
+            this.chunkCol = chunkCol;
+        }
+
+        void swap() {
+            long[] tmp = cells;
+            cells      = next;
+            next       = tmp;
+        }
+
+        boolean isEmpty() {
+            for (long word : cells) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int population() {
+            int population = 0;
+            for (long word : cells) {
+                population += Long.bitCount(word);
+            }
+            return population;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.service;
+
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.GenerationSnapshot;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A named model managed by the {@link ModelService} which is evolved
+ * by a {@link SimulationPool}.
+ * <p>
+ * While a board is observed, e.g. because it is attached to the user interface,
+ * its generations are published as {@link GenerationSnapshot}s at roughly the
+ * frame rate of the UI, see {@link #pollSnapshot()}.
+ *
+ * @author Thomas Neidhart
+ */
+public final class Board {
+
+    private static final long SNAPSHOT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    public enum State {
+        /**
+         * The board is not being evolved, either because it has never been started
+         * or because it has been stopped.
+         */
+        IDLE,
+
+        /**
+         * The board is waiting for or being evolved by a worker of the pool.
+         */
+        ACTIVE,
+
+        /**
+         * The board has evolved its generation budget or entered a cycle.
+         */
+        FINISHED
+    }
+
+    private final String            name;
+    private final CellularAutomaton model;
+
+    private final AtomicReference<GenerationSnapshot> latestSnapshot = new AtomicReference<>();
+
+    private volatile State   state = State.IDLE;
+    private volatile boolean observed;
+    private volatile boolean stopOnCycle;
+
+    // the following fields are only modified by the pool.
+    private volatile long    remainingGenerations;
+    private volatile boolean stopRequested;
+    private long             lastSnapshotTime;
+    private long             batchSize;
+
+    private CompletableFuture<Board> completion = CompletableFuture.completedFuture(this);
+
+    Board(String name, CellularAutomaton model) {
+        this.name  = Objects.requireNonNull(name);
+        this.model = Objects.requireNonNull(model);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CellularAutomaton getModel() {
+        return model;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of generations this board may still evolve before it
+     * is finished.
+     */
+    public long getRemainingGenerations() {
+        return remainingGenerations;
+    }
+
+    public boolean isStopOnCycle() {
+        return stopOnCycle;
+    }
+
+    /**
+     * Sets whether the board shall finish as soon as its model enters a cycle,
+     * see {@link CellularAutomaton#getCycle()}.
+     */
+    public void setStopOnCycle(boolean stopOnCycle) {
+        this.stopOnCycle = stopOnCycle;
+    }
+
+    public boolean isObserved() {
+        return observed;
+    }
+
+    /**
+     * Sets whether snapshots of the evolved generations shall be published.
+     */
+    public void setObserved(boolean observed) {
+        this.observed = observed;
+        if (!observed) {
+            latestSnapshot.set(null);
+        }
+    }
+
+    /**
+     * Returns the latest generation that has not been consumed yet, or {@code null}
+     * if there is none or the board is not observed. The snapshot also carries the changes
+     * of earlier snapshots that have not been consumed, see {@link GenerationSnapshot#merge}.
+     */
+    public GenerationSnapshot pollSnapshot() {
+        return latestSnapshot.getAndSet(null);
+    }
+
+    /**
+     * Returns a future that completes when the board stops being evolved, or an
+     * already completed future if it is not active.
+     */
+    public synchronized CompletableFuture<Board> getCompletion() {
+        return completion;
+    }
+
+    synchronized void activate(long generations) {
+        if (state == State.ACTIVE) {
+            throw new IllegalStateException("board '" + name + "' is already active.");
+        }
+
+        remainingGenerations = generations;
+        stopRequested        = false;
+        state                = State.ACTIVE;
+        completion           = new CompletableFuture<>();
+        lastSnapshotTime     = System.nanoTime() - SNAPSHOT_INTERVAL_NANOS;
+        batchSize            = 1;
+    }
+
+    synchronized void deactivate(State state, Throwable failure) {
+        this.state = state;
+        if (failure != null) {
+            completion.completeExceptionally(failure);
+        } else {
+            completion.complete(this);
+        }
+    }
+
+    void requestStop() {
+        stopRequested = true;
+    }
+
+    boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    void consumeGenerations(long generations) {
+        remainingGenerations -= generations;
+    }
+
+    /**
+     * Returns the number of generations the pool evolves at once, which is
+     * adapted to the time it takes to evolve them.
+     */
+    long getBatchSize() {
+        return batchSize;
+    }
+
+    void setBatchSize(long batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Publishes the current generation if the board is observed, limiting the
+     * number of snapshots to roughly the frame rate unless forced.
+     */
+    void publish(boolean force) {
+        if (!observed) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (force || now - lastSnapshotTime >= SNAPSHOT_INTERVAL_NANOS) {
+            latestSnapshot.accumulateAndGet(model.snapshot(), GenerationSnapshot::merge);
+            lastSnapshotTime = now;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Board[%s, %s, generation=%d]", name, state, model.getGeneration());
+    }
+}
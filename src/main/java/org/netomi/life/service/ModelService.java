@@ -18,17 +18,104 @@ package org.netomi.life.service;
 
 import javafx.beans.property.ObjectProperty;
 import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+import org.netomi.life.model.Topology;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A simple service to access the current model.
  * <p>
  * Its mainly used as showcase for the dependency injection via guice.
+ * <p>
+ * Additionally, the service manages named {@link Board}s, e.g. for parameter sweeps,
+ * which are evolved concurrently by a shared {@link SimulationPool}. Boards can be
+ * created and evolved from any thread, while attaching a board makes its model
+ * the current model and thus must happen on the thread owning the {@link #modelProperty()}.
  *
  * @author Thomas Neidhart
  */
 public interface ModelService {
     void initModel(int rows, int cols);
+    void initModel(int rows, int cols, EngineType engineType);
+    void initModel(int rows, int cols, Topology topology);
+
+    /**
+     * Replaces the current model with an empty one evolved by an engine of the
+     * given type, a {@code null} topology keeps the topology of the engine.
+     *
+     * @throws IllegalArgumentException if the topology is not supported by the engine.
+     */
+    void initModel(int rows, int cols, EngineType engineType, Topology topology);
+    void resizeModel(int rows, int cols);
     CellularAutomaton getModel();
     void setModel(CellularAutomaton model);
     ObjectProperty<CellularAutomaton> modelProperty();
+
+    /**
+     * Creates an empty board with the given name.
+     *
+     * @throws IllegalArgumentException if a board with the given name already exists.
+     */
+    Board createBoard(String name, int rows, int cols);
+    Board createBoard(String name, int rows, int cols, EngineType engineType, Topology topology);
+
+    /**
+     * Adds a board with the given name for a copy of the current model, which
+     * is evolved by an engine of the same type.
+     *
+     * @throws IllegalArgumentException if a board with the given name already exists.
+     */
+    Board copyModelToBoard(String name);
+
+    /**
+     * Adds a board with the given name for the given model.
+     *
+     * @throws IllegalArgumentException if a board with the given name already exists.
+     */
+    Board addBoard(String name, CellularAutomaton model);
+
+    /**
+     * Returns the board with the given name, or {@code null} if there is none.
+     */
+    Board getBoard(String name);
+    Collection<Board> getBoards();
+
+    /**
+     * Stops and removes the board with the given name, detaching it if necessary.
+     */
+    void removeBoard(String name);
+
+    /**
+     * Starts evolving the board with the given name by the given number of generations,
+     * waiting while the simulation pool is saturated.
+     *
+     * @return a future that completes when the board stops being evolved.
+     * @throws IllegalArgumentException if there is no board with the given name.
+     */
+    CompletableFuture<Board> evolveBoard(String name, long generations) throws InterruptedException;
+
+    /**
+     * Stops evolving the board with the given name after its current time slice.
+     *
+     * @return a future that completes when the board stopped.
+     * @throws IllegalArgumentException if there is no board with the given name.
+     */
+    CompletableFuture<Board> stopBoard(String name);
+
+    /**
+     * Makes the model of the board with the given name the current model and
+     * publishes snapshots of its generations while it is evolved.
+     *
+     * @throws IllegalArgumentException if there is no board with the given name.
+     */
+    void attachBoard(String name);
+
+    /**
+     * Returns the board whose model is the current model, or {@code null} if none.
+     */
+    Board getAttachedBoard();
+
+    SimulationPool getSimulationPool();
 }
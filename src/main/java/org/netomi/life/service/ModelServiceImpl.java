@@ -19,17 +19,77 @@ package org.netomi.life.service;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+import org.netomi.life.model.EvolutionEngine;
+import org.netomi.life.model.Topology;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Singleton
 public class ModelServiceImpl implements ModelService {
 
     private final ObjectProperty<CellularAutomaton> modelProperty = new SimpleObjectProperty<>();
 
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+
+    private volatile Board attachedBoard;
+
+    @Inject
+    private EngineType engineType;
+
+    @Inject
+    private SimulationPool simulationPool;
+
+    public ModelServiceImpl() {
+        // detach the current board as soon as another model is shown.
+        modelProperty.addListener((observable, oldValue, newValue) -> {
+            Board board = attachedBoard;
+            if (board != null && board.getModel() != newValue) {
+                board.setObserved(false);
+                attachedBoard = null;
+            }
+        });
+    }
+
     @Override
     public void initModel(int rows, int cols) {
-        modelProperty.set(new CellularAutomaton(rows, cols));
+        initModel(rows, cols, engineType);
+    }
+
+    @Override
+    public void initModel(int rows, int cols, EngineType engineType) {
+        initModel(rows, cols, engineType, null);
+    }
+
+    @Override
+    public void initModel(int rows, int cols, Topology topology) {
+        initModel(rows, cols, engineType, topology);
+    }
+
+    @Override
+    public void initModel(int rows, int cols, EngineType engineType, Topology topology) {
+        modelProperty.set(createModel(rows, cols, engineType, topology));
+    }
+
+    /**
+     * Replaces the current model with a copy of the given dimension, which keeps
+     * the cells within both dimensions and is evolved by an engine of the same type.
+     * If there is no model yet, an empty one is created.
+     */
+    @Override
+    public void resizeModel(int rows, int cols) {
+        CellularAutomaton model = getModel();
+        if (model == null) {
+            initModel(rows, cols);
+        } else if (rows != model.getRows() || cols != model.getCols()) {
+            modelProperty.set(copyModel(model, rows, cols));
+        }
     }
 
     public CellularAutomaton getModel() {
@@ -44,4 +104,114 @@ public class ModelServiceImpl implements ModelService {
     public ObjectProperty<CellularAutomaton> modelProperty() {
         return modelProperty;
     }
+
+    @Override
+    public Board createBoard(String name, int rows, int cols) {
+        return createBoard(name, rows, cols, engineType, null);
+    }
+
+    @Override
+    public Board createBoard(String name, int rows, int cols, EngineType engineType, Topology topology) {
+        return addBoard(name, createModel(rows, cols, engineType, topology));
+    }
+
+    @Override
+    public Board copyModelToBoard(String name) {
+        CellularAutomaton model = getModel();
+        return addBoard(name, copyModel(model, model.getRows(), model.getCols()));
+    }
+
+    @Override
+    public Board addBoard(String name, CellularAutomaton model) {
+        Board board = new Board(name, model);
+        if (boards.putIfAbsent(name, board) != null) {
+            throw new IllegalArgumentException("board '" + name + "' already exists.");
+        }
+        return board;
+    }
+
+    @Override
+    public Board getBoard(String name) {
+        return boards.get(name);
+    }
+
+    @Override
+    public Collection<Board> getBoards() {
+        return new ArrayList<>(boards.values());
+    }
+
+    @Override
+    public void removeBoard(String name) {
+        Board board = boards.remove(name);
+        if (board != null) {
+            simulationPool.stop(board);
+            if (board == attachedBoard) {
+                board.setObserved(false);
+                attachedBoard = null;
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Board> evolveBoard(String name, long generations) throws InterruptedException {
+        return simulationPool.start(requireBoard(name), generations);
+    }
+
+    @Override
+    public CompletableFuture<Board> stopBoard(String name) {
+        return simulationPool.stop(requireBoard(name));
+    }
+
+    @Override
+    public void attachBoard(String name) {
+        Board board = requireBoard(name);
+        if (board == attachedBoard) {
+            return;
+        }
+
+        Board previous = attachedBoard;
+        if (previous != null) {
+            previous.setObserved(false);
+        }
+
+        board.setObserved(true);
+        attachedBoard = board;
+
+        modelProperty.set(board.getModel());
+    }
+
+    @Override
+    public Board getAttachedBoard() {
+        return attachedBoard;
+    }
+
+    @Override
+    public SimulationPool getSimulationPool() {
+        return simulationPool;
+    }
+
+    private Board requireBoard(String name) {
+        Board board = boards.get(name);
+        if (board == null) {
+            throw new IllegalArgumentException("unknown board '" + name + "'.");
+        }
+        return board;
+    }
+
+    /**
+     * Creates a copy of the given model with the given dimension, which is evolved
+     * by an engine of the same type.
+     */
+    private CellularAutomaton copyModel(CellularAutomaton model, int rows, int cols) {
+        EngineType type = EngineType.of(model.getEngine());
+        return model.resize(rows, cols, (type != null ? type : engineType).createEngine());
+    }
+
+    private static CellularAutomaton createModel(int rows, int cols, EngineType engineType, Topology topology) {
+        EvolutionEngine engine = engineType.createEngine();
+        if (topology != null) {
+            engine.setTopology(topology);
+        }
+        return new CellularAutomaton(rows, cols, engine);
+    }
 }
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.service;
+
+import org.netomi.life.model.CellularAutomaton;
+
+import javax.inject.Singleton;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evolves many {@link Board}s concurrently on a shared, bounded pool of worker threads.
+ * <p>
+ * Boards are scheduled round-robin: a worker evolves a board for a time slice,
+ * after which the board is put at the end of the queue of waiting boards. Thus
+ * every active board receives about the same share of processing time, regardless
+ * of its size or the number of generations it still has to evolve. A board
+ * evolves at least one generation per time slice, the generations are evolved
+ * in batches that take a fraction of the time slice.
+ * <p>
+ * Each board is started with a budget of generations, after which it is
+ * finished. The number of simultaneously active boards is bounded, once this
+ * limit is reached {@link #start(Board, long)} blocks until another board has
+ * finished, while {@link #tryStart(Board, long, long, TimeUnit)} gives up after
+ * the given timeout.
+ *
+ * @author Thomas Neidhart
+ */
+@Singleton
+public class SimulationPool {
+
+    public static final long DEFAULT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long MAX_BATCH_SIZE = 1L << 16;
+
+    private final ExecutorService executor;
+    private final Semaphore       permits;
+    private final int             maxActiveBoards;
+    private final long            sliceNanos;
+
+    private final Set<Board> activeBoards = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a pool with a worker per available processor that accepts up to
+     * four active boards per worker.
+     */
+    public SimulationPool() {
+        this(Runtime.getRuntime().availableProcessors(),
+             4 * Runtime.getRuntime().availableProcessors(),
+             DEFAULT_SLICE_NANOS);
+    }
+
+    public SimulationPool(int threads, int maxActiveBoards, long sliceNanos) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive.");
+        }
+        if (maxActiveBoards <= 0) {
+            throw new IllegalArgumentException("maxActiveBoards must be positive.");
+        }
+        if (sliceNanos <= 0) {
+            throw new IllegalArgumentException("sliceNanos must be positive.");
+        }
+
+        this.maxActiveBoards = maxActiveBoards;
+        this.sliceNanos      = sliceNanos;
+
+        permits = new Semaphore(maxActiveBoards, true);
+
+        // the queue never contains more than one slice per active board.
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                          new LinkedBlockingQueue<>(), new WorkerFactory());
+    }
+
+    public int getMaxActiveBoards() {
+        return maxActiveBoards;
+    }
+
+    public int getActiveBoards() {
+        return activeBoards.size();
+    }
+
+    /**
+     * Returns whether the maximum number of boards is active, i.e. whether
+     * starting another board would block.
+     */
+    public boolean isSaturated() {
+        return permits.availablePermits() == 0;
+    }
+
+    /**
+     * Starts evolving the given board by the given number of generations, waiting
+     * while the maximum number of boards is active.
+     *
+     * @return a future that completes when the board stops being evolved.
+     * @throws IllegalStateException if the board is already active.
+     */
+    public CompletableFuture<Board> start(Board board, long generations) throws InterruptedException {
+        checkStart(board, generations);
+        permits.acquire();
+        return schedule(board, generations);
+    }
+
+    /**
+     * Starts evolving the given board by the given number of generations, waiting
+     * at most the given time while the maximum number of boards is active.
+     *
+     * @return a future that completes when the board stops being evolved, or
+     *         {@code null} if the pool remained saturated.
+     * @throws IllegalStateException if the board is already active.
+     */
+    public CompletableFuture<Board> tryStart(Board board, long generations, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkStart(board, generations);
+        if (!permits.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        return schedule(board, generations);
+    }
+
+    /**
+     * Stops evolving the given board after its current time slice.
+     *
+     * @return a future that completes when the board stopped.
+     */
+    public CompletableFuture<Board> stop(Board board) {
+        board.requestStop();
+        return board.getCompletion();
+    }
+
+    /**
+     * Stops all active boards and the workers of this pool.
+     */
+    public void shutdown() {
+        for (Board board : activeBoards) {
+            board.requestStop();
+        }
+        executor.shutdown();
+    }
+
+    private static void checkStart(Board board, long generations) {
+        Objects.requireNonNull(board);
+        if (generations <= 0) {
+            throw new IllegalArgumentException("generations must be positive.");
+        }
+        if (board.getState() == Board.State.ACTIVE) {
+            throw new IllegalStateException("board '" + board.getName() + "' is already active.");
+        }
+    }
+
+    private CompletableFuture<Board> schedule(Board board, long generations) {
+        try {
+            board.activate(generations);
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+
+        CompletableFuture<Board> completion = board.getCompletion();
+        activeBoards.add(board);
+        resume(board);
+        return completion;
+    }
+
+    private void resume(Board board) {
+        try {
+            executor.execute(() -> evolveSlice(board));
+        } catch (RejectedExecutionException ex) {
+            finish(board, Board.State.IDLE, null);
+        }
+    }
+
+    /**
+     * Evolves the given board for a single time slice and puts it back into
+     * the queue unless it is finished or has been stopped.
+     * <p>
+     * The generations are evolved in batches whose size is adapted such that
+     * a batch takes a fraction of the time slice, thus the engines may evolve
+     * several generations at once while the slice is overrun only slightly.
+     */
+    private void evolveSlice(Board board) {
+        CellularAutomaton model = board.getModel();
+
+        long startTime = System.nanoTime();
+        long deadline  = startTime + sliceNanos;
+        long batchSize = board.getBatchSize();
+        try {
+            while (!board.isStopRequested()) {
+                if (board.getRemainingGenerations() <= 0 ||
+                    board.isStopOnCycle() && model.getCycle() != null) {
+                    board.setBatchSize(batchSize);
+                    board.publish(true);
+                    finish(board, Board.State.FINISHED, null);
+                    return;
+                }
+
+                long generations = Math.min(batchSize, board.getRemainingGenerations());
+                board.consumeGenerations(evolve(board, model, generations));
+
+                long now     = System.nanoTime();
+                long elapsed = now - startTime;
+                if (elapsed < sliceNanos / 4) {
+                    batchSize = Math.min(batchSize * 2, MAX_BATCH_SIZE);
+                } else if (elapsed > sliceNanos / 2) {
+                    batchSize = Math.max(batchSize / 2, 1);
+                }
+                startTime = now;
+
+                if (now - deadline >= 0) {
+                    break;
+                }
+            }
+
+            board.setBatchSize(batchSize);
+            if (board.isStopRequested()) {
+                board.publish(true);
+                finish(board, Board.State.IDLE, null);
+            } else {
+                board.publish(false);
+                resume(board);
+            }
+        } catch (Throwable ex) {
+            // the board has to give up its permit in any case, otherwise the pool shrinks.
+            finish(board, Board.State.IDLE, ex);
+            if (ex instanceof Error) {
+                throw (Error) ex;
+            }
+        }
+    }
+
+    /**
+     * Evolves the model of the given board by the given number of generations. As cycles
+     * are only detected on consecutive generations, they are evolved one by one while the
+     * board shall stop on a cycle. Otherwise they are evolved at once, skipping whole
+     * periods of a known cycle.
+     *
+     * @return the number of generations that have been evolved.
+     */
+    private static long evolve(Board board, CellularAutomaton model, long generations) {
+        if (board.isStopOnCycle()) {
+            long evolved = 0;
+            while (evolved < generations && model.getCycle() == null) {
+                model.evolveState(1);
+                evolved++;
+            }
+            return evolved;
+        } else {
+            model.skipAhead(generations);
+            return generations;
+        }
+    }
+
+    private void finish(Board board, Board.State state, Throwable failure) {
+        activeBoards.remove(board);
+        permits.release();
+        board.deactivate(state, failure);
+    }
+
+    private static class WorkerFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "simulation-pool-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
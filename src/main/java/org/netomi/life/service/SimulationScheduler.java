@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.service;
+
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.GenerationSnapshot;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Evolves a cellular automaton on a dedicated background thread.
+ * <p>
+ * The evolved generations are published as immutable {@link GenerationSnapshot}s
+ * which can be picked up by the UI at its own frame rate via {@link #pollSnapshot()}.
+ * In the speed-limited mode, the given number of generations per second are
+ * computed. If this exceeds the frame rate of the UI, the generations due
+ * within a frame are evolved at once. In the unlimited mode, the model is
+ * evolved as fast as possible in batches of generations that take about a
+ * frame each. In both cases, a single snapshot is published per batch.
+ * <p>
+ * Optionally, the simulation ends by itself as soon as the model enters a
+ * cycle, see {@link CellularAutomaton#getCycle()}. The snapshot of the last
+ * evolved generation is published in any case. As cycles can only be detected
+ * on consecutive generations, the generations of a batch are evolved one by
+ * one in this case.
+ *
+ * @author Thomas Neidhart
+ */
+public class SimulationScheduler {
+
+    private static final long SNAPSHOT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    private static final long MAX_BATCH_SIZE = 1L << 16;
+
+    private final AtomicReference<GenerationSnapshot> latestSnapshot = new AtomicReference<>();
+
+    private volatile double  generationsPerSecond = 1.0;
+    private volatile boolean unlimited;
+    private volatile boolean stopOnCycle;
+
+    private volatile boolean           running;
+    private          Thread            simulationThread;
+    private          CellularAutomaton model;
+
+    public double getGenerationsPerSecond() {
+        return generationsPerSecond;
+    }
+
+    public void setGenerationsPerSecond(double generationsPerSecond) {
+        if (generationsPerSecond <= 0) {
+            throw new IllegalArgumentException("generationsPerSecond must be positive.");
+        }
+        this.generationsPerSecond = generationsPerSecond;
+    }
+
+    public boolean isUnlimited() {
+        return unlimited;
+    }
+
+    public void setUnlimited(boolean unlimited) {
+        this.unlimited = unlimited;
+    }
+
+    public boolean isStopOnCycle() {
+        return stopOnCycle;
+    }
+
+    public void setStopOnCycle(boolean stopOnCycle) {
+        this.stopOnCycle = stopOnCycle;
+    }
+
+    public synchronized boolean isRunning() {
+        return simulationThread != null;
+    }
+
+    /**
+     * Starts evolving the given model, stopping any running simulation.
+     */
+    public synchronized void start(CellularAutomaton model) {
+        stop();
+
+        this.model = model;
+        running    = true;
+
+        simulationThread = new Thread(this::simulate, "simulation");
+        simulationThread.setDaemon(true);
+        simulationThread.start();
+    }
+
+    /**
+     * Stops the running simulation and waits until the simulation thread has terminated.
+     */
+    public synchronized void stop() {
+        if (simulationThread == null) {
+            return;
+        }
+
+        running = false;
+        simulationThread.interrupt();
+
+        boolean interrupted = false;
+        while (simulationThread.isAlive()) {
+            try {
+                simulationThread.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        simulationThread = null;
+        model            = null;
+        latestSnapshot.set(null);
+    }
+
+    /**
+     * Returns the latest generation that has not been consumed yet, or {@code null}
+     * if there is none. The snapshot also carries the changes of earlier snapshots
+     * that have not been consumed, see {@link GenerationSnapshot#merge}.
+     */
+    public GenerationSnapshot pollSnapshot() {
+        return latestSnapshot.getAndSet(null);
+    }
+
+    private void simulate() {
+        CellularAutomaton model = this.model;
+
+        long   deadline         = System.nanoTime();
+        long   lastSnapshotTime = deadline - SNAPSHOT_INTERVAL_NANOS;
+        long   batchSize        = 1;
+        double pending          = 0.0;
+        while (running) {
+            if (unlimited) {
+                long startTime = System.nanoTime();
+                evolve(model, batchSize);
+                long now = System.nanoTime();
+
+                // aim at a single batch per frame.
+                long elapsed = now - startTime;
+                if (elapsed < SNAPSHOT_INTERVAL_NANOS / 2) {
+                    batchSize = Math.min(batchSize * 2, MAX_BATCH_SIZE);
+                } else if (elapsed > SNAPSHOT_INTERVAL_NANOS * 2) {
+                    batchSize = Math.max(batchSize / 2, 1);
+                }
+
+                boolean finished = stopOnCycle && model.getCycle() != null;
+
+                // limit the number of snapshots to roughly the frame rate.
+                if (finished || now - lastSnapshotTime >= SNAPSHOT_INTERVAL_NANOS) {
+                    latestSnapshot.accumulateAndGet(model.snapshot(), GenerationSnapshot::merge);
+                    lastSnapshotTime = now;
+                }
+
+                if (finished) {
+                    return;
+                }
+
+                deadline = now;
+            } else {
+                double generationsPerFrame = generationsPerSecond * SNAPSHOT_INTERVAL_NANOS / TimeUnit.SECONDS.toNanos(1);
+
+                long interval;
+                long generations;
+                if (generationsPerFrame > 1.0) {
+                    // evolve the generations due within a frame at once, carrying over fractions.
+                    interval     = SNAPSHOT_INTERVAL_NANOS;
+                    pending     += generationsPerFrame;
+                    generations  = (long) pending;
+                    pending     -= generations;
+                } else {
+                    interval     = (long) (TimeUnit.SECONDS.toNanos(1) / generationsPerSecond);
+                    generations  = 1;
+                    pending      = 0.0;
+                }
+
+                // do not try to catch up when falling behind.
+                deadline = Math.max(deadline + interval, System.nanoTime() - interval);
+                if (!sleepUntil(deadline)) {
+                    return;
+                }
+
+                evolve(model, generations);
+                latestSnapshot.accumulateAndGet(model.snapshot(), GenerationSnapshot::merge);
+
+                if (stopOnCycle && model.getCycle() != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Evolves the given model by the given number of generations. As cycles are only detected
+     * on consecutive generations, they are evolved one by one while the simulation shall stop
+     * on a cycle. Otherwise they are evolved at once, skipping whole periods of a known cycle.
+     */
+    private void evolve(CellularAutomaton model, long generations) {
+        if (stopOnCycle) {
+            for (long i = 0; i < generations && model.getCycle() == null; i++) {
+                model.evolveState(1);
+            }
+        } else {
+            model.skipAhead(generations);
+        }
+    }
+
+    private static boolean sleepUntil(long deadline) {
+        long delay;
+        while ((delay = deadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException ex) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -16,29 +16,98 @@
  */
 package org.netomi.life.view;
 
+import javafx.animation.AnimationTimer;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
-import javafx.geometry.Point2D;
-import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
-import javafx.scene.layout.*;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import org.netomi.life.metrics.PerformanceMetrics;
+import org.netomi.life.metrics.Phase;
+import org.netomi.life.metrics.RenderEvent;
+import org.netomi.life.model.AutomatonListener;
 import org.netomi.life.model.CellularAutomaton;
-
-import java.util.ArrayList;
-import java.util.List;
+import org.netomi.life.model.ChangeSet;
+import org.netomi.life.model.GenerationSnapshot;
 
 /**
  * The main grid view to visualize the state of a cellular automata.
+ * <p>
+ * The view shows the part of the model visible through its {@link Viewport},
+ * initially the whole model. The mouse wheel zooms around the cursor, dragging
+ * with the middle mouse button or with the shift key pressed pans the view.
+ * <p>
+ * The visible cells are rendered into an image with one pixel per screen pixel,
+ * see {@link CellRaster}. The image is divided into tiles, only tiles showing
+ * changed cells are updated and repainted once per frame, and cells outside of
+ * the viewport are never read. Thus the cost of rendering a frame is bounded by
+ * the size of the view, regardless of the size of the model.
+ * <p>
+ * The view observes its model through an {@link ObservableAutomaton}, new
+ * generations computed on a background thread become visible by publishing
+ * a snapshot via {@link #publish(GenerationSnapshot)}. A snapshot only carries
+ * the cells that changed since the previous one, thus the cost of publishing
+ * a generation is proportional to the number of changes.
  *
  * @author Thomas Neidhart
  */
-public class AutomatonView extends GridPane {
+public class AutomatonView extends Pane {
+
+    private static final Color GRID_COLOR  = Color.GREY;
+    private static final Color HOVER_COLOR = Color.YELLOW;
+
+    /**
+     * The minimum size of a cell in pixels to draw the grid lines.
+     */
+    private static final double MIN_GRID_CELL_SIZE = 5.0;
+
+    /**
+     * The maximum size of a cell in pixels when zooming in.
+     */
+    private static final double MAX_CELL_SIZE = 64.0;
+
+    /**
+     * The zoom factor per step of the mouse wheel.
+     */
+    private static final double ZOOM_STEP = 1.25;
+
+    /**
+     * The size of a tile in pixels.
+     */
+    private static final int TILE_SIZE = 64;
 
     private ObjectProperty<CellularAutomaton> modelProperty = new SimpleObjectProperty<>();
 
-    private       CellView[][]  cellGrid;
+    private       ObservableAutomaton observableModel;
+
+    private final Canvas            canvas   = new Canvas();
+    private final AutomatonListener listener = (automaton, changes) -> updateChangedCells(changes);
+
+    private       WritableImage image;
+    private       CellRaster    raster;
+
+    private       Viewport      viewport  = new Viewport(0, 0, 1);
+    private       boolean       fitToView = true;
+
+    private       int           tileRows;
+    private       int           tileCols;
+    private       boolean[]     dirtyTiles;
+    private       int[]         dirtyTileList;
+    private       int           dirtyTileCount;
+    private       boolean       fullRedraw;
+
+    // the number of cells changed since the last rendering, for tracing only.
+    private       int           changedCellCount;
+
+    private       int           hoveredRow = -1;
+    private       int           hoveredCol = -1;
+
     private final MouseGestures mouseGestures = new MouseGestures();
 
     public AutomatonView() {
@@ -46,12 +115,46 @@ public class AutomatonView extends GridPane {
 
         setPadding(new Insets(2, 2, 2, 2));
 
-//        setHgap(2);
-//        setVgap(2);
+        // the canvas is sized explicitly to fill the view.
+        canvas.setManaged(false);
+        getChildren().add(canvas);
 
-        modelProperty.addListener((observable, oldValue, newValue) -> updateModel());
+        modelProperty.addListener((observable, oldValue, newValue) -> {
+            if (observableModel != null) {
+                observableModel.removeListener(listener);
+                observableModel.dispose();
+            }
+            updateModel();
+        });
 
         mouseGestures.setupGestures();
+
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (fullRedraw || dirtyTileCount > 0) {
+                    RenderEvent event = new RenderEvent();
+                    event.begin();
+
+                    long startTime = System.nanoTime();
+                    boolean full  = fullRedraw;
+                    int     tiles = render();
+                    PerformanceMetrics.getDefault().record(Phase.RENDER, System.nanoTime() - startTime);
+
+                    event.end();
+                    if (event.shouldCommit() && observableModel != null) {
+                        event.setGeneration(observableModel.getGeneration());
+                        event.setPopulation(observableModel.getPopulation());
+                        event.setChangedCells(changedCellCount);
+                        event.setEngine(observableModel.getModel().getEngine().getName());
+                        event.setTiles(tiles);
+                        event.setFullRedraw(full);
+                        event.commit();
+                    }
+                    changedCellCount = 0;
+                }
+            }
+        }.start();
     }
 
     public ObjectProperty<CellularAutomaton> modelProperty() {
@@ -62,170 +165,473 @@ public class AutomatonView extends GridPane {
         return modelProperty.get();
     }
 
+    /**
+     * Returns the adapter for the current model, or {@code null} if there is no model.
+     */
+    public ObservableAutomaton getObservableModel() {
+        return observableModel;
+    }
+
+    /**
+     * Shows the generation of the given snapshot, see {@link ObservableAutomaton#publish(GenerationSnapshot)}.
+     *
+     * @return the number of cells that changed.
+     */
+    public int publish(GenerationSnapshot snapshot) {
+        return observableModel != null ? observableModel.publish(snapshot) : 0;
+    }
+
     public void resetGrid() {
         getModel().clear();
     }
 
+    public Viewport getViewport() {
+        return viewport;
+    }
+
+    /**
+     * Shows the part of the model visible through the given viewport. The viewport
+     * is adjusted such that the model covers the view as far as possible, and its
+     * scale is limited from showing the whole model up to 64 pixels per cell.
+     */
+    public void setViewport(Viewport viewport) {
+        fitToView = false;
+        applyViewport(viewport);
+    }
+
+    /**
+     * Scales the view by the given factor, keeping the cell at the given position in place.
+     */
+    public void zoomAt(double factor, double x, double y) {
+        setViewport(viewport.zoomAt(factor, x, y));
+    }
+
+    /**
+     * Shows the whole model, also after the view has been resized.
+     */
+    public void fitToView() {
+        fitToView = true;
+        applyViewport(viewport);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        Insets insets = getInsets();
+
+        canvas.relocate(insets.getLeft(), insets.getTop());
+        canvas.setWidth(Math.max(0, getWidth() - insets.getLeft() - insets.getRight()));
+        canvas.setHeight(Math.max(0, getHeight() - insets.getTop() - insets.getBottom()));
+
+        updateRaster();
+    }
+
     private void updateModel() {
-        getChildren().clear();
-        getRowConstraints().clear();
-        getColumnConstraints().clear();
+        CellularAutomaton model = getModel();
+
+        if (model != null) {
+            observableModel = new ObservableAutomaton(model);
+            observableModel.addListener(listener);
+        } else {
+            observableModel = null;
+        }
+
+        hoveredRow = -1;
+        hoveredCol = -1;
+
+        fitToView();
+        fullRedraw = true;
+    }
+
+    /**
+     * Adjusts the raster and the tiles to the size of the canvas.
+     */
+    private void updateRaster() {
+        int width  = (int) canvas.getWidth();
+        int height = (int) canvas.getHeight();
+
+        if (raster == null || raster.getWidth() != width || raster.getHeight() != height) {
+            if (width > 0 && height > 0) {
+                image  = new WritableImage(width, height);
+                raster = new CellRaster(width, height);
+
+                tileRows       = (height + TILE_SIZE - 1) / TILE_SIZE;
+                tileCols       = (width  + TILE_SIZE - 1) / TILE_SIZE;
+                dirtyTiles     = new boolean[tileRows * tileCols];
+                dirtyTileList  = new int[tileRows * tileCols];
+                dirtyTileCount = 0;
+            } else {
+                image  = null;
+                raster = null;
+            }
+
+            applyViewport(viewport);
+        }
+        fullRedraw = true;
+    }
 
+    private void applyViewport(Viewport viewport) {
         CellularAutomaton model = getModel();
+        if (model == null || raster == null) {
+            this.viewport = viewport;
+            fullRedraw    = true;
+            return;
+        }
+
+        int    width    = raster.getWidth();
+        int    height   = raster.getHeight();
+        double fitScale = Viewport.fitScale(model.getRows(), model.getCols(), width, height);
+
+        if (fitToView) {
+            viewport = Viewport.fit(model.getRows(), model.getCols(), width, height);
+        }
 
-        cellGrid = new CellView[model.getRows()][model.getCols()];
+        viewport = viewport.clamp(model.getRows(), model.getCols(), width, height,
+                                  fitScale, Math.max(fitScale, MAX_CELL_SIZE));
 
-        for (CellularAutomaton.Cell cell : model) {
-            CellView cellView = new CellView(cell);
-            add(cellView, cell.getColumn(), cell.getRow());
+        // zooming out completely shows the whole model, also after resizing.
+        fitToView = viewport.getScale() <= fitScale;
 
-            cellGrid[cell.getRow()][cell.getColumn()] = cellView;
+        if (!viewport.equals(this.viewport) || !viewport.equals(raster.getViewport())) {
+            this.viewport = viewport;
+            raster.setViewport(viewport);
+            fullRedraw = true;
         }
+    }
+
+    /**
+     * Marks the tiles showing changed cells as dirty.
+     */
+    private void updateChangedCells(ChangeSet changes) {
+        changedCellCount += changes.getChangedCellCount();
 
-        for (int i = 0; i < model.getRows(); i++) {
-            RowConstraints row = new RowConstraints(3, 100, Double.MAX_VALUE);
-            row.setVgrow(Priority.ALWAYS);
-            getRowConstraints().add(row);
+        if (fullRedraw || raster == null) {
+            return;
         }
 
-        for (int i = 0; i < model.getCols(); i++) {
-            ColumnConstraints col = new ColumnConstraints(3, 100, Double.MAX_VALUE);
-            col.setHgrow(Priority.ALWAYS);
-            getColumnConstraints().add(col);
+        int firstRow = (int) Math.floor(viewport.rowAt(0));
+        int lastRow  = (int) Math.floor(viewport.rowAt(raster.getHeight()));
+        int firstCol = (int) Math.floor(viewport.colAt(0));
+        int lastCol  = (int) Math.floor(viewport.colAt(raster.getWidth()));
+
+        for (int i = 0; i < changes.getWordCount() && dirtyTileCount < dirtyTiles.length; i++) {
+            int row = changes.getRow(i);
+            if (row < firstRow || row > lastRow) {
+                continue;
+            }
+
+            long changed = changes.getChangedBits(i);
+            int  fromCol = (changes.getWord(i) << 6) + Long.numberOfTrailingZeros(changed);
+            int  toCol   = (changes.getWord(i) << 6) + 64 - Long.numberOfLeadingZeros(changed);
+            if (toCol <= firstCol || fromCol > lastCol) {
+                continue;
+            }
+
+            markDirty(row, fromCol, row + 1, toCol);
         }
     }
 
+    /**
+     * Marks the tiles showing any of the cells in the given region as dirty.
+     */
+    private void markDirty(int fromRow, int fromCol, int toRow, int toCol) {
+        if (raster == null) {
+            return;
+        }
+
+        // include additional pixels on each side for rounding and the hover marker.
+        int fromX = Math.max(0, (int) Math.floor(viewport.xOf(fromCol)) - 2);
+        int fromY = Math.max(0, (int) Math.floor(viewport.yOf(fromRow)) - 2);
+        int toX   = Math.min(raster.getWidth(),  (int) Math.ceil(viewport.xOf(toCol)) + 2);
+        int toY   = Math.min(raster.getHeight(), (int) Math.ceil(viewport.yOf(toRow)) + 2);
+
+        for (int tileRow = fromY / TILE_SIZE; tileRow <= (toY - 1) / TILE_SIZE && fromY < toY; tileRow++) {
+            for (int tileCol = fromX / TILE_SIZE; tileCol <= (toX - 1) / TILE_SIZE && fromX < toX; tileCol++) {
+                int tile = tileRow * tileCols + tileCol;
+                if (!dirtyTiles[tile]) {
+                    dirtyTiles[tile] = true;
+                    dirtyTileList[dirtyTileCount++] = tile;
+                }
+            }
+        }
+    }
+
+    /**
+     * Repaints all dirty tiles and returns their number.
+     */
+    private int render() {
+        ObservableAutomaton model = observableModel;
+        if (model == null || raster == null) {
+            canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            fullRedraw = false;
+            return 0;
+        }
+
+        if (fullRedraw) {
+            for (int tile = 0; tile < dirtyTiles.length; tile++) {
+                dirtyTiles[tile]    = true;
+                dirtyTileList[tile] = tile;
+            }
+            dirtyTileCount = dirtyTiles.length;
+            fullRedraw     = false;
+        }
+
+        for (int i = 0; i < dirtyTileCount; i++) {
+            int tile = dirtyTileList[i];
+            renderTile(model, tile / tileCols, tile % tileCols);
+            dirtyTiles[tile] = false;
+        }
+
+        int tiles = dirtyTileCount;
+        dirtyTileCount = 0;
+        return tiles;
+    }
+
+    private void renderTile(ObservableAutomaton model, int tileRow, int tileCol) {
+        int fromX = tileCol * TILE_SIZE;
+        int fromY = tileRow * TILE_SIZE;
+        int toX   = Math.min(fromX + TILE_SIZE, raster.getWidth());
+        int toY   = Math.min(fromY + TILE_SIZE, raster.getHeight());
+
+        raster.draw(model, fromX, fromY, toX, toY);
+
+        image.getPixelWriter().setPixels(fromX, fromY, toX - fromX, toY - fromY,
+                                         PixelFormat.getIntArgbPreInstance(),
+                                         raster.getPixels(), fromY * raster.getWidth() + fromX, raster.getWidth());
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setImageSmoothing(false);
+        gc.drawImage(image,
+                     fromX, fromY, toX - fromX, toY - fromY,
+                     fromX, fromY, toX - fromX, toY - fromY);
+
+        double cellSize = viewport.getScale();
+
+        boolean drawGrid = cellSize >= MIN_GRID_CELL_SIZE;
+        boolean hovered  = hoveredRow >= 0 &&
+                           viewport.xOf(hoveredCol + 1) >= fromX && viewport.xOf(hoveredCol) <= toX &&
+                           viewport.yOf(hoveredRow + 1) >= fromY && viewport.yOf(hoveredRow) <= toY;
+
+        if (!drawGrid && !hovered) {
+            return;
+        }
+
+        gc.save();
+        gc.beginPath();
+        gc.rect(fromX, fromY, toX - fromX, toY - fromY);
+        gc.clip();
+
+        if (drawGrid) {
+            gc.setStroke(GRID_COLOR);
+            gc.setLineWidth(0.5);
+
+            int fromRow = Math.max(0, (int) Math.ceil(viewport.rowAt(fromY)));
+            int toRow   = Math.min(model.getRows(), (int) Math.floor(viewport.rowAt(toY)));
+            int fromCol = Math.max(0, (int) Math.ceil(viewport.colAt(fromX)));
+            int toCol   = Math.min(model.getCols(), (int) Math.floor(viewport.colAt(toX)));
+
+            double x0 = Math.max(fromX, viewport.xOf(0));
+            double x1 = Math.min(toX,   viewport.xOf(model.getCols()));
+            double y0 = Math.max(fromY, viewport.yOf(0));
+            double y1 = Math.min(toY,   viewport.yOf(model.getRows()));
+
+            for (int row = fromRow; row <= toRow; row++) {
+                gc.strokeLine(x0, viewport.yOf(row), x1, viewport.yOf(row));
+            }
+
+            for (int col = fromCol; col <= toCol; col++) {
+                gc.strokeLine(viewport.xOf(col), y0, viewport.xOf(col), y1);
+            }
+        }
+
+        if (hovered) {
+            double size = Math.max(cellSize - 1, 1);
+
+            gc.setStroke(HOVER_COLOR);
+            gc.setLineWidth(1.0);
+            gc.strokeRect(viewport.xOf(hoveredCol) + 0.5, viewport.yOf(hoveredRow) + 0.5, size, size);
+        }
+
+        gc.restore();
+    }
+
     private class MouseGestures {
 
-        private MouseEvent lastMouseEventWhenDragging  = null;
-        private CellView   lastEnteredCellWhenDragging = null;
+        private int lastRowWhenDragging = -1;
+        private int lastColWhenDragging = -1;
+
+        private boolean panning;
+        private double  lastX;
+        private double  lastY;
 
         private void setupGestures() {
 
-            // Set alive status for each cell depending on the clicked button.
+            // Set alive status for each cell depending on the clicked button,
+            // or start panning with the middle button or while shift is pressed.
             setOnMousePressed(event -> {
-                Node node = event.getPickResult().getIntersectedNode();
-                if (node instanceof  CellView) {
-                    updateCell((CellView) node, event);
+                if (event.getButton() == MouseButton.MIDDLE || event.isShiftDown()) {
+                    panning = true;
+                    lastX   = event.getX();
+                    lastY   = event.getY();
+                    return;
+                }
+
+                int row = rowAt(event);
+                int col = colAt(event);
+                if (isValidCell(row, col)) {
+                    updateCell(row, col, event);
+
+                    lastRowWhenDragging = row;
+                    lastColWhenDragging = col;
                 }
             });
 
-            setOnDragDetected(event      -> AutomatonView.this.startFullDrag());
-            setOnMouseDragReleased(event -> resetDragState());
-            setOnMouseDragExited(event   -> resetDragState());
+            setOnMouseReleased(event -> {
+                panning = false;
+                resetDragState();
+            });
 
             setOnMouseDragged(event -> {
-                if (!event.isPrimaryButtonDown() && !event.isSecondaryButtonDown()) {
+                if (panning) {
+                    setViewport(viewport.pan(event.getX() - lastX, event.getY() - lastY));
+                    lastX = event.getX();
+                    lastY = event.getY();
                     return;
                 }
 
-                Node node = event.getPickResult().getIntersectedNode();
-                if (node instanceof CellView) {
-                    CellView cellView = (CellView) node;
+                if (!event.isPrimaryButtonDown() && !event.isSecondaryButtonDown()) {
+                    return;
+                }
 
-                    updateNonEnteredCells(cellView, event);
-                    updateCell(cellView, event);
+                int row = rowAt(event);
+                int col = colAt(event);
+                if (isValidCell(row, col)) {
+                    updateNonEnteredCells(row, col, event);
+                    updateCell(row, col, event);
 
-                    lastMouseEventWhenDragging  = event;
-                    lastEnteredCellWhenDragging = cellView;
+                    lastRowWhenDragging = row;
+                    lastColWhenDragging = col;
                 } else {
                     resetDragState();
                 }
+
+                updateHoveredCell(row, col);
+            });
+
+            setOnMouseMoved(event  -> updateHoveredCell(rowAt(event), colAt(event)));
+            setOnMouseExited(event -> updateHoveredCell(-1, -1));
+
+            setOnScroll(event -> {
+                if (getModel() != null && event.getDeltaY() != 0) {
+                    zoomAt(Math.pow(ZOOM_STEP, Math.signum(event.getDeltaY())),
+                           event.getX() - canvas.getLayoutX(), event.getY() - canvas.getLayoutY());
+                    updateHoveredCell(rowAt(event.getY()), colAt(event.getX()));
+                }
+                event.consume();
+            });
+
+            setOnZoom(event -> {
+                if (getModel() != null) {
+                    zoomAt(event.getZoomFactor(), event.getX() - canvas.getLayoutX(), event.getY() - canvas.getLayoutY());
+                }
+                event.consume();
             });
         }
 
-        private void resetDragState() {
-            lastMouseEventWhenDragging  = null;
-            lastEnteredCellWhenDragging = null;
+        private int rowAt(MouseEvent event) {
+            return rowAt(event.getY());
         }
 
-        private void updateCell(CellView cellView, MouseEvent mouseEvent) {
-            if (mouseEvent.isPrimaryButtonDown()) {
-                cellView.setAlive(true);
-            } else if (mouseEvent.isSecondaryButtonDown()) {
-                cellView.setAlive(false);
-            }
+        private int colAt(MouseEvent event) {
+            return colAt(event.getX());
         }
 
-        private void updateNonEnteredCells(CellView currentCell, MouseEvent currentEvent) {
-            if (lastMouseEventWhenDragging  == null ||
-                lastEnteredCellWhenDragging == null) {
-                return;
+        private int rowAt(double y) {
+            if (getModel() == null) {
+                return -1;
             }
+            return (int) Math.floor(viewport.rowAt(y - canvas.getLayoutY()));
+        }
 
-            Point2D lastPoint =
-                    new Point2D(lastMouseEventWhenDragging.getSceneX(),
-                                lastMouseEventWhenDragging.getSceneY());
-
-            Point2D currPoint =
-                    new Point2D(currentEvent.getSceneX(),
-                                currentEvent.getSceneY());
+        private int colAt(double x) {
+            if (getModel() == null) {
+                return -1;
+            }
+            return (int) Math.floor(viewport.colAt(x - canvas.getLayoutX()));
+        }
 
-            List<CellView> cellsInBoundingBox = new ArrayList<>();
+        private boolean isValidCell(int row, int col) {
+            CellularAutomaton model = getModel();
+            return model != null &&
+                   row >= 0 && row < model.getRows() &&
+                   col >= 0 && col < model.getCols();
+        }
 
-            int minRow = Math.min(lastEnteredCellWhenDragging.getRow(), currentCell.getRow());
-            int minCol = Math.min(lastEnteredCellWhenDragging.getColumn(), currentCell.getColumn());
-            int maxRow = Math.max(lastEnteredCellWhenDragging.getRow(), currentCell.getRow());
-            int maxCol = Math.max(lastEnteredCellWhenDragging.getColumn(), currentCell.getColumn());
+        private void updateHoveredCell(int row, int col) {
+            if (!isValidCell(row, col)) {
+                row = -1;
+                col = -1;
+            }
 
-            for (int i = minRow; i <= maxRow; i++) {
-                for (int j = minCol; j <= maxCol; j++) {
-                    cellsInBoundingBox.add(cellGrid[i][j]);
+            if (row != hoveredRow || col != hoveredCol) {
+                if (hoveredRow >= 0 && hoveredCol >= 0) {
+                    markDirty(hoveredRow, hoveredCol, hoveredRow + 1, hoveredCol + 1);
                 }
-            }
 
-            for (CellView cellView : cellsInBoundingBox) {
-                Point2D lastPointLocal = cellView.sceneToLocal(lastPoint);
-                Point2D currPointLocal = cellView.sceneToLocal(currPoint);
+                hoveredRow = row;
+                hoveredCol = col;
 
-                if (lineRectIntersect(lastPointLocal, currPointLocal, cellView.getBoundsInLocal())) {
-                    updateCell(cellView, currentEvent);
+                if (hoveredRow >= 0 && hoveredCol >= 0) {
+                    markDirty(hoveredRow, hoveredCol, hoveredRow + 1, hoveredCol + 1);
                 }
             }
         }
 
-        private boolean lineRectIntersect(Point2D startPoint, Point2D endPoint, Bounds rect) {
-            // check if the line has hit any of the rectangle's sides
-            // uses the Line/Line function below
-            double x1 = startPoint.getX();
-            double y1 = startPoint.getY();
-
-            double x2 = endPoint.getX();
-            double y2 = endPoint.getY();
+        private void resetDragState() {
+            lastRowWhenDragging = -1;
+            lastColWhenDragging = -1;
+        }
 
-            double rx = rect.getMinX();
-            double ry = rect.getMinY();
+        private void updateCell(int row, int col, MouseEvent mouseEvent) {
+            if (mouseEvent.isPrimaryButtonDown()) {
+                observableModel.setAlive(row, col, true);
+            } else if (mouseEvent.isSecondaryButtonDown()) {
+                observableModel.setAlive(row, col, false);
+            }
+        }
 
-            double rh = rect.getHeight();
-            double rw = rect.getWidth();
+        /**
+         * Updates all cells on the line between the last and the current cell, as
+         * drag events are not delivered for each cell when moving the mouse fast.
+         */
+        private void updateNonEnteredCells(int row, int col, MouseEvent currentEvent) {
+            if (lastRowWhenDragging < 0 || lastColWhenDragging < 0) {
+                return;
+            }
 
-            boolean left   = lineLineIntersect(x1,y1,x2,y2, rx,ry,rx, ry+rh);
-            boolean right  = lineLineIntersect(x1,y1,x2,y2, rx+rw,ry, rx+rw,ry+rh);
-            boolean top    = lineLineIntersect(x1,y1,x2,y2, rx,ry, rx+rw,ry);
-            boolean bottom = lineLineIntersect(x1,y1,x2,y2, rx,ry+rh, rx+rw,ry+rh);
+            // Bresenham's line algorithm.
+            int currentRow = lastRowWhenDragging;
+            int currentCol = lastColWhenDragging;
 
-            // if ANY of the above are true, the line
-            // has hit the rectangle
-            if (left || right || top || bottom) {
-                return true;
-            }
-            return false;
-        }
+            int deltaRow = Math.abs(row - currentRow);
+            int deltaCol = Math.abs(col - currentCol);
+            int stepRow  = currentRow < row ? 1 : -1;
+            int stepCol  = currentCol < col ? 1 : -1;
 
-        boolean lineLineIntersect(double x1, double y1, double x2, double y2, double x3, double y3, double x4, double y4) {
-            // calculate the direction of the lines
-            double delta = (y4-y3)*(x2-x1) - (x4-x3)*(y2-y1);
+            int error = deltaCol - deltaRow;
 
-            double uA = ((x4-x3)*(y1-y3) - (y4-y3)*(x1-x3)) / delta;
-            double uB = ((x2-x1)*(y1-y3) - (y2-y1)*(x1-x3)) / delta;
+            while (currentRow != row || currentCol != col) {
+                updateCell(currentRow, currentCol, currentEvent);
 
-            // if uA and uB are between 0-1, lines are colliding
-            if (uA >= 0 && uA <= 1 && uB >= 0 && uB <= 1) {
-                return true;
-            } else {
-                return false;
+                int error2 = 2 * error;
+                if (error2 > -deltaRow) {
+                    error      -= deltaRow;
+                    currentCol += stepCol;
+                }
+                if (error2 < deltaCol) {
+                    error      += deltaCol;
+                    currentRow += stepRow;
+                }
             }
         }
-
     }
 }
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.view;
+
+import java.util.Arrays;
+
+/**
+ * A raster of ARGB pixels showing the part of a model visible through a {@link Viewport}.
+ * <p>
+ * When zoomed in, each pixel shows the state of a single cell. When zoomed out,
+ * each pixel shows the density of the cells it covers, as determined by
+ * {@link ObservableAutomaton#getDensities(int, int, int[], int, int, double[])}. Only the cells
+ * within the drawn region are read, thus the cost of drawing depends on the
+ * size of the raster, not on the size of the model.
+ * <p>
+ * The raster does not depend on a running JavaFX toolkit, thus it can also
+ * be used to render frames headless.
+ *
+ * @author Thomas Neidhart
+ */
+public class CellRaster {
+
+    public static final int ALIVE_COLOR   = 0xff000000;
+    public static final int DEAD_COLOR    = 0xfffcfcfc;
+    public static final int OUTSIDE_COLOR = 0xffd8d8d8;
+
+    // the number of shades used to draw densities.
+    private static final int DENSITY_SHADES = 256;
+
+    private static final int[] DENSITY_COLORS = createDensityColors();
+
+    private final int   width;
+    private final int   height;
+    private final int[] pixels;
+
+    private Viewport viewport;
+
+    // the first row / column shown by each pixel row / column, plus the end of the last one.
+    private final int[] rowEdges;
+    private final int[] colEdges;
+
+    private final double[] densities;
+
+    public CellRaster(int width, int height) {
+        this.width  = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+
+        rowEdges = new int[height + 1];
+        colEdges = new int[width  + 1];
+
+        densities = new double[width];
+
+        setViewport(new Viewport(0, 0, 1));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the pixels in row-major order, with a scanline stride of {@link #getWidth()}.
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public Viewport getViewport() {
+        return viewport;
+    }
+
+    /**
+     * Changes the visible part of the model, the pixels are not updated until they are drawn.
+     */
+    public void setViewport(Viewport viewport) {
+        this.viewport = viewport;
+
+        for (int y = 0; y <= height; y++) {
+            rowEdges[y] = (int) Math.floor(viewport.rowAt(y));
+        }
+        for (int x = 0; x <= width; x++) {
+            colEdges[x] = (int) Math.floor(viewport.colAt(x));
+        }
+    }
+
+    /**
+     * Updates all pixels to the published state of the given model.
+     */
+    public void drawAll(ObservableAutomaton model) {
+        draw(model, 0, 0, width, height);
+    }
+
+    /**
+     * Updates the pixels of the given region to the published state of the given model.
+     */
+    public void draw(ObservableAutomaton model, int fromX, int fromY, int toX, int toY) {
+        fromX = Math.max(fromX, 0);
+        fromY = Math.max(fromY, 0);
+        toX   = Math.min(toX, width);
+        toY   = Math.min(toY, height);
+
+        if (viewport.getScale() >= 1.0) {
+            drawCells(model, fromX, fromY, toX, toY);
+        } else {
+            drawDensities(model, fromX, fromY, toX, toY);
+        }
+    }
+
+    private void drawCells(ObservableAutomaton model, int fromX, int fromY, int toX, int toY) {
+        int rows = model.getRows();
+        int cols = model.getCols();
+
+        for (int y = fromY; y < toY; y++) {
+            int row    = rowEdges[y];
+            int offset = y * width;
+
+            if (row < 0 || row >= rows) {
+                Arrays.fill(pixels, offset + fromX, offset + toX, OUTSIDE_COLOR);
+                continue;
+            }
+
+            int  currentWord = -1;
+            long word        = 0L;
+            for (int x = fromX; x < toX; x++) {
+                int col = colEdges[x];
+                if (col < 0 || col >= cols) {
+                    pixels[offset + x] = OUTSIDE_COLOR;
+                    continue;
+                }
+
+                if (col >>> 6 != currentWord) {
+                    currentWord = col >>> 6;
+                    word        = model.getWord(row, currentWord);
+                }
+                pixels[offset + x] = (word & (1L << col)) != 0 ? ALIVE_COLOR : DEAD_COLOR;
+            }
+        }
+    }
+
+    private void drawDensities(ObservableAutomaton model, int fromX, int fromY, int toX, int toY) {
+        int rows = model.getRows();
+        int cols = model.getCols();
+
+        for (int y = fromY; y < toY; y++) {
+            int fromRow = rowEdges[y];
+            int toRow   = rowEdges[y + 1];
+            int offset  = y * width;
+
+            if (toRow <= 0 || fromRow >= rows) {
+                Arrays.fill(pixels, offset + fromX, offset + toX, OUTSIDE_COLOR);
+                continue;
+            }
+
+            model.getDensities(fromRow, toRow, colEdges, fromX, toX, densities);
+
+            for (int x = fromX; x < toX; x++) {
+                pixels[offset + x] = colEdges[x + 1] <= 0 || colEdges[x] >= cols ?
+                    OUTSIDE_COLOR :
+                    densityColor(densities[x]);
+            }
+        }
+    }
+
+    /**
+     * Returns the color of a pixel covering cells of the given density. Any alive cell
+     * results in a clearly visible shade, so that sparse patterns remain visible.
+     */
+    static int densityColor(double density) {
+        if (density <= 0.0) {
+            return DEAD_COLOR;
+        }
+        return DENSITY_COLORS[(int) Math.min(DENSITY_SHADES - 1, density * DENSITY_SHADES)];
+    }
+
+    private static int[] createDensityColors() {
+        int[] colors = new int[DENSITY_SHADES];
+        for (int i = 0; i < DENSITY_SHADES; i++) {
+            double intensity = 0.25 + 0.75 * Math.sqrt((i + 1.0) / DENSITY_SHADES);
+            colors[i] = blend(DEAD_COLOR, ALIVE_COLOR, intensity);
+        }
+        return colors;
+    }
+
+    private static int blend(int from, int to, double ratio) {
+        int color = 0xff000000;
+        for (int shift = 0; shift < 24; shift += 8) {
+            int a = (from >>> shift) & 0xff;
+            int b = (to   >>> shift) & 0xff;
+            color |= (int) Math.round(a + (b - a) * ratio) << shift;
+        }
+        return color;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.view;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import org.netomi.life.model.AutomatonListener;
+import org.netomi.life.model.BitGrid;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.ChangeSet;
+import org.netomi.life.model.GenerationSnapshot;
+import org.netomi.life.model.PopulationPyramid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adapts a {@link CellularAutomaton} to the JavaFX application thread.
+ * <p>
+ * The adapter keeps its own copy of the state that is visible to the UI, which
+ * is updated by changes made to the model on the application thread and by
+ * publishing {@link GenerationSnapshot}s taken from a background thread. As
+ * the snapshots carry the changes since the previous snapshot, publishing a
+ * generation costs time proportional to the number of changes.
+ * <p>
+ * Like the model, the adapter keeps the population of blocks of cells of its
+ * state up to date from the applied changes, see {@link PopulationPyramid}. This
+ * allows to show a zoomed out view of large grids without reading all cells.
+ * <p>
+ * Observers are only notified about cells that actually changed. Properties
+ * for single cells are created on demand, thus there is no per-cell overhead
+ * unless somebody is interested in a particular cell.
+ * <p>
+ * All methods have to be called from the JavaFX application thread.
+ *
+ * @author Thomas Neidhart
+ */
+public class ObservableAutomaton {
+
+    private final CellularAutomaton model;
+    private final BitGrid           publishedState;
+    private final PopulationPyramid populationPyramid;
+
+    // the sequence number of the latest snapshot whose changes have been applied.
+    private long publishedSequence;
+
+    private final ReadOnlyLongWrapper generationProperty = new ReadOnlyLongWrapper(this, "generation");
+
+    private final Map<Integer, ReadOnlyBooleanWrapper> aliveProperties = new HashMap<>();
+
+    private final List<AutomatonListener> listeners = new ArrayList<>();
+
+    private final AutomatonListener modelListener =
+        (automaton, changes) -> applyChanges(changes, automaton.getGeneration());
+
+    public ObservableAutomaton(CellularAutomaton model) {
+        this.model = model;
+
+        publishedState    = new BitGrid(model.getRows(), model.getCols());
+        populationPyramid = new PopulationPyramid(publishedState);
+
+        model.addListener(modelListener);
+
+        synchronize();
+    }
+
+    /**
+     * Detaches the adapter from its model.
+     */
+    public void dispose() {
+        model.removeListener(modelListener);
+    }
+
+    public CellularAutomaton getModel() {
+        return model;
+    }
+
+    public int getRows() {
+        return publishedState.getRows();
+    }
+
+    public int getCols() {
+        return publishedState.getCols();
+    }
+
+    public ReadOnlyLongProperty generationProperty() {
+        return generationProperty.getReadOnlyProperty();
+    }
+
+    public long getGeneration() {
+        return generationProperty.get();
+    }
+
+    /**
+     * Returns whether the given cell is alive in the published state.
+     */
+    public boolean isAlive(int row, int col) {
+        return publishedState.get(row, col);
+    }
+
+    /**
+     * Returns the number of alive cells in the published state.
+     */
+    public int getPopulation() {
+        return populationPyramid.getPopulation();
+    }
+
+    /**
+     * Returns the fraction of alive cells of the published state in the given region,
+     * parts of the region outside the grid are ignored. The density of large regions
+     * is approximated in constant time from the population of blocks of cells.
+     */
+    public double getDensity(int fromRow, int fromCol, int toRow, int toCol) {
+        return populationPyramid.getDensity(fromRow, fromCol, toRow, toCol);
+    }
+
+    /**
+     * Determines the densities of adjacent regions spanning the given rows, region
+     * {@code i} spans the columns from {@code colEdges[i]} to {@code colEdges[i + 1]}
+     * and its density is stored in {@code densities[i]}, for {@code i} in
+     * {@code [fromIndex, toIndex)}, see {@link #getDensity(int, int, int, int)}.
+     */
+    public void getDensities(int fromRow, int toRow, int[] colEdges, int fromIndex, int toIndex, double[] densities) {
+        populationPyramid.getDensities(fromRow, toRow, colEdges, fromIndex, toIndex, densities);
+    }
+
+    /**
+     * Returns a word of the published state, see {@link BitGrid} for its layout.
+     */
+    public long getWord(int row, int word) {
+        return publishedState.getWord(row, word);
+    }
+
+    public int getWordsPerRow() {
+        return publishedState.getWordsPerRow();
+    }
+
+    /**
+     * Changes the state of the given cell in the underlying model.
+     */
+    public void setAlive(int row, int col, boolean alive) {
+        model.setAlive(row, col, alive);
+    }
+
+    /**
+     * Returns a property reflecting the published state of the given cell.
+     */
+    public ReadOnlyBooleanProperty aliveProperty(int row, int col) {
+        ReadOnlyBooleanWrapper property =
+            aliveProperties.computeIfAbsent(row * getCols() + col,
+                                            index -> new ReadOnlyBooleanWrapper(this, "alive", isAlive(row, col)));
+        return property.getReadOnlyProperty();
+    }
+
+    public void addListener(AutomatonListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(AutomatonListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Updates the published state to the given snapshot. Snapshots taken from
+     * a different model, before the model has been cleared or before the latest
+     * published snapshot are ignored.
+     * <p>
+     * Only the changes carried by the snapshot are applied. If the changes of an
+     * earlier snapshot have been missed, e.g. because it has been discarded,
+     * the whole state is taken from the model instead.
+     *
+     * @return the number of cells that changed.
+     */
+    public int publish(GenerationSnapshot snapshot) {
+        if (snapshot.getSource() != model ||
+            snapshot.getEpoch() != model.getEpoch() ||
+            snapshot.getSequence() <= publishedSequence) {
+            return 0;
+        }
+
+        if (snapshot.getBaseSequence() > publishedSequence) {
+            return synchronize();
+        }
+
+        publishedSequence = snapshot.getSequence();
+        return applyChanges(snapshot.getChanges(), snapshot.getGeneration());
+    }
+
+    /**
+     * Updates the published state to the current state of the model.
+     */
+    private int synchronize() {
+        GenerationSnapshot snapshot = model.fullSnapshot();
+
+        publishedSequence = snapshot.getSequence();
+        return applyChanges(snapshot.getChanges(), snapshot.getGeneration());
+    }
+
+    private int applyChanges(ChangeSet changes, long generation) {
+        ChangeSet effectiveChanges = changes.applyTo(publishedState);
+
+        generationProperty.set(generation);
+
+        if (effectiveChanges.isEmpty()) {
+            return 0;
+        }
+
+        populationPyramid.apply(effectiveChanges);
+
+        if (!aliveProperties.isEmpty()) {
+            effectiveChanges.forEachChangedCell((row, col, alive) -> {
+                ReadOnlyBooleanWrapper property = aliveProperties.get(row * getCols() + col);
+                if (property != null) {
+                    property.set(alive);
+                }
+            });
+        }
+
+        for (AutomatonListener listener : new ArrayList<>(listeners)) {
+            listener.stateChanged(model, effectiveChanges);
+        }
+        return effectiveChanges.getChangedCellCount();
+    }
+}
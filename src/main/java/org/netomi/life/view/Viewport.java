@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.view;
+
+import java.util.Locale;
+
+/**
+ * The visible part of a grid of cells: the cell coordinates at the top-left
+ * corner of a view and the size of a cell in pixels.
+ * <p>
+ * A scale below 1 means that multiple cells are shown by a single pixel.
+ * Instances are immutable, zooming and panning return a new viewport.
+ *
+ * @author Thomas Neidhart
+ */
+public final class Viewport {
+
+    private final double originRow;
+    private final double originCol;
+    private final double scale;
+
+    public Viewport(double originRow, double originCol, double scale) {
+        if (!(scale > 0.0) || Double.isInfinite(scale)) {
+            throw new IllegalArgumentException("scale must be positive.");
+        }
+
+        this.originRow = originRow;
+        this.originCol = originCol;
+        this.scale     = scale;
+    }
+
+    /**
+     * Returns a viewport that shows a grid of the given size completely and
+     * centered in a view of the given size.
+     */
+    public static Viewport fit(int rows, int cols, double width, double height) {
+        double scale = fitScale(rows, cols, width, height);
+        return new Viewport((rows - height / scale) / 2, (cols - width / scale) / 2, scale);
+    }
+
+    /**
+     * Returns the scale at which a grid of the given size fits into a view of the given size.
+     */
+    public static double fitScale(int rows, int cols, double width, double height) {
+        double scale = Math.min(width / cols, height / rows);
+        return scale > 0.0 ? scale : 1.0;
+    }
+
+    public double getOriginRow() {
+        return originRow;
+    }
+
+    public double getOriginCol() {
+        return originCol;
+    }
+
+    /**
+     * Returns the size of a cell in pixels.
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Returns the fractional row at the given vertical pixel position.
+     */
+    public double rowAt(double y) {
+        return originRow + y / scale;
+    }
+
+    /**
+     * Returns the fractional column at the given horizontal pixel position.
+     */
+    public double colAt(double x) {
+        return originCol + x / scale;
+    }
+
+    /**
+     * Returns the vertical pixel position of the top edge of the given row.
+     */
+    public double yOf(double row) {
+        return (row - originRow) * scale;
+    }
+
+    /**
+     * Returns the horizontal pixel position of the left edge of the given column.
+     */
+    public double xOf(double col) {
+        return (col - originCol) * scale;
+    }
+
+    /**
+     * Returns a viewport scaled by the given factor, keeping the cell at the given pixel position in place.
+     */
+    public Viewport zoomAt(double factor, double x, double y) {
+        double newScale = scale * factor;
+        return new Viewport(rowAt(y) - y / newScale, colAt(x) - x / newScale, newScale);
+    }
+
+    /**
+     * Returns a viewport moved by the given distance in pixels, i.e. the content follows the distance.
+     */
+    public Viewport pan(double dx, double dy) {
+        return new Viewport(originRow - dy / scale, originCol - dx / scale, scale);
+    }
+
+    /**
+     * Returns a viewport with a scale within the given range, that is moved such that
+     * a grid of the given size covers a view of the given size. If the grid is smaller
+     * than the view in a direction, it is centered instead.
+     */
+    public Viewport clamp(int rows, int cols, double width, double height, double minScale, double maxScale) {
+        Viewport viewport = this;
+
+        double clampedScale = Math.max(minScale, Math.min(maxScale, scale));
+        if (clampedScale != scale) {
+            viewport = zoomAt(clampedScale / scale, width / 2, height / 2);
+        }
+
+        return new Viewport(clampOrigin(viewport.originRow, rows, height / clampedScale),
+                            clampOrigin(viewport.originCol, cols, width  / clampedScale),
+                            clampedScale);
+    }
+
+    private static double clampOrigin(double origin, int cells, double visibleCells) {
+        if (visibleCells >= cells) {
+            return (cells - visibleCells) / 2;
+        }
+        return Math.max(0.0, Math.min(cells - visibleCells, origin));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Viewport)) {
+            return false;
+        }
+
+        Viewport other = (Viewport) obj;
+        return Double.compare(originRow, other.originRow) == 0 &&
+               Double.compare(originCol, other.originCol) == 0 &&
+               Double.compare(scale, other.scale) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Double.hashCode(originRow);
+        result = 31 * result + Double.hashCode(originCol);
+        result = 31 * result + Double.hashCode(scale);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Viewport(row=%.2f, col=%.2f, scale=%.4f)", originRow, originCol, scale);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the binary formats, which validate their header before allocating the state.
+ *
+ * @author Thomas Neidhart
+ */
+public class BinaryFormatTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTrip() throws IOException {
+        CellularAutomaton model = new CellularAutomaton(100, 130, EngineType.PACKED.createEngine());
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            model.setAlive(random.nextInt(100), random.nextInt(130), true);
+        }
+
+        for (ModelCodec codec : new ModelCodec[] { new BinaryModelCodec(), new SparseModelCodec() }) {
+            File file = folder.newFile();
+            codec.write(model, file);
+
+            CellularAutomaton copy = codec.read(file, EngineType.PACKED);
+            assertEquals(model.getStateHash(), copy.getStateHash());
+        }
+    }
+
+    @Test
+    public void dimensionTooLarge() throws IOException {
+        assertCorrupt(new BinaryModelCodec(), BinaryModelCodec.MAGIC, 1 << 30, 1 << 30);
+        assertCorrupt(new SparseModelCodec(), SparseModelCodec.MAGIC, 1 << 30, 1 << 30);
+        assertCorrupt(new BinaryModelCodec(), BinaryModelCodec.MAGIC, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        assertCorrupt(new BinaryModelCodec(), BinaryModelCodec.MAGIC, -1, 64);
+        assertCorrupt(new SparseModelCodec(), SparseModelCodec.MAGIC, 64, 0);
+    }
+
+    @Test
+    public void missingState() throws IOException {
+        // a valid dimension, but the file ends after the header.
+        assertCorrupt(new BinaryModelCodec(), BinaryModelCodec.MAGIC, 1 << 15, 1 << 15);
+        assertCorrupt(new SparseModelCodec(), SparseModelCodec.MAGIC, 1 << 15, 1 << 15);
+    }
+
+    private void assertCorrupt(ModelCodec codec, byte[] magic, int rows, int cols) throws IOException {
+        File file = folder.newFile();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            new ModelHeader(magic, 1, rows, cols, 0, org.netomi.life.model.Rule.CONWAY).write(channel);
+        }
+
+        try {
+            codec.read(file, EngineType.PACKED);
+            fail("expected an IOException for " + rows + "x" + cols);
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netomi.life.model.BitGrid;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Life 1.06 format, whose size is determined by the bounding box of its cells.
+ *
+ * @author Thomas Neidhart
+ */
+public class Life106FormatTest {
+
+    // the glider gun of RleFormatTest, centered at its 19th column and 5th row.
+    private static final String[] GLIDER_GUN = {
+        "6 -4", "4 -3", "6 -3", "-6 -2", "-5 -2", "2 -2", "3 -2", "16 -2", "17 -2",
+        "-7 -1", "-3 -1", "2 -1", "3 -1", "16 -1", "17 -1", "-18 0", "-17 0", "-8 0",
+        "-2 0", "2 0", "3 0", "-18 1", "-17 1", "-8 1", "-4 1", "-2 1", "-1 1",
+        "4 1", "6 1", "-8 2", "-2 2", "6 2", "-7 3", "-3 3", "-6 4", "-5 4"
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void gliderGun() throws IOException {
+        CellularAutomaton model = read("#Life 1.06\n#D Gosper glider gun\n" + String.join("\n", GLIDER_GUN) + "\n");
+
+        assertEquals(9,  model.getRows());
+        assertEquals(36, model.getCols());
+        assertEquals(36, model.getPopulation());
+
+        File file = folder.newFile();
+        Files.write(file.toPath(), RleFormatTest.GLIDER_GUN.getBytes(StandardCharsets.US_ASCII));
+        assertEquals(new RleModelCodec().read(file, EngineType.PACKED).getStateHash(), model.getStateHash());
+    }
+
+    @Test
+    public void boundingBox() throws IOException {
+        CellularAutomaton model = read("#Life 1.06\r\n-5 -3\r\n# a comment\r\n4\t2\r\n0 0");
+
+        assertEquals(6,  model.getRows());
+        assertEquals(10, model.getCols());
+        assertEquals(3,  model.getPopulation());
+        assertTrue(model.isAlive(0, 0));
+        assertTrue(model.isAlive(5, 9));
+        assertTrue(model.isAlive(3, 5));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        CellularAutomaton model = new CellularAutomaton(100, 130, EngineType.PACKED.createEngine());
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            model.setAlive(random.nextInt(100), random.nextInt(130), true);
+        }
+        // the corners determine the bounding box.
+        model.setAlive(0, 0, true);
+        model.setAlive(99, 129, true);
+
+        File file = folder.newFile();
+        new Life106ModelCodec().write(model, file);
+
+        CellularAutomaton copy = new Life106ModelCodec().read(file, EngineType.PACKED);
+        assertEquals(model.getRows(), copy.getRows());
+        assertEquals(model.getCols(), copy.getCols());
+        assertEquals(model.getStateHash(), copy.getStateHash());
+    }
+
+    @Test
+    public void emptyPattern() throws IOException {
+        assertEquals(0, read("#Life 1.06\n#D nothing\n").getPopulation());
+    }
+
+    @Test
+    public void unsupportedRule() throws IOException {
+        CellularAutomaton model =
+            new CellularAutomaton(new BitGrid(3, 3), 0,
+                                  EngineType.PACKED.createEngine(org.netomi.life.model.Rule.parse("B36/S23")));
+        try {
+            new Life106ModelCodec().write(model, folder.newFile());
+            fail("expected an IOException");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void malformedInput() throws IOException {
+        assertMalformed("");
+        assertMalformed("#Life 1.05\n0 0\n");
+        assertMalformed("#Life 1.06\n0,0\n");
+        assertMalformed("#Life 1.06\n0\n");
+        assertMalformed("#Life 1.06\nx y\n");
+        assertMalformed("#Life 1.06\n0 99999999999\n");
+        assertMalformed("#Life 1.06\n-2000000000 0\n2000000000 0\n");
+    }
+
+    private CellularAutomaton read(String pattern) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), pattern.getBytes(StandardCharsets.US_ASCII));
+        return new Life106ModelCodec().read(file, EngineType.PACKED);
+    }
+
+    private void assertMalformed(String pattern) throws IOException {
+        try {
+            read(pattern);
+            fail("expected an IOException for '" + pattern + "'");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+}
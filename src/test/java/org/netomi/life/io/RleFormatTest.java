@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netomi.life.model.BitGrid;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the run length encoded format.
+ *
+ * @author Thomas Neidhart
+ */
+public class RleFormatTest {
+
+    static final String GLIDER_GUN =
+        "#N Gosper glider gun\n" +
+        "#C the first known gun.\n" +
+        "x = 36, y = 9, rule = B3/S23\n" +
+        "24bo$22bobo$12b2o6b2o12b2o$11bo3bo4b2o12b2o$2o8bo5bo3b2o$2o8bo3bob2o4b\n" +
+        "obo$10bo5bo7bo$11bo3bo$12b2o!\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void gliderGun() throws IOException {
+        CellularAutomaton model = read(GLIDER_GUN);
+
+        assertEquals(9,  model.getRows());
+        assertEquals(36, model.getCols());
+        assertEquals(36, model.getPopulation());
+        assertEquals(org.netomi.life.model.Rule.CONWAY, model.getRule());
+
+        assertTrue(model.isAlive(0, 24));
+        assertTrue(model.isAlive(4, 0));
+        assertTrue(model.isAlive(5, 24));
+        assertTrue(model.isAlive(8, 13));
+        assertFalse(model.isAlive(8, 14));
+    }
+
+    @Test
+    public void crlfLineEndingsAndComments() throws IOException {
+        String pattern = GLIDER_GUN.replace("$2o8bo3bob2o4b", "$2o8bo3bob2o4b\n#C a comment within the cells\n")
+                                   .replace("\n", "\r\n");
+
+        assertEquals(read(GLIDER_GUN).getStateHash(), read(pattern).getStateHash());
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        BitGrid state = new BitGrid(100, 130);
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            state.set(1 + random.nextInt(97), random.nextInt(130), true);
+        }
+        // runs longer than a line and rows spanning several words.
+        state.fill(50, 0, 130);
+        state.fill(51, 3, 127);
+
+        org.netomi.life.model.Rule rule = org.netomi.life.model.Rule.parse("B36/S23");
+        CellularAutomaton model = new CellularAutomaton(state, 0, EngineType.PACKED.createEngine(rule));
+
+        File file = folder.newFile();
+        new RleModelCodec().write(model, file);
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII)) {
+            assertTrue(line, line.length() <= 70 || line.startsWith("x"));
+        }
+
+        CellularAutomaton copy = new RleModelCodec().read(file, EngineType.PACKED);
+        assertEquals(model.getRows(), copy.getRows());
+        assertEquals(model.getCols(), copy.getCols());
+        assertEquals(model.getRule(), copy.getRule());
+        assertEquals(model.getStateHash(), copy.getStateHash());
+    }
+
+    @Test
+    public void multiStateLetters() throws IOException {
+        // A is alive, B and the prefixed pA are dying cells, which are read as dead cells.
+        CellularAutomaton model = read("x = 6, y = 2, rule = B2/S/C3\nA.BA$2.pA2A.!\n");
+
+        assertEquals(3, model.getRule().getStates());
+        assertEquals(4, model.getPopulation());
+        assertTrue(model.isAlive(0, 0));
+        assertFalse(model.isAlive(0, 2));
+        assertTrue(model.isAlive(0, 3));
+        assertFalse(model.isAlive(1, 2));
+        assertTrue(model.isAlive(1, 3));
+        assertTrue(model.isAlive(1, 4));
+    }
+
+    @Test
+    public void emptyPattern() throws IOException {
+        assertEquals(0, read("x = 0, y = 0, rule = B3/S23\n!\n").getPopulation());
+        assertEquals(0, read("#C nothing\nx = 0, y = 0\n").getPopulation());
+    }
+
+    @Test
+    public void malformedInput() throws IOException {
+        assertMalformed("");
+        assertMalformed("#C only a comment\n");
+        assertMalformed("x 3, y = 3\nbo$2bo$3o!\n");
+        assertMalformed("x = three, y = 3\nbo$2bo$3o!\n");
+        assertMalformed("x = 3\nbo$2bo$3o!\n");
+        assertMalformed("x = -3, y = 3\nbo$2bo$3o!\n");
+        assertMalformed("x = 2147483647, y = 2147483647\n!\n");
+        assertMalformed("x = 3, y = 3, rule = B9/S23\nbo$2bo$3o!\n");
+        assertMalformed("x = 3, y = 3\nbo$2bo$4o!\n");
+        assertMalformed("x = 3, y = 3\nbo$2bo$$3o!\n");
+        assertMalformed("x = 3, y = 3\nbo$2b?$3o!\n");
+        assertMalformed("x = 0, y = 0\no!\n");
+    }
+
+    private CellularAutomaton read(String pattern) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), pattern.getBytes(StandardCharsets.US_ASCII));
+        return new RleModelCodec().read(file, EngineType.PACKED);
+    }
+
+    private void assertMalformed(String pattern) throws IOException {
+        try {
+            read(pattern);
+            fail("expected an IOException for '" + pattern + "'");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+}
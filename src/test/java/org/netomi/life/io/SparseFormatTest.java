@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netomi.life.model.CellularAutomaton;
+import org.netomi.life.model.EngineType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the sparse format, which has to reject tiles outside of the model.
+ *
+ * @author Thomas Neidhart
+ */
+public class SparseFormatTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTrip() throws IOException {
+        // the last band of tiles is only partially covered by the model.
+        CellularAutomaton model = new CellularAutomaton(4000, 3000, EngineType.PACKED.createEngine());
+        Random random = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            model.setAlive(random.nextInt(4000), random.nextInt(3000), true);
+        }
+        model.setAlive(3999, 2999, true);
+        model.setAlive(0, 0, true);
+
+        File file = folder.newFile();
+        new SparseModelCodec().write(model, file);
+        assertTrue("file size: " + file.length(), file.length() < 64 * 1024);
+
+        CellularAutomaton copy = new SparseModelCodec().read(file, EngineType.PACKED);
+        assertEquals(model.getRows(), copy.getRows());
+        assertEquals(model.getCols(), copy.getCols());
+        assertEquals(model.getPopulation(), copy.getPopulation());
+        assertEquals(model.getStateHash(), copy.getStateHash());
+    }
+
+    @Test
+    public void emptyModel() throws IOException {
+        CellularAutomaton model = new CellularAutomaton(100, 100, EngineType.PACKED.createEngine());
+
+        File file = folder.newFile();
+        new SparseModelCodec().write(model, file);
+
+        CellularAutomaton copy = new SparseModelCodec().read(file, EngineType.PACKED);
+        assertEquals(0, copy.getPopulation());
+    }
+
+    @Test
+    public void corruptTile() throws IOException {
+        // 100 rows span two tile rows, 130 columns span three words.
+        assertCorrupt(tile(-2, 0, 1L));
+        assertCorrupt(tile(2, 0, 1L));
+        assertCorrupt(tile(0, -2, 1L));
+        assertCorrupt(tile(0, 3, 1L));
+        // the first row of this tile overflows to 0.
+        assertCorrupt(tile(1 << 26, 0, 1L));
+        assertCorrupt(tile(Integer.MAX_VALUE, 0, 1L));
+        // rows beyond the last row of the model.
+        assertCorrupt(tile(1, 0, 1L << 36));
+    }
+
+    @Test
+    public void truncatedTiles() throws IOException {
+        // the words of the tile and the terminating tile are missing.
+        File file = write(ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN)
+                                    .putInt(0).putInt(0).putLong(3L));
+        assertCorrupt(file);
+    }
+
+    /**
+     * Returns a tile with the given row mask containing full words.
+     */
+    private static ByteBuffer tile(int tileRow, int tileCol, long rowMask) {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + Long.bitCount(rowMask) * Long.BYTES + 16)
+                                      .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(tileRow).putInt(tileCol).putLong(rowMask);
+        for (int i = 0; i < Long.bitCount(rowMask); i++) {
+            buffer.putLong(-1L);
+        }
+        return buffer.putInt(-1).putInt(-1).putLong(0L);
+    }
+
+    private void assertCorrupt(ByteBuffer tiles) throws IOException {
+        assertCorrupt(write(tiles));
+    }
+
+    private void assertCorrupt(File file) throws IOException {
+        try {
+            new SparseModelCodec().read(file, EngineType.PACKED);
+            fail("expected an IOException");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * Writes a model of 100x130 cells consisting of the given tiles.
+     */
+    private File write(ByteBuffer tiles) throws IOException {
+        File file = folder.newFile();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            new ModelHeader(SparseModelCodec.MAGIC, SparseModelCodec.VERSION, 100, 130, 0,
+                            org.netomi.life.model.Rule.CONWAY).write(channel);
+
+            try (OutputStream out = new DeflaterOutputStream(Channels.newOutputStream(channel))) {
+                out.write(tiles.array(), 0, tiles.position());
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.netomi.life.model.Grids.assertGridEquals;
+
+/**
+ * Compares the generations computed by each {@link EngineType} with those
+ * of the {@link ReferenceEngine} for each supported {@link Topology}.
+ *
+ * @author Thomas Neidhart
+ */
+@RunWith(Parameterized.class)
+public class EvolutionEngineTest {
+
+    private static final int[][] DIMENSIONS = {
+        { 1, 1 }, { 3, 5 }, { 17, 63 }, { 31, 65 }, { 64, 64 }, { 50, 127 }, { 70, 130 }, { 129, 200 }
+    };
+
+    private static final int[] GLIDER_SE = { 0, 1,  1, 2,  2, 0,  2, 1,  2, 2 };
+    private static final int[] GLIDER_SW = { 0, 1,  1, 0,  2, 0,  2, 1,  2, 2 };
+    private static final int[] GLIDER_NE = { 0, 0,  0, 1,  0, 2,  1, 2,  2, 1 };
+    private static final int[] GLIDER_NW = { 0, 0,  0, 1,  0, 2,  1, 0,  2, 1 };
+    private static final int[] BLINKER   = { 0, 0,  0, 1,  0, 2 };
+
+    @Parameters(name = "{0} {1}")
+    public static List<Object[]> parameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        for (EngineType engineType : EngineType.values()) {
+            EvolutionEngine engine = engineType.createEngine();
+            for (Topology topology : Topology.values()) {
+                if (engine.supports(topology)) {
+                    parameters.add(new Object[] { engineType, topology });
+                }
+            }
+        }
+        return parameters;
+    }
+
+    @Parameter(0)
+    public EngineType engineType;
+
+    @Parameter(1)
+    public Topology topology;
+
+    private EvolutionEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = createEngine();
+    }
+
+    @Test
+    public void engineTypeOfEngine() {
+        assertEquals(engineType, EngineType.of(engine));
+    }
+
+    @Test
+    public void randomGrids() {
+        for (int[] dimension : DIMENSIONS) {
+            for (long seed = 0; seed < 3; seed++) {
+                engine = createEngine();
+                BitGrid grid = Grids.random(dimension[0], dimension[1], 0.35, seed);
+                assertGenerations(dimension[0] + "x" + dimension[1] + " seed " + seed, grid, 16);
+            }
+        }
+    }
+
+    @Test
+    public void edgeAndCornerPatterns() {
+        for (int[] dimension : new int[][] { { 40, 70 }, { 64, 128 }, { 9, 131 } }) {
+            int rows = dimension[0];
+            int cols = dimension[1];
+
+            BitGrid grid = new BitGrid(rows, cols);
+
+            // gliders heading into each corner.
+            Grids.place(grid, rows - 3, cols - 3, GLIDER_SE);
+            Grids.place(grid, rows - 3, 0,        GLIDER_SW);
+            Grids.place(grid, 0,        cols - 3, GLIDER_NE);
+            Grids.place(grid, 0,        0,        GLIDER_NW);
+
+            // blinkers along the edges, crossing a word boundary where possible.
+            Grids.place(grid, 0,        62 % (cols - 2), BLINKER);
+            Grids.place(grid, rows - 1, cols / 2,        BLINKER);
+            Grids.place(grid, rows / 2, 0,               BLINKER);
+            Grids.place(grid, rows / 2, cols - 3,        BLINKER);
+
+            engine = createEngine();
+            assertGenerations(rows + "x" + cols, grid, 40);
+        }
+    }
+
+    @Test
+    public void multipleGenerations() {
+        for (int[] dimension : new int[][] { { 31, 65 }, { 70, 130 } }) {
+            BitGrid grid     = Grids.random(dimension[0], dimension[1], 0.4, 42);
+            BitGrid[] expected = Grids.expected(grid, engine.getRule(), engine.getTopology(), 64);
+
+            for (int generations : new int[] { 0, 1, 2, 3, 7, 64 }) {
+                engine = createEngine();
+
+                BitGrid current = Grids.copy(grid);
+                BitGrid next    = new BitGrid(grid.getRows(), grid.getCols());
+                BitGrid scratch = new BitGrid(grid.getRows(), grid.getCols());
+
+                engine.evolve(current, next, scratch, generations);
+
+                String message = dimension[0] + "x" + dimension[1] + " after " + generations + " generations";
+                assertGridEquals(message, expected[generations], next);
+                assertGridEquals(message + ", current modified", grid, current);
+            }
+        }
+    }
+
+    @Test
+    public void successiveBatches() {
+        BitGrid grid = Grids.random(50, 127, 0.4, 7);
+        BitGrid[] expected = Grids.expected(grid, engine.getRule(), engine.getTopology(), 1 + 2 + 5 + 1 + 8);
+
+        BitGrid current = Grids.copy(grid);
+        BitGrid next    = new BitGrid(grid.getRows(), grid.getCols());
+        BitGrid scratch = new BitGrid(grid.getRows(), grid.getCols());
+
+        int generation = 0;
+        for (int generations : new int[] { 1, 2, 5, 1, 8 }) {
+            engine.evolve(current, next, scratch, generations);
+            generation += generations;
+            assertGridEquals("generation " + generation, expected[generation], next);
+
+            BitGrid tmp = current;
+            current = next;
+            next    = tmp;
+        }
+    }
+
+    private EvolutionEngine createEngine() {
+        EvolutionEngine engine = engineType.createEngine();
+        engine.setTopology(topology);
+        return engine;
+    }
+
+    /**
+     * Evolves the given grid double buffered and compares each generation with the reference.
+     */
+    private void assertGenerations(String message, BitGrid grid, int generations) {
+        BitGrid[] expected = Grids.expected(grid, engine.getRule(), engine.getTopology(), generations);
+
+        BitGrid current = Grids.copy(grid);
+        BitGrid next    = new BitGrid(grid.getRows(), grid.getCols());
+
+        for (int generation = 1; generation <= generations; generation++) {
+            engine.evolve(current, next);
+            assertGridEquals(message + ", generation " + generation, expected[generation], next);
+
+            BitGrid tmp = current;
+            current = next;
+            next    = tmp;
+        }
+    }
+}
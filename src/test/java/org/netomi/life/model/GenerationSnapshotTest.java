@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.netomi.life.model.Grids.assertGridEquals;
+
+/**
+ * Tests that the changes carried by {@link GenerationSnapshot}s reproduce the
+ * state of their automaton.
+ *
+ * @author Thomas Neidhart
+ */
+public class GenerationSnapshotTest {
+
+    private static final int[] GLIDER = { 0, 1,  1, 2,  2, 0,  2, 1,  2, 2 };
+
+    @Test
+    public void changesReproduceTheState() throws Exception {
+        CellularAutomaton model   = automaton(Grids.random(100, 150, 0.3, 1));
+        BitGrid           replica = new BitGrid(100, 150);
+        model.fullSnapshot().getChanges().applyTo(replica);
+
+        Random random = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            model.evolveState(1 + random.nextInt(4));
+            if (random.nextBoolean()) {
+                model.setAlive(random.nextInt(100), random.nextInt(150), random.nextBoolean());
+            }
+
+            GenerationSnapshot snapshot = model.snapshot();
+            assertEquals(model.getGeneration(), snapshot.getGeneration());
+            assertEquals(snapshot.getSequence() - 1, snapshot.getBaseSequence());
+
+            snapshot.getChanges().applyTo(replica);
+            assertState("generation " + model.getGeneration(), model, replica);
+        }
+    }
+
+    @Test
+    public void mergedSnapshotsReproduceTheState() throws Exception {
+        CellularAutomaton model   = automaton(Grids.random(64, 200, 0.3, 3));
+        BitGrid           replica = new BitGrid(64, 200);
+        model.fullSnapshot().getChanges().applyTo(replica);
+
+        GenerationSnapshot pending = null;
+        for (int i = 0; i < 40; i++) {
+            model.evolveState(1);
+            pending = GenerationSnapshot.merge(pending, model.snapshot());
+
+            if (i % 7 == 6) {
+                assertEquals(pending.getSequence() - 7, pending.getBaseSequence());
+
+                pending.getChanges().applyTo(replica);
+                assertState("generation " + model.getGeneration(), model, replica);
+                pending = null;
+            }
+        }
+    }
+
+    @Test
+    public void changesAreProportionalToTheActivity() {
+        BitGrid grid = new BitGrid(1024, 1024);
+        Grids.place(grid, 500, 500, GLIDER);
+
+        CellularAutomaton model = automaton(grid);
+        model.snapshot();
+
+        model.evolveState(4);
+        ChangeSet changes = model.snapshot().getChanges();
+        assertTrue("changed words: " + changes.getWordCount(), changes.getWordCount() <= 8);
+
+        // nothing changed since the previous snapshot.
+        assertTrue(model.snapshot().getChanges().isEmpty());
+    }
+
+    @Test
+    public void clearingMarksEveryCell() throws Exception {
+        CellularAutomaton model   = automaton(Grids.random(30, 70, 0.5, 4));
+        BitGrid           replica = new BitGrid(30, 70);
+        model.fullSnapshot().getChanges().applyTo(replica);
+        model.snapshot();
+
+        model.clear();
+        GenerationSnapshot snapshot = model.snapshot();
+        assertEquals(model.getEpoch(), snapshot.getEpoch());
+
+        snapshot.getChanges().applyTo(replica);
+        assertState("cleared", model, replica);
+    }
+
+    private static CellularAutomaton automaton(BitGrid grid) {
+        return new CellularAutomaton(Grids.copy(grid), 0, EngineType.PACKED.createEngine());
+    }
+
+    private static void assertState(String message, CellularAutomaton model, BitGrid replica) throws Exception {
+        model.readState((state, generation) -> assertGridEquals(message, state, replica));
+    }
+}
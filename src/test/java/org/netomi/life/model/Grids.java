@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Helpers to create grids and compute their expected evolution with
+ * the {@link ReferenceEngine}.
+ *
+ * @author Thomas Neidhart
+ */
+final class Grids {
+
+    private Grids() {}
+
+    /**
+     * Returns a grid of the given dimension whose cells are alive with the given probability.
+     */
+    static BitGrid random(int rows, int cols, double density, long seed) {
+        Random random = new Random(seed);
+        BitGrid grid = new BitGrid(rows, cols);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                grid.set(row, col, random.nextDouble() < density);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Sets the cells given as pairs of row and column offsets relative to the given origin.
+     */
+    static void place(BitGrid grid, int row, int col, int... offsets) {
+        for (int i = 0; i < offsets.length; i += 2) {
+            grid.set(row + offsets[i], col + offsets[i + 1], true);
+        }
+    }
+
+    static BitGrid copy(BitGrid grid) {
+        BitGrid copy = new BitGrid(grid.getRows(), grid.getCols());
+        copy.copyFrom(grid);
+        return copy;
+    }
+
+    /**
+     * Returns the first {@code generations + 1} generations of the given grid as computed
+     * by the {@link ReferenceEngine}.
+     * <p>
+     * An {@link Topology#UNBOUNDED unbounded} grid is evolved on a plane that is larger
+     * than the grid by as many cells as generations are computed, thus no cell outside
+     * of it can affect the grid.
+     */
+    static BitGrid[] expected(BitGrid grid, Rule rule, Topology topology, int generations) {
+        int padding = topology.isBounded() ? 0 : generations + 1;
+
+        ReferenceEngine engine = new ReferenceEngine();
+        engine.setRule(rule);
+        engine.setTopology(topology.isBounded() ? topology : Topology.PLANE);
+
+        BitGrid current = new BitGrid(grid.getRows() + 2 * padding, grid.getCols() + 2 * padding);
+        copy(grid, 0, 0, current, padding, padding, grid.getRows(), grid.getCols());
+
+        BitGrid[] result = new BitGrid[generations + 1];
+        for (int generation = 0; ; generation++) {
+            result[generation] = new BitGrid(grid.getRows(), grid.getCols());
+            copy(current, padding, padding, result[generation], 0, 0, grid.getRows(), grid.getCols());
+
+            if (generation == generations) {
+                return result;
+            }
+
+            BitGrid next = new BitGrid(current.getRows(), current.getCols());
+            engine.evolve(current, next);
+            current = next;
+        }
+    }
+
+    /**
+     * Asserts that both grids are equal including the unused bits of the last word of each row.
+     */
+    static void assertGridEquals(String message, BitGrid expected, BitGrid actual) {
+        assertEquals(message + ": rows", expected.getRows(), actual.getRows());
+        assertEquals(message + ": cols", expected.getCols(), actual.getCols());
+
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int word = 0; word < expected.getWordsPerRow(); word++) {
+                if (expected.getWord(row, word) != actual.getWord(row, word)) {
+                    assertEquals(message + ": row " + row + ", word " + word,
+                                 Long.toBinaryString(expected.getWord(row, word)),
+                                 Long.toBinaryString(actual.getWord(row, word)));
+                }
+            }
+        }
+    }
+
+    private static void copy(BitGrid source, int sourceRow, int sourceCol,
+                             BitGrid target, int targetRow, int targetCol,
+                             int rows, int cols) {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                target.set(targetRow + row, targetCol + col, source.get(sourceRow + row, sourceCol + col));
+            }
+        }
+    }
+}
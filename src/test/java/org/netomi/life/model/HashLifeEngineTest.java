@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.netomi.life.model.Grids.assertGridEquals;
+
+/**
+ * Tests the properties of the {@link HashLifeEngine} beyond its results, which
+ * are compared with the reference engine by the {@link EvolutionEngineTest}.
+ *
+ * @author Thomas Neidhart
+ */
+public class HashLifeEngineTest {
+
+    private static final int[] GLIDER_SE = { 0, 1,  1, 2,  2, 0,  2, 1,  2, 2 };
+    private static final int[] BLINKER   = { 0, 0,  0, 1,  0, 2 };
+
+    @Test
+    public void onlyUnboundedTopology() {
+        HashLifeEngine engine = new HashLifeEngine();
+        assertEquals(Topology.UNBOUNDED, engine.getTopology());
+
+        for (Topology topology : Topology.values()) {
+            assertEquals(topology.toString(), topology == Topology.UNBOUNDED, engine.supports(topology));
+        }
+
+        try {
+            engine.setTopology(Topology.PLANE);
+            fail("expected an IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void cellsEvolveOutsideOfTheGrid() {
+        BitGrid grid = new BitGrid(32, 32);
+        Grids.place(grid, 20, 20, GLIDER_SE);
+        Grids.place(grid, 5,  5,  BLINKER);
+
+        // after 4096 generations the glider has left the grid, the blinker is in its initial phase.
+        BitGrid expected = new BitGrid(32, 32);
+        Grids.place(expected, 5, 5, BLINKER);
+
+        HashLifeEngine engine = new HashLifeEngine();
+        BitGrid next = new BitGrid(32, 32);
+        engine.evolve(grid, next, 4096);
+        assertGridEquals("generation 4096", expected, next);
+
+        // a glider that left the grid does not reenter it on the opposite side.
+        BitGrid after = new BitGrid(32, 32);
+        engine.evolve(next, after, 2);
+        assertGridEquals("generation 4098", expected, after);
+    }
+
+    @Test
+    public void garbageCollection() {
+        BitGrid   grid     = Grids.random(64, 64, 0.4, 3);
+        BitGrid[] expected = Grids.expected(grid, Rule.CONWAY, Topology.UNBOUNDED, 100);
+
+        HashLifeEngine engine = new HashLifeEngine(1 << 12);
+
+        BitGrid current = Grids.copy(grid);
+        BitGrid next    = new BitGrid(64, 64);
+        for (int generation = 1; generation <= 100; generation++) {
+            engine.evolve(current, next);
+            assertGridEquals("generation " + generation, expected[generation], next);
+
+            BitGrid tmp = current;
+            current = next;
+            next    = tmp;
+        }
+    }
+
+    @Test
+    public void nodeCacheShrinks() {
+        HashLifeEngine engine = new HashLifeEngine(1 << 20);
+
+        BitGrid grid = Grids.random(256, 256, 0.4, 4);
+        engine.evolve(grid, new BitGrid(256, 256), 1024);
+
+        int capacity = engine.getNodeCapacity();
+        assertTrue("capacity " + capacity, capacity > engine.getNodeCount());
+
+        // changing the rule discards the plane, only the empty nodes are retained.
+        engine.setRule(Rule.parse("B36/S23"));
+        assertTrue("capacity " + engine.getNodeCapacity() + " < " + capacity, engine.getNodeCapacity() < capacity);
+        assertTrue("capacity " + engine.getNodeCapacity(), engine.getNodeCapacity() <= 1 << 10);
+    }
+
+    @Test
+    public void maxNodesFromSystemProperty() {
+        String previous = System.getProperty(HashLifeEngine.MAX_NODES_PROPERTY);
+        try {
+            System.setProperty(HashLifeEngine.MAX_NODES_PROPERTY, "5000");
+            assertEquals(5000, ((HashLifeEngine) EngineType.HASHLIFE.createEngine()).getMaxNodes());
+
+            System.setProperty(HashLifeEngine.MAX_NODES_PROPERTY, "many");
+            try {
+                EngineType.HASHLIFE.createEngine();
+                fail("expected an IllegalArgumentException");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+
+            System.clearProperty(HashLifeEngine.MAX_NODES_PROPERTY);
+            assertEquals(HashLifeEngine.DEFAULT_MAX_NODES, ((HashLifeEngine) EngineType.HASHLIFE.createEngine()).getMaxNodes());
+        } finally {
+            if (previous != null) {
+                System.setProperty(HashLifeEngine.MAX_NODES_PROPERTY, previous);
+            } else {
+                System.clearProperty(HashLifeEngine.MAX_NODES_PROPERTY);
+            }
+        }
+    }
+}
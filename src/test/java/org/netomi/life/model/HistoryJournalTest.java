@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.netomi.life.model.Grids.assertGridEquals;
+
+/**
+ * Tests that a {@link HistoryJournal} restores recorded generations, also if
+ * they have been spilled to disk.
+ *
+ * @author Thomas Neidhart
+ */
+public class HistoryJournalTest {
+
+    private static final int GENERATIONS = 30;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void spilledGenerationsCanBeRewound() throws Exception {
+        File              spillFile = folder.newFile("history.bin");
+        HistoryJournal    journal   = new HistoryJournal(8, 4, spillFile);
+        CellularAutomaton model     = automaton(Grids.random(40, 70, 0.4, 1));
+        model.setJournal(journal);
+
+        BitGrid[] states = evolve(model, 0);
+        assertTrue("spilled groups: " + journal.getSpilledGroupCount(), journal.getSpilledGroupCount() > 2);
+        assertTrue("entries: " + journal.getSize(), journal.getSize() <= journal.getCapacity());
+        assertEquals(0, journal.getFirstGeneration());
+        assertEquals(GENERATIONS, journal.getLastGeneration());
+
+        for (int generation = 0; generation <= GENERATIONS; generation++) {
+            assertGridEquals("seek " + generation, states[generation], journal.seek(generation));
+        }
+
+        // the generation is in the middle of a spilled group, which has to be moved back to memory.
+        int spilledGroups = journal.getSpilledGroupCount();
+        model.rewind(5);
+        assertEquals(5, model.getGeneration());
+        assertEquals(5, journal.getLastGeneration());
+        assertTrue("spilled groups: " + journal.getSpilledGroupCount(), journal.getSpilledGroupCount() < spilledGroups);
+        assertState("rewound", model, states[5]);
+
+        // evolving again has to record the same generations in place of the discarded ones.
+        BitGrid[] replayed = evolve(model, 5);
+        for (int generation = 0; generation <= GENERATIONS; generation++) {
+            assertGridEquals("replayed " + generation, states[generation], replayed[generation]);
+            assertGridEquals("seek again " + generation, states[generation], journal.seek(generation));
+        }
+
+        journal.close();
+    }
+
+    @Test
+    public void clearingIsRecordedAsEdit() throws Exception {
+        HistoryJournal    journal = new HistoryJournal(16, 4);
+        CellularAutomaton model   = automaton(Grids.random(20, 30, 0.5, 2));
+        model.setJournal(journal);
+
+        model.evolveState(10);
+        BitGrid beforeClear = journal.seek(10);
+
+        model.clear();
+        assertEquals(10, model.getGeneration());
+        assertEquals(0, model.getPopulation());
+        assertEquals(0, journal.getFirstGeneration());
+        assertGridEquals("cleared", new BitGrid(20, 30), journal.seek(10));
+
+        model.rewind(9);
+        model.evolveState(1);
+        assertState("evolved after rewind", model, beforeClear);
+    }
+
+    /**
+     * Evolves the model from the given generation up to {@link #GENERATIONS} and returns the states
+     * of all generations up to then, earlier ones are taken from the journal.
+     */
+    private static BitGrid[] evolve(CellularAutomaton model, int fromGeneration) throws Exception {
+        BitGrid[] states = new BitGrid[GENERATIONS + 1];
+        for (int generation = 0; generation < fromGeneration; generation++) {
+            states[generation] = model.getJournal().seek(generation);
+        }
+
+        for (int generation = fromGeneration; ; generation++) {
+            assertEquals(generation, model.getGeneration());
+
+            int current = generation;
+            model.readState((state, g) -> states[current] = Grids.copy(state));
+
+            if (generation == GENERATIONS) {
+                return states;
+            }
+            model.evolveState(1);
+        }
+    }
+
+    private static CellularAutomaton automaton(BitGrid grid) {
+        return new CellularAutomaton(Grids.copy(grid), 0, EngineType.PACKED.createEngine());
+    }
+
+    private static void assertState(String message, CellularAutomaton model, BitGrid expected) throws Exception {
+        model.readState((state, generation) -> assertGridEquals(message, expected, state));
+    }
+}
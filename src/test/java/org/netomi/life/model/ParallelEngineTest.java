@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.netomi.life.model.Grids.assertGridEquals;
+
+/**
+ * Tests the {@link ParallelEngine} on grids that are split into many bands,
+ * each of which loads the ghost cells at its borders on its own.
+ *
+ * @author Thomas Neidhart
+ */
+public class ParallelEngineTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void tearDown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void manyBands() {
+        for (String notation : new String[] { "B3/S23", "B2/S/C3", "R5,C0,M1,S34..58,B34..45,NM" }) {
+            Rule rule = Rule.parse(notation);
+            int  rows = rule.getRange() > 1 ? 301 : 1001;
+
+            for (Topology topology : new Topology[] { Topology.PLANE, Topology.TORUS, Topology.KLEIN_BOTTLE }) {
+                ParallelEngine engine = new ParallelEngine(POOL);
+                engine.setRule(rule);
+                engine.setTopology(topology);
+
+                BitGrid   grid     = Grids.random(rows, 130, 0.4, rows);
+                BitGrid[] expected = Grids.expected(grid, rule, topology, 3);
+
+                BitGrid current = Grids.copy(grid);
+                BitGrid next    = new BitGrid(grid.getRows(), grid.getCols());
+
+                for (int generation = 1; generation < expected.length; generation++) {
+                    engine.evolve(current, next);
+                    assertGridEquals(notation + " " + topology + ", generation " + generation, expected[generation], next);
+
+                    BitGrid tmp = current;
+                    current = next;
+                    next    = tmp;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parallelismFromSystemProperty() {
+        String previous = System.getProperty(ParallelEngine.PARALLELISM_PROPERTY);
+        try {
+            System.setProperty(ParallelEngine.PARALLELISM_PROPERTY, "3");
+            assertEquals(3, ((ParallelEngine) EngineType.PARALLEL.createEngine()).getParallelism());
+
+            for (String value : new String[] { "many", "0" }) {
+                System.setProperty(ParallelEngine.PARALLELISM_PROPERTY, value);
+                try {
+                    EngineType.PARALLEL.createEngine();
+                    fail("expected an IllegalArgumentException for " + value);
+                } catch (IllegalArgumentException expected) {
+                    // expected
+                }
+            }
+
+            System.clearProperty(ParallelEngine.PARALLELISM_PROPERTY);
+            assertEquals(ForkJoinPool.commonPool().getParallelism(),
+                         ((ParallelEngine) EngineType.PARALLEL.createEngine()).getParallelism());
+        } finally {
+            if (previous != null) {
+                System.setProperty(ParallelEngine.PARALLELISM_PROPERTY, previous);
+            } else {
+                System.clearProperty(ParallelEngine.PARALLELISM_PROPERTY);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the {@link PopulationPyramid} of a {@link CellularAutomaton} is
+ * kept up to date with its state.
+ *
+ * @author Thomas Neidhart
+ */
+public class PopulationPyramidTest {
+
+    @Test
+    public void countsFollowTheState() throws Exception {
+        CellularAutomaton model = new CellularAutomaton(Grids.random(300, 200, 0.3, 1), 0, EngineType.PACKED.createEngine());
+
+        Random random = new Random(2);
+        for (int i = 0; i < 20; i++) {
+            model.evolveState(1 + random.nextInt(3));
+            for (int j = 0; j < 10; j++) {
+                model.setAlive(random.nextInt(300), random.nextInt(200), random.nextBoolean());
+            }
+            assertCounts("generation " + model.getGeneration(), model);
+        }
+
+        model.clear();
+        assertCounts("cleared", model);
+    }
+
+    @Test
+    public void densityOfRegions() {
+        BitGrid grid = new BitGrid(256, 256);
+        grid.fill(0, 0, 256);
+        for (int row = 64; row < 128; row++) {
+            grid.fill(row, 64, 128);
+        }
+
+        PopulationPyramid pyramid = new PopulationPyramid(grid);
+        assertEquals(256 + 64 * 64, pyramid.getPopulation());
+        assertEquals(1.0, pyramid.getDensity(64, 64, 128, 128), 0.0);
+        assertEquals(0.0, pyramid.getDensity(128, 128, 256, 256), 0.0);
+        assertEquals(1.0, pyramid.getDensity(0, 0, 1, 256), 0.0);
+        assertEquals(0.0, pyramid.getDensity(300, 300, 400, 400), 0.0);
+    }
+
+    private static void assertCounts(String message, CellularAutomaton model) throws Exception {
+        model.readState((state, generation) -> {
+            assertEquals(message, state.population(), model.getPopulation());
+
+            // regions aligned to blocks are counted exactly.
+            for (int row = 0; row < state.getRows(); row += 64) {
+                for (int col = 0; col < state.getCols(); col += 64) {
+                    int toRow = Math.min(row + 64, state.getRows());
+                    int toCol = Math.min(col + 64, state.getCols());
+
+                    int alive = 0;
+                    for (int r = row; r < toRow; r++) {
+                        for (int c = col; c < toCol; c++) {
+                            alive += state.get(r, c) ? 1 : 0;
+                        }
+                    }
+                    assertEquals(message + " at (" + row + ", " + col + ")",
+                                 (double) alive / ((toRow - row) * (toCol - col)),
+                                 model.getDensity(row, col, toRow, toCol), 1e-12);
+                }
+            }
+        });
+    }
+}
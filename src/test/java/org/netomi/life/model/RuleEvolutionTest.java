@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.netomi.life.model.Grids.assertGridEquals;
+
+/**
+ * Compares the generations computed by each {@link EngineType} with those of
+ * the {@link ReferenceEngine} for the different families of rules, on each
+ * supported {@link Topology}.
+ *
+ * @author Thomas Neidhart
+ */
+@RunWith(Parameterized.class)
+public class RuleEvolutionTest {
+
+    private static final String[] RULES = {
+        "B36/S23",
+        "B2/S/C3",
+        "B3/S23/C5",
+        "R5,C0,M1,S34..58,B34..45,NM",
+        "R2,C0,M0,S2..5,B3..4,NN",
+        "R3,C4,M1,S8..20,B9..14,NM",
+        "R70,C0,M1,S40..900,B50..400,NM"
+    };
+
+    private static final int[][] DIMENSIONS       = { { 3, 5 }, { 17, 63 }, { 31, 65 }, { 40, 130 } };
+    private static final int[][] SMALL_DIMENSIONS = { { 3, 5 }, { 9, 150 } };
+
+    @Parameters(name = "{0} {1}")
+    public static List<Object[]> parameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        for (EngineType engineType : EngineType.values()) {
+            EvolutionEngine engine = engineType.createEngine();
+            for (String notation : RULES) {
+                if (engine.supports(Rule.parse(notation))) {
+                    parameters.add(new Object[] { engineType, notation });
+                }
+            }
+        }
+        return parameters;
+    }
+
+    @Parameter(0)
+    public EngineType engineType;
+
+    @Parameter(1)
+    public String notation;
+
+    @Test
+    public void randomGrids() {
+        Rule rule = Rule.parse(notation);
+
+        // the reference engine counts the neighbors of a cell in O(range^2).
+        int[][] dimensions  = rule.getRange() > 8 ? SMALL_DIMENSIONS : DIMENSIONS;
+        int     generations = rule.getRange() > 1 ? 4 : 12;
+
+        for (Topology topology : Topology.values()) {
+            if (!engineType.createEngine().supports(topology)) {
+                continue;
+            }
+
+            for (int[] dimension : dimensions) {
+                EvolutionEngine engine = engineType.createEngine(rule);
+                engine.setTopology(topology);
+
+                BitGrid   grid     = Grids.random(dimension[0], dimension[1], 0.4, dimension[1]);
+                BitGrid[] expected = Grids.expected(grid, rule, topology, generations);
+
+                BitGrid current = Grids.copy(grid);
+                BitGrid next    = new BitGrid(grid.getRows(), grid.getCols());
+
+                for (int generation = 1; generation <= generations; generation++) {
+                    engine.evolve(current, next);
+
+                    String message = topology + " " + dimension[0] + "x" + dimension[1] + ", generation " + generation;
+                    assertGridEquals(message, expected[generation], next);
+
+                    BitGrid tmp = current;
+                    current = next;
+                    next    = tmp;
+                }
+            }
+        }
+    }
+}
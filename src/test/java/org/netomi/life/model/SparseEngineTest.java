@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.netomi.life.model.Grids.assertGridEquals;
+
+/**
+ * Tests the tracking of active tiles by the {@link SparseEngine}, its results
+ * are compared with the reference engine by the {@link EvolutionEngineTest}.
+ *
+ * @author Thomas Neidhart
+ */
+public class SparseEngineTest {
+
+    private static final int[] BLINKER = { 0, 0,  0, 1,  0, 2 };
+    private static final int[] BLOCK   = { 0, 0,  0, 1,  1, 0,  1, 1 };
+
+    @Test
+    public void stableTilesAreSkipped() {
+        BitGrid grid = new BitGrid(300, 300);
+        Grids.place(grid, 10,  10,  BLOCK);
+        Grids.place(grid, 200, 150, BLINKER);
+
+        SparseEngine engine = new SparseEngine();
+        assertEvolution(engine, grid, 10, (generation, e) ->
+            assertTrue("active tiles in generation " + generation + ": " + e.getActiveTileCount(),
+                       generation == 1 || e.getActiveTileCount() <= 2));
+    }
+
+    @Test
+    public void activityCrossesTileBorders() {
+        // a glider crossing the borders between tiles both horizontally and vertically.
+        BitGrid grid = new BitGrid(200, 200);
+        Grids.place(grid, SparseEngine.TILE_ROWS - 8, 64 - 8, 0, 1,  1, 2,  2, 0,  2, 1,  2, 2);
+
+        for (Topology topology : new Topology[] { Topology.PLANE, Topology.TORUS, Topology.KLEIN_BOTTLE }) {
+            SparseEngine engine = new SparseEngine();
+            engine.setTopology(topology);
+            assertEvolution(engine, grid, 200, (generation, e) -> {});
+        }
+    }
+
+    @Test
+    public void stableTilesAreSkippedInBatches() {
+        BitGrid grid = new BitGrid(320, 320);
+        Grids.place(grid, 10,  10,  BLOCK);
+        Grids.place(grid, 200, 150, BLINKER);
+
+        SparseEngine      engine = new SparseEngine();
+        CellularAutomaton model  = new CellularAutomaton(320, 320, engine);
+        for (int row = 0; row < grid.getRows(); row++) {
+            for (int col = 0; col < grid.getCols(); col++) {
+                model.setAlive(row, col, grid.get(row, col));
+            }
+        }
+
+        // the first generation evaluates all tiles once.
+        model.evolveState(1);
+        assertEquals(25, engine.getEvaluatedTileCount());
+
+        long evaluatedTiles = engine.getEvaluatedTileCount();
+        long generation     = 1;
+        for (int generations : new int[] { 64, 63, 2, 1, 7, 100 }) {
+            model.evolveState(generations);
+            generation += generations;
+
+            // only the tile of the blinker is evaluated.
+            long evaluated = engine.getEvaluatedTileCount() - evaluatedTiles;
+            assertEquals("tiles evaluated for " + generations + " generations", generations, evaluated);
+            evaluatedTiles = engine.getEvaluatedTileCount();
+
+            BitGrid expected = Grids.expected(grid, Rule.CONWAY, Topology.PLANE, (int) generation)[(int) generation];
+            for (int row = 0; row < grid.getRows(); row++) {
+                for (int col = 0; col < grid.getCols(); col++) {
+                    assertEquals("generation " + generation + ", cell " + row + "/" + col,
+                                 expected.get(row, col), model.isAlive(row, col));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void externalModification() {
+        BitGrid grid = Grids.random(130, 200, 0.3, 1);
+
+        SparseEngine engine   = new SparseEngine();
+        BitGrid[]    expected = Grids.expected(grid, engine.getRule(), engine.getTopology(), 20);
+
+        BitGrid current = Grids.copy(grid);
+        BitGrid next    = new BitGrid(grid.getRows(), grid.getCols());
+        for (int generation = 1; generation <= 20; generation++) {
+            engine.evolve(current, next);
+            BitGrid tmp = current;
+            current = next;
+            next    = tmp;
+        }
+        assertGridEquals("generation 20", expected[20], current);
+
+        // modify both the current state and the grid holding the previous generation.
+        Grids.place(current, 100, 100, BLINKER);
+        next.set(5, 5, true);
+
+        expected = Grids.expected(current, engine.getRule(), engine.getTopology(), 10);
+        for (int generation = 1; generation <= 10; generation++) {
+            engine.evolve(current, next);
+            assertGridEquals("generation " + generation + " after modification", expected[generation], next);
+
+            BitGrid tmp = current;
+            current = next;
+            next    = tmp;
+        }
+    }
+
+    @Test
+    public void withoutDoubleBuffering() {
+        BitGrid   grid     = Grids.random(100, 130, 0.3, 2);
+        BitGrid[] expected = Grids.expected(grid, Rule.CONWAY, Topology.PLANE, 10);
+
+        SparseEngine engine  = new SparseEngine();
+        BitGrid      current = Grids.copy(grid);
+        for (int generation = 1; generation <= 10; generation++) {
+            BitGrid next = new BitGrid(grid.getRows(), grid.getCols());
+            engine.evolve(current, next);
+            assertGridEquals("generation " + generation, expected[generation], next);
+            current = next;
+        }
+    }
+
+    private interface GenerationCheck {
+        void check(int generation, SparseEngine engine);
+    }
+
+    /**
+     * Evolves the given grid double buffered, comparing each generation with the reference.
+     */
+    private static void assertEvolution(SparseEngine engine, BitGrid grid, int generations, GenerationCheck check) {
+        BitGrid[] expected = Grids.expected(grid, engine.getRule(), engine.getTopology(), generations);
+
+        BitGrid current = Grids.copy(grid);
+        BitGrid next    = new BitGrid(grid.getRows(), grid.getCols());
+        for (int generation = 1; generation <= generations; generation++) {
+            engine.evolve(current, next);
+            assertGridEquals(engine.getTopology() + ", generation " + generation, expected[generation], next);
+            check.check(generation, engine);
+
+            BitGrid tmp = current;
+            current = next;
+            next    = tmp;
+        }
+    }
+}
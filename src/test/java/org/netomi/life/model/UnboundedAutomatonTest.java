@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netomi.life.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the chunked storage of the {@link UnboundedAutomaton}, the results of the
+ * {@link ChunkedEngine} are compared with the reference engine by the {@link EvolutionEngineTest}.
+ *
+ * @author Thomas Neidhart
+ */
+public class UnboundedAutomatonTest {
+
+    private static final int[] GLIDER_SE = { 0, 1,  1, 2,  2, 0,  2, 1,  2, 2 };
+    private static final int[] GLIDER_NW = { 0, 0,  0, 1,  0, 2,  1, 0,  2, 1 };
+
+    @Test
+    public void cellsAtNegativeCoordinates() {
+        UnboundedAutomaton plane = new UnboundedAutomaton();
+
+        long[][] cells = { { -1, -1 }, { -64, 63 }, { -65, -65 }, { 1L << 36, -(1L << 36) }, { 0, 0 } };
+        for (long[] cell : cells) {
+            plane.setAlive(cell[0], cell[1], true);
+        }
+
+        assertEquals(cells.length, plane.getPopulation());
+        assertEquals(cells.length, plane.getChunkCount());
+        for (long[] cell : cells) {
+            assertTrue(cell[0] + "/" + cell[1], plane.isAlive(cell[0], cell[1]));
+            assertFalse(cell[0] + "/" + (cell[1] + 1), plane.isAlive(cell[0], cell[1] + 1));
+        }
+
+        // chunks are freed as soon as they are empty.
+        for (long[] cell : cells) {
+            plane.setAlive(cell[0], cell[1], false);
+        }
+        assertEquals(0, plane.getChunkCount());
+    }
+
+    @Test
+    public void glidersTravelAcrossChunks() {
+        UnboundedAutomaton plane = new UnboundedAutomaton();
+        place(plane, 0, 0, GLIDER_SE);
+        place(plane, -10, -10, GLIDER_NW);
+
+        // a glider moves by one cell diagonally every 4 generations.
+        for (int i = 0; i < 4 * 1000; i++) {
+            plane.evolve();
+        }
+
+        assertEquals(4000, plane.getGeneration());
+        assertEquals(10, plane.getPopulation());
+
+        for (int i = 0; i < GLIDER_SE.length; i += 2) {
+            assertTrue(plane.isAlive(1000 + GLIDER_SE[i], 1000 + GLIDER_SE[i + 1]));
+            assertTrue(plane.isAlive(-1010 + GLIDER_NW[i], -1010 + GLIDER_NW[i + 1]));
+        }
+
+        // only the chunks around the gliders remain allocated.
+        assertTrue("chunks " + plane.getChunkCount(), plane.getChunkCount() <= 8);
+    }
+
+    @Test
+    public void manyChunks() {
+        UnboundedAutomaton plane = new UnboundedAutomaton();
+
+        BitGrid grid = Grids.random(1000, 1000, 0.3, 5);
+        plane.paste(grid, -500, -500);
+        assertEquals(grid.population(), plane.getPopulation());
+
+        BitGrid copy = new BitGrid(1000, 1000);
+        plane.copyTo(copy, -500, -500);
+        Grids.assertGridEquals("copy", grid, copy);
+
+        // removing most chunks again keeps the remaining ones accessible.
+        for (int row = -500; row < 400; row++) {
+            for (int col = -500; col < 500; col++) {
+                plane.setAlive(row, col, false);
+            }
+        }
+        plane.copyTo(copy, -500, -500);
+        for (int row = 0; row < 1000; row++) {
+            for (int col = 0; col < 1000; col++) {
+                assertEquals(row + "/" + col, row >= 900 && grid.get(row, col), copy.get(row, col));
+            }
+        }
+    }
+
+    @Test
+    public void rule() {
+        UnboundedAutomaton plane = new UnboundedAutomaton(Rule.parse("B36/S23"));
+        assertEquals(Rule.parse("B36/S23"), plane.getRule());
+
+        for (String notation : new String[] { "B0/S8", "B2/S/C3", "R5,C0,M1,S34..58,B34..45,NM" }) {
+            try {
+                plane.setRule(Rule.parse(notation));
+                fail("expected an IllegalArgumentException for " + notation);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static void place(UnboundedAutomaton plane, long row, long col, int... offsets) {
+        for (int i = 0; i < offsets.length; i += 2) {
+            plane.setAlive(row + offsets[i], col + offsets[i + 1], true);
+        }
+    }
+}